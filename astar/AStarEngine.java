@@ -0,0 +1,384 @@
+package astar;
+
+import astar.ShortestPathsSolver.SolverOutcome;
+import edu.princeton.cs.algs4.Stopwatch;
+import heap.MinPQStatistics;
+import heap.MinPQStatistics.Operation;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Runs the same A* search as AStarSolver, but can be reused for any number of queries.
+ * The fringe and the per-vertex state (distance, previous vertex, fringe position) live in
+ * arrays that are kept between calls to solve. Instead of clearing them, every entry is
+ * stamped with the generation (query number) that wrote it, and entries from earlier
+ * generations read as unreached, so starting a query costs O(1) however large the last
+ * one was. Once the arrays have grown to fit the largest query, solving allocates only
+ * the returned path.
+ *
+ * If the graph is a DenseAStarGraph, vertex ids index the arrays directly; otherwise
+ * vertices are kept in an open-addressing hash table with linear probing.
+ * An engine is not thread-safe: give each thread its own.
+ *
+ * Like AStarSolver's fringes, the fringe records its operations into
+ * AStarSolver.pqStatistics() when the JVM is started with -Dastar.instrumentPQ=true.
+ */
+public class AStarEngine<Vertex> {
+    private static final int INITIAL_CAPACITY = 16;
+
+    /* Non-null while solving a DenseAStarGraph. */
+    private DenseAStarGraph<Vertex> dense;
+
+    /*
+     * Hash table of vertices in slots 0 through mask, used when dense is null. Load factor
+     * is kept at or below 1/2.
+     */
+    private Object[] keys;
+    private int mask;
+    private int reached;
+
+    /* Per-slot state, valid only where stamps[slot] == generation. */
+    private int[] stamps;
+    private int generation;
+    private double[] distances;
+    private Object[] previous;
+    private double[] priorities;
+    /* Heap index of the slot's vertex, or 0 if it is not in the fringe. */
+    private int[] position;
+
+    /* The fringe: heap[1..size] holds slots, ordered by priorities[slot]. */
+    private int[] heap;
+    private int size;
+    /* Where fringe operations are recorded, or null if they aren't. */
+    private final MinPQStatistics statistics;
+    private long siftSteps;
+
+    /* The query being solved, and the vertex whose edges are being relaxed. */
+    private AStarGraph<Vertex> graph;
+    private Vertex end;
+    private Vertex from;
+    private double fromDist;
+    /* Created once, so that relaxing edges allocates nothing. */
+    private final EdgeVisitor<Vertex> relaxer = this::relax;
+
+    /** Creates an engine whose fringe is instrumented if AStarSolver's fringes are. */
+    public AStarEngine() {
+        this(AStarSolver.pqStatistics());
+    }
+
+    /** Creates an engine that records its fringe operations into statistics, unless null. */
+    public AStarEngine(MinPQStatistics statistics) {
+        this.statistics = statistics;
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Finds the shortest path from start to end in the graph with A* search, giving up
+     * after timeout seconds. The returned result doesn't depend on this engine, so it
+     * stays valid after later calls.
+     */
+    public ShortestPathsSolver<Vertex> solve(AStarGraph<Vertex> graph, Vertex start,
+                                             Vertex end, double timeout) {
+        Stopwatch sw = new Stopwatch();
+        reset(graph);
+        this.graph = graph;
+        this.end = end;
+        SolverOutcome outcome = SolverOutcome.UNSOLVABLE;
+        int explored = 0;
+
+        int startSlot = reach(start, 0.0, null);
+        push(startSlot, graph.estimatedDistanceToGoal(start, end));
+        while (size > 0) {
+            int currSlot = pop();
+            Vertex curr = vertex(currSlot);
+            if (curr.equals(end)) {
+                outcome = SolverOutcome.SOLVED;
+                break;
+            }
+            explored++;
+
+            from = curr;
+            fromDist = distances[currSlot];
+            graph.forEachNeighbor(curr, relaxer);
+            if (sw.elapsedTime() > timeout) {
+                outcome = SolverOutcome.TIMEOUT;
+                break;
+            }
+        }
+
+        // Don't keep the graph reachable between queries.
+        this.graph = null;
+        this.end = null;
+        from = null;
+        if (outcome != SolverOutcome.SOLVED) {
+            return new Result<>(outcome, new LinkedList<>(), Double.POSITIVE_INFINITY,
+                    explored, sw.elapsedTime());
+        }
+        List<Vertex> solution = new LinkedList<>();
+        Vertex prev = end;
+        do {
+            solution.add(0, prev);
+            prev = edgeTo(prev);
+        } while (prev != null);
+        return new Result<>(outcome, solution, distances[find(end)], explored,
+                sw.elapsedTime());
+    }
+
+    /** Relaxes the edge from the vertex being expanded to next. */
+    private void relax(Vertex next, double weight) {
+        double distance = fromDist + weight;
+        int slot = find(next);
+        if (slot < 0 || distance < distances[slot]) {
+            slot = reach(next, distance, from);
+            double priority = distance + graph.estimatedDistanceToGoal(next, end);
+            if (position[slot] == 0) {
+                push(slot, priority);
+            } else {
+                decrease(slot, priority);
+            }
+        }
+    }
+
+    /** Starts a new generation, resizing the arrays first if the graph needs more room. */
+    @SuppressWarnings("unchecked")
+    private void reset(AStarGraph<Vertex> graph) {
+        if (graph instanceof DenseAStarGraph) {
+            dense = (DenseAStarGraph<Vertex>) graph;
+            if (stamps.length < dense.numVertices()) {
+                allocate(dense.numVertices());
+            }
+        } else {
+            dense = null;
+        }
+        size = 0;
+        reached = 0;
+        generation++;
+        if (generation == 0) {
+            // Wrapped around, so old stamps could collide with new generations.
+            Arrays.fill(stamps, 0);
+            generation = 1;
+        }
+    }
+
+    /**
+     * Returns the slot holding v in the current generation, or -1 if v hasn't been
+     * reached yet.
+     */
+    private int find(Vertex v) {
+        int slot = dense != null ? dense.id(v) : probe(v);
+        return stamps[slot] == generation ? slot : -1;
+    }
+
+    /**
+     * Records that the best known path to v has the given distance and comes from the
+     * vertex from, claiming a slot for v if it hasn't been reached yet. Returns the slot.
+     */
+    private int reach(Vertex v, double distance, Vertex from) {
+        int slot = dense != null ? dense.id(v) : probe(v);
+        if (stamps[slot] != generation) {
+            if (dense == null && (reached + 1) * 2 > mask + 1) {
+                resizeTable((mask + 1) * 2);
+                slot = probe(v);
+            }
+            stamps[slot] = generation;
+            position[slot] = 0;
+            if (dense == null) {
+                keys[slot] = v;
+                reached++;
+            }
+        }
+        distances[slot] = distance;
+        previous[slot] = from;
+        return slot;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Vertex vertex(int slot) {
+        return dense != null ? dense.vertex(slot) : (Vertex) keys[slot];
+    }
+
+    @SuppressWarnings("unchecked")
+    private Vertex edgeTo(Vertex v) {
+        return (Vertex) previous[find(v)];
+    }
+
+    /**
+     * Returns the table position holding v in the current generation, or the position
+     * where it would be inserted. Entries from earlier generations count as empty.
+     */
+    private int probe(Object v) {
+        int pos = hash(v) & mask;
+        while (stamps[pos] == generation && !keys[pos].equals(v)) {
+            pos = (pos + 1) & mask;
+        }
+        return pos;
+    }
+
+    /** Spreads the high bits of the hash code so that sequential keys don't cluster. */
+    private static int hash(Object v) {
+        int h = v.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Replaces the arrays with empty ones of the given length. Dense graphs use every
+     * slot; the hash table uses the largest power of two that fits.
+     */
+    private void allocate(int length) {
+        keys = new Object[length];
+        mask = Integer.highestOneBit(length) - 1;
+        stamps = new int[length];
+        generation = 0;
+        distances = new double[length];
+        previous = new Object[length];
+        priorities = new double[length];
+        position = new int[length];
+        heap = new int[length + 1];
+    }
+
+    /** Moves the current generation's vertices into a larger table, fixing up the fringe. */
+    private void resizeTable(int tableSize) {
+        Object[] oldKeys = keys;
+        int[] oldStamps = stamps;
+        int oldGeneration = generation;
+        double[] oldDistances = distances;
+        Object[] oldPrevious = previous;
+        double[] oldPriorities = priorities;
+        int[] oldPosition = position;
+        allocate(tableSize);
+        generation = 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldStamps[i] == oldGeneration) {
+                int pos = probe(oldKeys[i]);
+                keys[pos] = oldKeys[i];
+                stamps[pos] = generation;
+                distances[pos] = oldDistances[i];
+                previous[pos] = oldPrevious[i];
+                priorities[pos] = oldPriorities[i];
+                position[pos] = oldPosition[i];
+                if (position[pos] != 0) {
+                    heap[position[pos]] = pos;
+                }
+            }
+        }
+    }
+
+    private void push(int slot, double priority) {
+        long start = statistics == null ? 0 : System.nanoTime();
+        long steps = siftSteps;
+        size++;
+        heap[size] = slot;
+        position[slot] = size;
+        priorities[slot] = priority;
+        swim(size);
+        record(Operation.ADD, start, steps);
+    }
+
+    private int pop() {
+        long start = statistics == null ? 0 : System.nanoTime();
+        long steps = siftSteps;
+        int smallest = heap[1];
+        swap(1, size);
+        position[smallest] = 0;
+        size--;
+        sink(1);
+        record(Operation.REMOVE_SMALLEST, start, steps);
+        return smallest;
+    }
+
+    private void decrease(int slot, double priority) {
+        long start = statistics == null ? 0 : System.nanoTime();
+        long steps = siftSteps;
+        priorities[slot] = priority;
+        swim(position[slot]);
+        record(Operation.CHANGE_PRIORITY, start, steps);
+    }
+
+    /** Records a fringe operation that started at the given time and sift step count. */
+    private void record(Operation op, long start, long steps) {
+        if (statistics != null) {
+            statistics.record(op, System.nanoTime() - start, siftSteps - steps, size);
+        }
+    }
+
+    private boolean smaller(int i, int j) {
+        return priorities[heap[i]] < priorities[heap[j]];
+    }
+
+    private void swim(int index) {
+        while (index > 1 && smaller(index, index / 2)) {
+            swap(index, index / 2);
+            index /= 2;
+            siftSteps++;
+        }
+    }
+
+    private void sink(int index) {
+        while (index * 2 <= size) {
+            int child = index * 2;
+            if (child < size && smaller(child + 1, child)) {
+                child++;
+            }
+            if (smaller(child, index)) {
+                swap(child, index);
+                index = child;
+                siftSteps++;
+            } else {
+                break;
+            }
+        }
+    }
+
+    private void swap(int a, int b) {
+        int temp = heap[a];
+        heap[a] = heap[b];
+        heap[b] = temp;
+        position[heap[a]] = a;
+        position[heap[b]] = b;
+    }
+
+    /** The outcome of one call to solve. */
+    private static class Result<Vertex> implements ShortestPathsSolver<Vertex> {
+        private final SolverOutcome outcome;
+        private final List<Vertex> solution;
+        private final double solutionWeight;
+        private final int explored;
+        private final double time;
+
+        Result(SolverOutcome outcome, List<Vertex> solution, double solutionWeight,
+               int explored, double time) {
+            this.outcome = outcome;
+            this.solution = solution;
+            this.solutionWeight = solutionWeight;
+            this.explored = explored;
+            this.time = time;
+        }
+
+        @Override
+        public SolverOutcome outcome() {
+            return outcome;
+        }
+
+        @Override
+        public List<Vertex> solution() {
+            return solution;
+        }
+
+        @Override
+        public double solutionWeight() {
+            return solutionWeight;
+        }
+
+        @Override
+        public int numStatesExplored() {
+            return explored;
+        }
+
+        @Override
+        public double explorationTime() {
+            return time;
+        }
+    }
+}
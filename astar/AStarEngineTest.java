@@ -0,0 +1,162 @@
+package astar;
+
+import astar.example.WeightedDirectedGraph;
+import heap.InstrumentedMinPQ;
+import heap.MinPQStatistics;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AStarEngineTest {
+    private static final int VERTICES = 5000;
+
+    /** Hides the DenseAStarGraph ids of a graph, so the engine has to hash its vertices. */
+    private static AStarGraph<Integer> hashed(AStarGraph<Integer> graph) {
+        return new AStarGraph<>() {
+            @Override
+            public List<WeightedEdge<Integer>> neighbors(Integer v) {
+                return graph.neighbors(v);
+            }
+
+            @Override
+            public double estimatedDistanceToGoal(Integer s, Integer goal) {
+                return graph.estimatedDistanceToGoal(s, goal);
+            }
+        };
+    }
+
+    /**
+     * Wraps a graph so that its edges can only be visited with forEachNeighbor, which is
+     * what solvers are expected to use.
+     */
+    private static AStarGraph<Integer> visitOnly(AStarGraph<Integer> graph) {
+        return new AStarGraph<>() {
+            @Override
+            public List<WeightedEdge<Integer>> neighbors(Integer v) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void forEachNeighbor(Integer v, EdgeVisitor<Integer> visitor) {
+                for (WeightedEdge<Integer> e : graph.neighbors(v)) {
+                    visitor.visit(e.to(), e.weight());
+                }
+            }
+
+            @Override
+            public double estimatedDistanceToGoal(Integer s, Integer goal) {
+                return graph.estimatedDistanceToGoal(s, goal);
+            }
+        };
+    }
+
+    private static WeightedDirectedGraph randomGraph(Random r) {
+        WeightedDirectedGraph graph = new WeightedDirectedGraph(VERTICES);
+        for (int i = 0; i < VERTICES * 3; i++) {
+            graph.addEdge(r.nextInt(VERTICES), r.nextInt(VERTICES), r.nextInt(100));
+        }
+        return graph;
+    }
+
+    @Test
+    public void testReuseMatchesSolver() {
+        Random r = new Random(373);
+        WeightedDirectedGraph graph = randomGraph(r);
+        AStarEngine<Integer> dense = new AStarEngine<>();
+        AStarEngine<Integer> hash = new AStarEngine<>();
+        int solved = 0;
+        for (int i = 0; i < 100; i++) {
+            int start = r.nextInt(VERTICES);
+            int end = r.nextInt(VERTICES);
+            ShortestPathsSolver<Integer> expected = new AStarSolver<>(graph, start, end, 10);
+            for (ShortestPathsSolver<Integer> actual : List.of(
+                    dense.solve(graph, start, end, 10),
+                    hash.solve(hashed(graph), start, end, 10))) {
+                assertEquals(expected.outcome(), actual.outcome());
+                assertEquals(expected.solution(), actual.solution());
+                assertEquals(expected.numStatesExplored(), actual.numStatesExplored());
+                if (expected.outcome() == ShortestPathsSolver.SolverOutcome.SOLVED) {
+                    assertEquals(expected.solutionWeight(), actual.solutionWeight(), 1e-9);
+                }
+            }
+            if (expected.outcome() == ShortestPathsSolver.SolverOutcome.SOLVED) {
+                solved++;
+            }
+        }
+        assertTrue(solved > 50);
+    }
+
+    @Test
+    public void testSwitchGraphs() {
+        // One engine alternating between dense and hashed graphs of different sizes.
+        Random r = new Random(373);
+        WeightedDirectedGraph large = randomGraph(r);
+        WeightedDirectedGraph small = new WeightedDirectedGraph(3);
+        small.addEdge(0, 1, 1);
+        small.addEdge(1, 2, 1);
+        AStarEngine<Integer> engine = new AStarEngine<>();
+        for (int i = 0; i < 10; i++) {
+            assertEquals(List.of(0, 1, 2), engine.solve(small, 0, 2, 10).solution());
+            int start = r.nextInt(VERTICES);
+            int end = r.nextInt(VERTICES);
+            ShortestPathsSolver<Integer> expected = new AStarSolver<>(large, start, end, 10);
+            assertEquals(expected.solution(),
+                    engine.solve(hashed(large), start, end, 10).solution());
+            assertEquals(List.of(1, 2), engine.solve(hashed(small), 1, 2, 10).solution());
+            assertEquals(expected.solution(), engine.solve(large, start, end, 10).solution());
+        }
+        ShortestPathsSolver<Integer> unsolvable = engine.solve(small, 2, 0, 10);
+        assertEquals(ShortestPathsSolver.SolverOutcome.UNSOLVABLE, unsolvable.outcome());
+        assertTrue(unsolvable.solution().isEmpty());
+        assertEquals(Double.POSITIVE_INFINITY, unsolvable.solutionWeight(), 0);
+    }
+
+    @Test
+    public void testNeighborVisitor() {
+        Random r = new Random(373);
+        WeightedDirectedGraph graph = randomGraph(r);
+        AStarGraph<Integer> visited = visitOnly(graph);
+        AStarEngine<Integer> engine = new AStarEngine<>();
+        for (int i = 0; i < 20; i++) {
+            int start = r.nextInt(VERTICES);
+            int end = r.nextInt(VERTICES);
+            ShortestPathsSolver<Integer> expected = new AStarSolver<>(graph, start, end, 10);
+            for (ShortestPathsSolver<Integer> actual : List.of(
+                    new AStarSolver<>(visited, start, end, 10),
+                    new AStarSolver<>(visited, start, end, 10, true),
+                    engine.solve(visited, start, end, 10))) {
+                assertEquals(expected.outcome(), actual.outcome());
+                assertEquals(expected.solution(), actual.solution());
+            }
+        }
+    }
+
+    @Test
+    public void testInstrumentedFringe() {
+        Random r = new Random(373);
+        WeightedDirectedGraph graph = randomGraph(r);
+        MinPQStatistics expected = new MinPQStatistics();
+        MinPQStatistics actual = new MinPQStatistics();
+        AStarEngine<Integer> engine = new AStarEngine<>(actual);
+        int explored = 0;
+        for (int i = 0; i < 20; i++) {
+            int start = r.nextInt(VERTICES);
+            int end = r.nextInt(VERTICES);
+            new AStarSolver<>(graph, start, end, 10,
+                    new InstrumentedMinPQ<>(AStarSolver.defaultPQ(graph), expected));
+            explored += engine.solve(graph, start, end, 10).numStatesExplored();
+        }
+        assertTrue(explored > 0);
+        MinPQStatistics.Snapshot e = expected.snapshot();
+        MinPQStatistics.Snapshot a = actual.snapshot();
+        assertTrue(a.removeSmallest().count() >= explored);
+        assertEquals(e.add().count(), a.add().count());
+        assertEquals(e.removeSmallest().count(), a.removeSmallest().count());
+        assertEquals(e.changePriority().count(), a.changePriority().count());
+        assertEquals(e.maxSize(), a.maxSize());
+    }
+}
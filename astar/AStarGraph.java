@@ -7,6 +7,17 @@ public interface AStarGraph<Vertex> {
     /** Returns the list of outgoing edges from the given vertex. */
     List<WeightedEdge<Vertex>> neighbors(Vertex v);
 
+    /**
+     * Calls visitor.visit once for each outgoing edge from the given vertex. Solvers call
+     * this in their inner loop, so graphs should override it to pass their edges along
+     * without building a list of WeightedEdge objects first.
+     */
+    default void forEachNeighbor(Vertex v, EdgeVisitor<Vertex> visitor) {
+        for (WeightedEdge<Vertex> e : neighbors(v)) {
+            visitor.visit(e.to(), e.weight());
+        }
+    }
+
     /**
      *  Returns an estimated distance from vertex s to the goal vertex according to
      *  the A* heuristic function for this graph.
@@ -1,8 +1,11 @@
 package astar;
 
 import edu.princeton.cs.algs4.Stopwatch;
+import heap.ExtrinsicMinPQ;
+import heap.InstrumentedMinPQ;
+import heap.MinPQStatistics;
+import heap.UnindexedMinPQ;
 
-import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -10,10 +13,15 @@ import java.util.List;
  * @see ShortestPathsSolver for more method documentation
  */
 public class AStarSolver<Vertex> implements ShortestPathsSolver<Vertex> {
+    /**
+     * Statistics shared by the fringes of every solver and AStarEngine, or null unless the
+     * JVM was started with -Dastar.instrumentPQ=true. Lazy deletion fringes are not
+     * instrumented.
+     */
+    private static final MinPQStatistics PQ_STATISTICS =
+            Boolean.getBoolean("astar.instrumentPQ") ? new MinPQStatistics() : null;
 
-    private TreeMapMinPQ<Vertex> pq;
-    private HashMap<Vertex, Double> distTo;
-    private HashMap<Vertex, Vertex> edgeTo;
+    private SearchState<Vertex> state;
     private SolverOutcome outcome;
     private List<Vertex> solution;
     private double solutionWeight;
@@ -24,60 +32,218 @@ public class AStarSolver<Vertex> implements ShortestPathsSolver<Vertex> {
      * Immediately solves and stores the result of running memory optimized A*
      * search, computing everything necessary for all other methods to return
      * their results in constant time. The timeout is given in seconds.
+     * If the graph is a DenseAStarGraph, the fringe is an IntMinPQ keyed by vertex id
+     * and distances are kept in arrays indexed by vertex id.
      */
     public AStarSolver(AStarGraph<Vertex> input, Vertex start, Vertex end, double timeout) {
-        pq = new TreeMapMinPQ<>();
-        distTo = new HashMap<>();
-        edgeTo = new HashMap<>();
+        this(input, start, end, timeout, false);
+    }
+
+    /**
+     * Same as above, but if lazyDeletion is true, the fringe is an UnindexedMinPQ: instead
+     * of changing the priority of a vertex already in the fringe, the search adds another
+     * entry for it and skips entries that are out of date (their priority no longer matches
+     * the best known distance) when they are removed. This avoids maintaining an item
+     * index, at the cost of a larger fringe.
+     */
+    public AStarSolver(AStarGraph<Vertex> input, Vertex start, Vertex end, double timeout,
+                       boolean lazyDeletion) {
+        initialize(defaultState(input));
+        Stopwatch sw = new Stopwatch();
+        if (lazyDeletion) {
+            solveLazy(input, start, end, timeout, sw);
+        } else {
+            solve(input, start, end, timeout, defaultPQ(input), sw);
+        }
+        time = sw.elapsedTime();
+    }
+
+    /**
+     * Same as above, but uses the given empty PQ as the fringe. Handy for comparing
+     * ExtrinsicMinPQ implementations on the same search.
+     */
+    public AStarSolver(AStarGraph<Vertex> input, Vertex start, Vertex end, double timeout,
+                       ExtrinsicMinPQ<Vertex> pq) {
+        this(input, start, end, timeout, pq, defaultState(input));
+    }
+
+    /**
+     * Same as above, but also records distances in the given empty SearchState, such as a
+     * HashSearchState for a graph that is a DenseAStarGraph but too large to span with arrays.
+     */
+    public AStarSolver(AStarGraph<Vertex> input, Vertex start, Vertex end, double timeout,
+                       ExtrinsicMinPQ<Vertex> pq, SearchState<Vertex> state) {
+        initialize(state);
+        Stopwatch sw = new Stopwatch();
+        solve(input, start, end, timeout, pq, sw);
+        time = sw.elapsedTime();
+    }
+
+    private void initialize(SearchState<Vertex> searchState) {
+        state = searchState;
         solution = new LinkedList<>();
         outcome = SolverOutcome.UNSOLVABLE;
+    }
 
+    private void solve(AStarGraph<Vertex> input, Vertex start, Vertex end, double timeout,
+                       ExtrinsicMinPQ<Vertex> pq, Stopwatch sw) {
+        if (PQ_STATISTICS != null) {
+            pq = new InstrumentedMinPQ<>(pq, PQ_STATISTICS);
+        }
         pq.add(start, input.estimatedDistanceToGoal(start, end));
-        distTo.put(start, 0.0);
-        edgeTo.put(start, null);
-
-        Stopwatch sw = new Stopwatch();
+        state.update(start, 0.0, null);
+        Relaxer relaxer = new IndexedRelaxer(input, end, pq);
 
         while (!pq.isEmpty()) {
-            // System.out.println(pq);
             Vertex curr = pq.removeSmallest();
             if (curr.equals(end)) {
-                outcome = SolverOutcome.SOLVED;
-                Vertex prev = curr;
-                do {
-                    solution.add(0, prev);
-                    prev = edgeTo.get(prev);
-                } while (prev != null);
-                solutionWeight = distTo.get(end);
-
+                solved(end);
                 break;
             }
             explored++;
 
-            List<WeightedEdge<Vertex>> neighbors = input.neighbors(curr);
-            for (WeightedEdge<Vertex> e: neighbors) {
-                Vertex next = e.to();
-
-                if (!distTo.containsKey(next)) {
-                    distTo.put(next, Double.POSITIVE_INFINITY);
-                }
-
-                if (distTo.get(next) > distTo.get(curr) + e.weight()) {
-                    distTo.put(next, distTo.get(curr) + e.weight());
-                    edgeTo.put(next, curr);
-                    if (!pq.contains(next)) {
-                        pq.add(next, Double.POSITIVE_INFINITY);
-                    }
-                    pq.changePriority(next, distTo.get(next) + input.estimatedDistanceToGoal(next, end));
-                }
+            relaxer.relaxEdges(curr, state.distTo(curr));
+            if (sw.elapsedTime() > timeout) {
+                outcome = SolverOutcome.TIMEOUT;
+                System.out.println("Timeout");
+                break;
+            }
+        }
+    }
+
+    private void solveLazy(AStarGraph<Vertex> input, Vertex start, Vertex end, double timeout,
+                           Stopwatch sw) {
+        UnindexedMinPQ<Vertex> pq = new UnindexedMinPQ<>();
+        pq.add(start, input.estimatedDistanceToGoal(start, end));
+        state.update(start, 0.0, null);
+        Relaxer relaxer = new LazyRelaxer(input, end, pq);
+
+        while (!pq.isEmpty()) {
+            double priority = pq.smallestPriority();
+            Vertex curr = pq.removeSmallest();
+            double currDist = state.distTo(curr);
+            // A later entry for curr was added with a smaller priority, so this one is stale.
+            if (priority > currDist + input.estimatedDistanceToGoal(curr, end)) {
+                continue;
+            }
+            if (curr.equals(end)) {
+                solved(end);
+                break;
             }
+            explored++;
+
+            relaxer.relaxEdges(curr, currDist);
             if (sw.elapsedTime() > timeout) {
                 outcome = SolverOutcome.TIMEOUT;
                 System.out.println("Timeout");
                 break;
             }
         }
-        time = sw.elapsedTime();
+    }
+
+    /**
+     * Relaxes the outgoing edges of one vertex at a time. A search keeps a single relaxer
+     * and points it at each vertex it expands, so relaxing edges allocates nothing beyond
+     * what the graph and the fringe do.
+     */
+    private abstract class Relaxer implements EdgeVisitor<Vertex> {
+        private final AStarGraph<Vertex> input;
+        private final Vertex end;
+        private Vertex from;
+        private double fromDist;
+
+        Relaxer(AStarGraph<Vertex> input, Vertex end) {
+            this.input = input;
+            this.end = end;
+        }
+
+        /** Relaxes every outgoing edge of v, whose best known distance is dist. */
+        void relaxEdges(Vertex v, double dist) {
+            from = v;
+            fromDist = dist;
+            input.forEachNeighbor(v, this);
+        }
+
+        @Override
+        public void visit(Vertex next, double weight) {
+            double distance = fromDist + weight;
+            if (distance < state.distTo(next)) {
+                state.update(next, distance, from);
+                enqueue(next, distance + input.estimatedDistanceToGoal(next, end));
+            }
+        }
+
+        /** Puts next in the fringe with the given priority. */
+        abstract void enqueue(Vertex next, double priority);
+    }
+
+    /** Changes the priority of vertices already in the fringe. */
+    private class IndexedRelaxer extends Relaxer {
+        private final ExtrinsicMinPQ<Vertex> pq;
+
+        IndexedRelaxer(AStarGraph<Vertex> input, Vertex end, ExtrinsicMinPQ<Vertex> pq) {
+            super(input, end);
+            this.pq = pq;
+        }
+
+        @Override
+        void enqueue(Vertex next, double priority) {
+            if (pq.contains(next)) {
+                pq.changePriority(next, priority);
+            } else {
+                pq.add(next, priority);
+            }
+        }
+    }
+
+    /** Adds another entry for vertices already in the fringe, for lazy deletion. */
+    private class LazyRelaxer extends Relaxer {
+        private final UnindexedMinPQ<Vertex> pq;
+
+        LazyRelaxer(AStarGraph<Vertex> input, Vertex end, UnindexedMinPQ<Vertex> pq) {
+            super(input, end);
+            this.pq = pq;
+        }
+
+        @Override
+        void enqueue(Vertex next, double priority) {
+            pq.add(next, priority);
+        }
+    }
+
+    /** Records the path to end by following the previous vertices back to the start. */
+    private void solved(Vertex end) {
+        outcome = SolverOutcome.SOLVED;
+        Vertex prev = end;
+        do {
+            solution.add(0, prev);
+            prev = state.edgeTo(prev);
+        } while (prev != null);
+        solutionWeight = state.distTo(end);
+    }
+
+    /**
+     * Returns the statistics recorded by every solver's fringe PQ, or null if
+     * instrumentation is off (see PQ_STATISTICS).
+     */
+    public static MinPQStatistics pqStatistics() {
+        return PQ_STATISTICS;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <Vertex> ExtrinsicMinPQ<Vertex> defaultPQ(AStarGraph<Vertex> input) {
+        if (input instanceof DenseAStarGraph) {
+            return new DenseMinPQ<>((DenseAStarGraph<Vertex>) input);
+        }
+        return new TreeMapMinPQ<>();
+    }
+
+    @SuppressWarnings("unchecked")
+    static <Vertex> SearchState<Vertex> defaultState(AStarGraph<Vertex> input) {
+        if (input instanceof DenseAStarGraph) {
+            return new DenseSearchState<>((DenseAStarGraph<Vertex>) input);
+        }
+        return new HashSearchState<>();
     }
 
     @Override
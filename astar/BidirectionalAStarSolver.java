@@ -0,0 +1,200 @@
+package astar;
+
+import edu.princeton.cs.algs4.Stopwatch;
+import heap.ExtrinsicMinPQ;
+
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Bidirectional A* search: one search runs forwards from the start and another runs
+ * backwards from the end, until they meet. On long routes each side explores roughly half
+ * the ellipse a one-sided search would.
+ *
+ * Both sides use the average potential p(v) = (h(v, end) - h'(start, v)) / 2, where h is
+ * estimatedDistanceToGoal and h' is estimatedDistanceFromStart: the forward search orders
+ * its fringe by distTo(v) + p(v) and the backward search by distTo(v) - p(v). Because the
+ * two potentials sum to zero, both searches see the same reduced edge weights, which are
+ * non-negative as long as both heuristics are consistent. The search stops once the sum of
+ * the two smallest fringe priorities is at least the length of the best path found so far.
+ *
+ * @see ShortestPathsSolver for more method documentation
+ */
+public class BidirectionalAStarSolver<Vertex> implements ShortestPathsSolver<Vertex> {
+    private final ReversibleAStarGraph<Vertex> input;
+    private final Vertex start;
+    private final Vertex end;
+    private final SearchState<Vertex> forward;
+    private final SearchState<Vertex> backward;
+
+    /* The vertex where the best path found so far crosses from one search to the other. */
+    private Vertex meeting;
+    private double best = Double.POSITIVE_INFINITY;
+
+    /* The vertex being expanded and its side of the search, for relax. */
+    private Vertex curr;
+    private double currDist;
+    private ExtrinsicMinPQ<Vertex> pq;
+    private SearchState<Vertex> state;
+    private SearchState<Vertex> other;
+    private int sign;
+    /* Created once, so that relaxing edges allocates nothing. */
+    private final EdgeVisitor<Vertex> relaxer = this::relax;
+
+    private SolverOutcome outcome;
+    private List<Vertex> solution;
+    private double solutionWeight;
+    private double time;
+    private int explored;
+
+    /**
+     * Immediately solves and stores the result of running bidirectional A* search,
+     * computing everything necessary for all other methods to return their results in
+     * constant time. The timeout is given in seconds.
+     */
+    public BidirectionalAStarSolver(ReversibleAStarGraph<Vertex> input, Vertex start,
+                                    Vertex end, double timeout) {
+        this.input = input;
+        this.start = start;
+        this.end = end;
+        forward = AStarSolver.defaultState(input);
+        backward = AStarSolver.defaultState(input);
+        solution = new LinkedList<>();
+        solutionWeight = Double.POSITIVE_INFINITY;
+        outcome = SolverOutcome.UNSOLVABLE;
+        Stopwatch sw = new Stopwatch();
+        solve(timeout, sw);
+        // Don't keep the fringe reachable once solved.
+        curr = null;
+        pq = null;
+        time = sw.elapsedTime();
+    }
+
+    private void solve(double timeout, Stopwatch sw) {
+        ExtrinsicMinPQ<Vertex> forwardPQ = AStarSolver.defaultPQ(input);
+        ExtrinsicMinPQ<Vertex> backwardPQ = AStarSolver.defaultPQ(input);
+        forward.update(start, 0.0, null);
+        forwardPQ.add(start, potential(start));
+        backward.update(end, 0.0, null);
+        backwardPQ.add(end, -potential(end));
+        if (start.equals(end)) {
+            meeting = start;
+            best = 0;
+        }
+
+        while (!forwardPQ.isEmpty() && !backwardPQ.isEmpty()) {
+            Vertex forwardTop = forwardPQ.getSmallest();
+            Vertex backwardTop = backwardPQ.getSmallest();
+            double forwardKey = forward.distTo(forwardTop) + potential(forwardTop);
+            double backwardKey = backward.distTo(backwardTop) - potential(backwardTop);
+            if (forwardKey + backwardKey >= best) {
+                break;
+            }
+            // Expand the smaller fringe, which keeps the two searches about the same size.
+            if (forwardPQ.size() <= backwardPQ.size()) {
+                expand(forwardPQ.removeSmallest(), forwardPQ, forward, backward, 1);
+            } else {
+                expand(backwardPQ.removeSmallest(), backwardPQ, backward, forward, -1);
+            }
+            explored++;
+            if (sw.elapsedTime() > timeout) {
+                outcome = SolverOutcome.TIMEOUT;
+                System.out.println("Timeout");
+                return;
+            }
+        }
+        if (meeting != null) {
+            solved();
+        }
+    }
+
+    /**
+     * Relaxes the edges of curr for one side of the search, recording any path that
+     * reaches a vertex the other side has already reached. sign is 1 for the forward
+     * search and -1 for the backward search.
+     */
+    private void expand(Vertex curr, ExtrinsicMinPQ<Vertex> pq, SearchState<Vertex> state,
+                        SearchState<Vertex> other, int sign) {
+        this.curr = curr;
+        this.currDist = state.distTo(curr);
+        this.pq = pq;
+        this.state = state;
+        this.other = other;
+        this.sign = sign;
+        if (sign > 0) {
+            input.forEachNeighbor(curr, relaxer);
+        } else {
+            input.forEachReverseNeighbor(curr, relaxer);
+        }
+    }
+
+    /** Relaxes the edge from the vertex being expanded to next, on its side of the search. */
+    private void relax(Vertex next, double weight) {
+        double distance = currDist + weight;
+        if (distance < state.distTo(next)) {
+            state.update(next, distance, curr);
+            double priority = distance + sign * potential(next);
+            if (pq.contains(next)) {
+                pq.changePriority(next, priority);
+            } else {
+                pq.add(next, priority);
+            }
+            double through = distance + other.distTo(next);
+            if (through < best) {
+                best = through;
+                meeting = next;
+            }
+        }
+    }
+
+    /**
+     * Returns the forward search's potential for v; the backward search uses its negation.
+     * Infinite estimates count as 0, since their difference would be undefined.
+     */
+    private double potential(Vertex v) {
+        return (finite(input.estimatedDistanceToGoal(v, end))
+                - finite(input.estimatedDistanceFromStart(start, v))) / 2;
+    }
+
+    private static double finite(double estimate) {
+        return Double.isInfinite(estimate) ? 0 : estimate;
+    }
+
+    /** Records the path through the meeting vertex by following both searches back. */
+    private void solved() {
+        outcome = SolverOutcome.SOLVED;
+        for (Vertex v = meeting; v != null; v = forward.edgeTo(v)) {
+            solution.add(0, v);
+        }
+        for (Vertex v = backward.edgeTo(meeting); v != null; v = backward.edgeTo(v)) {
+            solution.add(v);
+        }
+        solutionWeight = best;
+    }
+
+    @Override
+    public SolverOutcome outcome() {
+        return outcome;
+    }
+
+    @Override
+    public List<Vertex> solution() {
+        return solution;
+    }
+
+    @Override
+    public double solutionWeight() {
+        return solutionWeight;
+    }
+
+    /** The total number of removeSmallest operations on both fringes. */
+    @Override
+    public int numStatesExplored() {
+        return explored;
+    }
+
+    @Override
+    public double explorationTime() {
+        return time;
+    }
+}
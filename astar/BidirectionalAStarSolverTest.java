@@ -0,0 +1,138 @@
+package astar;
+
+import astar.ShortestPathsSolver.SolverOutcome;
+import astar.example.WeightedDirectedGraph;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BidirectionalAStarSolverTest {
+    private static final int VERTICES = 5000;
+
+    private static WeightedDirectedGraph lectureGraph() {
+        WeightedDirectedGraph wdg = new WeightedDirectedGraph(7);
+        wdg.addEdge(0, 1, 2);
+        wdg.addEdge(0, 2, 1);
+        wdg.addEdge(1, 2, 5);
+        wdg.addEdge(1, 3, 11);
+        wdg.addEdge(1, 4, 3);
+        wdg.addEdge(2, 5, 15);
+        wdg.addEdge(3, 4, 2);
+        wdg.addEdge(4, 2, 1);
+        wdg.addEdge(4, 5, 4);
+        wdg.addEdge(4, 6, 5);
+        wdg.addEdge(6, 3, 1);
+        wdg.addEdge(6, 5, 1);
+        return wdg;
+    }
+
+    /** Returns the weight of the path, failing if some step of it isn't an edge. */
+    private static double pathWeight(WeightedDirectedGraph graph, List<Integer> path) {
+        double weight = 0;
+        for (int i = 0; i + 1 < path.size(); i++) {
+            double step = Double.POSITIVE_INFINITY;
+            for (WeightedEdge<Integer> e : graph.neighbors(path.get(i))) {
+                if (e.to().equals(path.get(i + 1))) {
+                    step = Math.min(step, e.weight());
+                }
+            }
+            assertTrue("no edge " + path.get(i) + " -> " + path.get(i + 1),
+                    step < Double.POSITIVE_INFINITY);
+            weight += step;
+        }
+        return weight;
+    }
+
+    @Test
+    public void testLectureGraph() {
+        WeightedDirectedGraph wdg = lectureGraph();
+        ShortestPathsSolver<Integer> solver = new BidirectionalAStarSolver<>(wdg, 0, 6, 10);
+        assertEquals(SolverOutcome.SOLVED, solver.outcome());
+        assertEquals(List.of(0, 1, 4, 6), solver.solution());
+        assertEquals(10, solver.solutionWeight(), 1e-9);
+
+        solver = new BidirectionalAStarSolver<>(wdg, 0, 5, 10);
+        assertEquals(List.of(0, 1, 4, 5), solver.solution());
+
+        solver = new BidirectionalAStarSolver<>(wdg, 0, 0, 10);
+        assertEquals(List.of(0), solver.solution());
+        assertEquals(0, solver.solutionWeight(), 0);
+
+        solver = new BidirectionalAStarSolver<>(wdg, 6, 0, 10);
+        assertEquals(SolverOutcome.UNSOLVABLE, solver.outcome());
+        assertTrue(solver.solution().isEmpty());
+    }
+
+    @Test
+    public void testMatchesAStarSolver() {
+        Random r = new Random(373);
+        WeightedDirectedGraph graph = new WeightedDirectedGraph(VERTICES);
+        for (int i = 0; i < VERTICES * 3; i++) {
+            graph.addEdge(r.nextInt(VERTICES), r.nextInt(VERTICES), 1 + r.nextInt(100));
+        }
+        for (int i = 0; i < 200; i++) {
+            int start = r.nextInt(VERTICES);
+            int end = r.nextInt(VERTICES);
+            ShortestPathsSolver<Integer> expected = new AStarSolver<>(graph, start, end, 10);
+            ShortestPathsSolver<Integer> actual =
+                    new BidirectionalAStarSolver<>(graph, start, end, 10);
+            assertEquals(expected.outcome(), actual.outcome());
+            if (expected.outcome() == SolverOutcome.SOLVED) {
+                assertEquals(expected.solutionWeight(), actual.solutionWeight(), 1e-9);
+                assertEquals(actual.solutionWeight(), pathWeight(graph, actual.solution()), 1e-9);
+                assertEquals(start, (int) actual.solution().get(0));
+                assertEquals(end, (int) actual.solution().get(actual.solution().size() - 1));
+            }
+        }
+    }
+
+    @Test
+    public void testVisitorsOnly() {
+        WeightedDirectedGraph wdg = lectureGraph();
+        // Only the visitor methods work, so the solver can't fall back on edge lists.
+        ReversibleAStarGraph<Integer> visitOnly = new ReversibleAStarGraph<>() {
+            @Override
+            public List<WeightedEdge<Integer>> neighbors(Integer v) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public List<WeightedEdge<Integer>> reverseNeighbors(Integer v) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void forEachNeighbor(Integer v, EdgeVisitor<Integer> visitor) {
+                wdg.forEachNeighbor(v, visitor);
+            }
+
+            @Override
+            public void forEachReverseNeighbor(Integer v, EdgeVisitor<Integer> visitor) {
+                wdg.forEachReverseNeighbor(v, visitor);
+            }
+
+            @Override
+            public double estimatedDistanceToGoal(Integer s, Integer goal) {
+                return wdg.estimatedDistanceToGoal(s, goal);
+            }
+
+            @Override
+            public double estimatedDistanceFromStart(Integer start, Integer v) {
+                return wdg.estimatedDistanceFromStart(start, v);
+            }
+        };
+        for (int s = 0; s < 7; s++) {
+            for (int t = 0; t < 7; t++) {
+                ShortestPathsSolver<Integer> expected =
+                        new BidirectionalAStarSolver<>(wdg, s, t, 10);
+                ShortestPathsSolver<Integer> actual =
+                        new BidirectionalAStarSolver<>(visitOnly, s, t, 10);
+                assertEquals(s + " -> " + t, expected.solution(), actual.solution());
+            }
+        }
+    }
+}
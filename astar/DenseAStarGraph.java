@@ -0,0 +1,16 @@
+package astar;
+
+/**
+ * An AStarGraph whose vertices can be numbered with dense int ids 0 through
+ * numVertices() - 1. Solvers use the ids to index into arrays instead of hashing vertices.
+ */
+public interface DenseAStarGraph<Vertex> extends AStarGraph<Vertex> {
+    /** Returns the number of vertices, which is one more than the largest id. */
+    int numVertices();
+
+    /** Returns the id of the given vertex. Assumes v exists in this graph. */
+    int id(Vertex v);
+
+    /** Returns the vertex with the given id. */
+    Vertex vertex(int id);
+}
@@ -0,0 +1,54 @@
+package astar;
+
+import heap.ExtrinsicMinPQ;
+import heap.IntMinPQ;
+import heap.SiftCounting;
+
+/**
+ * Adapts an IntMinPQ to the ExtrinsicMinPQ interface by translating vertices to and
+ * from the dense ids of a DenseAStarGraph.
+ */
+public class DenseMinPQ<Vertex> implements ExtrinsicMinPQ<Vertex>, SiftCounting {
+    private final DenseAStarGraph<Vertex> graph;
+    private final IntMinPQ pq;
+
+    public DenseMinPQ(DenseAStarGraph<Vertex> graph) {
+        this.graph = graph;
+        this.pq = new IntMinPQ(graph.numVertices());
+    }
+
+    @Override
+    public void add(Vertex item, double priority) {
+        pq.add(graph.id(item), priority);
+    }
+
+    @Override
+    public boolean contains(Vertex item) {
+        return pq.contains(graph.id(item));
+    }
+
+    @Override
+    public Vertex getSmallest() {
+        return graph.vertex(pq.getSmallest());
+    }
+
+    @Override
+    public Vertex removeSmallest() {
+        return graph.vertex(pq.removeSmallest());
+    }
+
+    @Override
+    public void changePriority(Vertex item, double priority) {
+        pq.changePriority(graph.id(item), priority);
+    }
+
+    @Override
+    public int size() {
+        return pq.size();
+    }
+
+    @Override
+    public long siftSteps() {
+        return pq.siftSteps();
+    }
+}
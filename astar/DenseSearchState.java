@@ -0,0 +1,42 @@
+package astar;
+
+import java.util.Arrays;
+
+/**
+ * SearchState for a DenseAStarGraph, kept in a double[] of distances and an int[] of
+ * previous vertex ids indexed by vertex id. Nothing is hashed or boxed, but both arrays
+ * span the whole graph however few vertices the search reaches.
+ */
+public class DenseSearchState<Vertex> implements SearchState<Vertex> {
+    private static final int NONE = -1;
+
+    private final DenseAStarGraph<Vertex> graph;
+    private final double[] distances;
+    private final int[] previous;
+
+    public DenseSearchState(DenseAStarGraph<Vertex> graph) {
+        this.graph = graph;
+        distances = new double[graph.numVertices()];
+        previous = new int[graph.numVertices()];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        Arrays.fill(previous, NONE);
+    }
+
+    @Override
+    public double distTo(Vertex v) {
+        return distances[graph.id(v)];
+    }
+
+    @Override
+    public Vertex edgeTo(Vertex v) {
+        int from = previous[graph.id(v)];
+        return from == NONE ? null : graph.vertex(from);
+    }
+
+    @Override
+    public void update(Vertex v, double distance, Vertex from) {
+        int id = graph.id(v);
+        distances[id] = distance;
+        previous[id] = from == null ? NONE : graph.id(from);
+    }
+}
@@ -0,0 +1,11 @@
+package astar;
+
+/**
+ * Receives the outgoing edges of a vertex one at a time from AStarGraph.forEachNeighbor,
+ * as (target vertex, weight) pairs instead of WeightedEdge objects.
+ */
+@FunctionalInterface
+public interface EdgeVisitor<Vertex> {
+    /** Called once for each outgoing edge, which goes to the vertex to. */
+    void visit(Vertex to, double weight);
+}
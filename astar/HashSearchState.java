@@ -0,0 +1,101 @@
+package astar;
+
+/**
+ * SearchState for any vertex type. Distances are kept in a double[] parallel to an
+ * open-addressing hash table of vertices with linear probing, so relaxing an edge hashes
+ * the vertex once and boxes nothing. Vertices are never removed.
+ */
+public class HashSearchState<Vertex> implements SearchState<Vertex> {
+    private static final int INITIAL_CAPACITY = 16;
+
+    /* Load factor is kept at or below 1/2. */
+    private Object[] keys;
+    private double[] distances;
+    private Object[] previous;
+    private int mask;
+    private int size;
+
+    public HashSearchState() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /** Creates an empty state that can hold capacity vertices before it needs to resize. */
+    public HashSearchState(int capacity) {
+        if (capacity < 1) {
+            capacity = 1;
+        }
+        allocate(Integer.highestOneBit(capacity * 2 - 1) << 1);
+    }
+
+    @Override
+    public double distTo(Vertex v) {
+        int pos = probe(v);
+        return keys[pos] == null ? Double.POSITIVE_INFINITY : distances[pos];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Vertex edgeTo(Vertex v) {
+        return (Vertex) previous[probe(v)];
+    }
+
+    @Override
+    public void update(Vertex v, double distance, Vertex from) {
+        int pos = probe(v);
+        if (keys[pos] == null) {
+            if ((size + 1) * 2 > keys.length) {
+                resize(keys.length * 2);
+                pos = probe(v);
+            }
+            keys[pos] = v;
+            size++;
+        }
+        distances[pos] = distance;
+        previous[pos] = from;
+    }
+
+    /** Returns the number of vertices reached. */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the table position holding v, or the empty position where it would be
+     * inserted if it is not present.
+     */
+    private int probe(Object v) {
+        int pos = hash(v) & mask;
+        while (keys[pos] != null && !keys[pos].equals(v)) {
+            pos = (pos + 1) & mask;
+        }
+        return pos;
+    }
+
+    /** Spreads the high bits of the hash code so that sequential keys don't cluster. */
+    private static int hash(Object v) {
+        int h = v.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private void allocate(int tableSize) {
+        keys = new Object[tableSize];
+        distances = new double[tableSize];
+        previous = new Object[tableSize];
+        mask = tableSize - 1;
+    }
+
+    private void resize(int tableSize) {
+        Object[] oldKeys = keys;
+        double[] oldDistances = distances;
+        Object[] oldPrevious = previous;
+        allocate(tableSize);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int pos = probe(oldKeys[i]);
+                keys[pos] = oldKeys[i];
+                distances[pos] = oldDistances[i];
+                previous[pos] = oldPrevious[i];
+            }
+        }
+    }
+}
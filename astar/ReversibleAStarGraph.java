@@ -0,0 +1,36 @@
+package astar;
+
+import java.util.List;
+
+/**
+ * An AStarGraph that can also be searched backwards, from the goal towards the start,
+ * as bidirectional solvers do.
+ */
+public interface ReversibleAStarGraph<Vertex> extends AStarGraph<Vertex> {
+    /**
+     * Returns the edges that end at the given vertex, each reversed so that from() is v
+     * and to() is the vertex the edge leaves.
+     */
+    List<WeightedEdge<Vertex>> reverseNeighbors(Vertex v);
+
+    /**
+     * Calls visitor.visit once for each edge that ends at the given vertex, passing the
+     * vertex the edge leaves. Like forEachNeighbor, this is what bidirectional solvers call
+     * in their inner loop, so graphs should override it to avoid building a list.
+     */
+    default void forEachReverseNeighbor(Vertex v, EdgeVisitor<Vertex> visitor) {
+        for (WeightedEdge<Vertex> e : reverseNeighbors(v)) {
+            visitor.visit(e.to(), e.weight());
+        }
+    }
+
+    /**
+     * Returns an estimated distance from the start vertex to vertex v, the heuristic of a
+     * search that runs backwards towards the start. By default this is
+     * estimatedDistanceToGoal(v, start), which is right whenever the heuristic doesn't
+     * depend on direction (as with straight-line distances).
+     */
+    default double estimatedDistanceFromStart(Vertex start, Vertex v) {
+        return estimatedDistanceToGoal(v, start);
+    }
+}
@@ -0,0 +1,20 @@
+package astar;
+
+/**
+ * The best known distance to, and previous vertex on the best known path to, every vertex
+ * a shortest paths search has reached. Vertices that haven't been reached have distance
+ * Double.POSITIVE_INFINITY and no previous vertex.
+ */
+public interface SearchState<Vertex> {
+    /** Returns the best known distance from the start to v. */
+    double distTo(Vertex v);
+
+    /** Returns the vertex before v on the best known path, or null if there isn't one. */
+    Vertex edgeTo(Vertex v);
+
+    /**
+     * Records that the best known path to v has the given distance and reaches v from
+     * the vertex from, which is null for the start.
+     */
+    void update(Vertex v, double distance, Vertex from);
+}
@@ -0,0 +1,74 @@
+package astar;
+
+import astar.example.WeightedDirectedGraph;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class SearchStateTest {
+    private static final int VERTICES = 5000;
+
+    @Test
+    public void testUnreached() {
+        SearchState<Integer> hash = new HashSearchState<>();
+        SearchState<Integer> dense = new DenseSearchState<>(new WeightedDirectedGraph(10));
+        for (SearchState<Integer> state : List.of(hash, dense)) {
+            assertEquals(Double.POSITIVE_INFINITY, state.distTo(3), 0);
+            assertNull(state.edgeTo(3));
+            state.update(3, 1.5, null);
+            assertEquals(1.5, state.distTo(3), 0);
+            assertNull(state.edgeTo(3));
+        }
+    }
+
+    @Test
+    public void testRandomUpdates() {
+        Random r = new Random(373);
+        SearchState<Integer> hash = new HashSearchState<>();
+        SearchState<Integer> dense = new DenseSearchState<>(new WeightedDirectedGraph(VERTICES));
+        Map<Integer, Double> distTo = new HashMap<>();
+        Map<Integer, Integer> edgeTo = new HashMap<>();
+        for (int i = 0; i < 20000; i++) {
+            int v = r.nextInt(VERTICES);
+            int from = r.nextInt(VERTICES);
+            double distance = r.nextDouble();
+            hash.update(v, distance, from);
+            dense.update(v, distance, from);
+            distTo.put(v, distance);
+            edgeTo.put(v, from);
+        }
+        for (int v = 0; v < VERTICES; v++) {
+            double expected = distTo.getOrDefault(v, Double.POSITIVE_INFINITY);
+            assertEquals(expected, hash.distTo(v), 0);
+            assertEquals(expected, dense.distTo(v), 0);
+            assertEquals(edgeTo.get(v), hash.edgeTo(v));
+            assertEquals(edgeTo.get(v), dense.edgeTo(v));
+        }
+        assertEquals(distTo.size(), ((HashSearchState<Integer>) hash).size());
+    }
+
+    @Test
+    public void testSolversAgree() {
+        Random r = new Random(373);
+        WeightedDirectedGraph graph = new WeightedDirectedGraph(VERTICES);
+        for (int i = 0; i < VERTICES * 4; i++) {
+            graph.addEdge(r.nextInt(VERTICES), r.nextInt(VERTICES), r.nextInt(100));
+        }
+        for (int i = 0; i < 20; i++) {
+            int start = r.nextInt(VERTICES);
+            int end = r.nextInt(VERTICES);
+            AStarSolver<Integer> dense = new AStarSolver<>(graph, start, end, 10);
+            AStarSolver<Integer> hash = new AStarSolver<>(graph, start, end, 10,
+                    new TreeMapMinPQ<>(), new HashSearchState<>());
+            assertEquals(dense.outcome(), hash.outcome());
+            assertEquals(dense.solutionWeight(), hash.solutionWeight(), 1e-9);
+            assertEquals(dense.solution(), hash.solution());
+        }
+    }
+}
@@ -1,13 +1,15 @@
 package astar.example;
 
-import astar.AStarGraph;
+import astar.DenseAStarGraph;
+import astar.ReversibleAStarGraph;
 import astar.WeightedEdge;
 
 import java.util.ArrayList;
 import java.util.List;
 
 /** A very simple (and literal) example of an AStarGraph. */
-public class WeightedDirectedGraph implements AStarGraph<Integer> {
+public class WeightedDirectedGraph implements DenseAStarGraph<Integer>,
+        ReversibleAStarGraph<Integer> {
     /** Represents the list of edges from a single vertex. */
     private static class EdgeList {
         private List<WeightedEdge<Integer>> list;
@@ -17,11 +19,15 @@ public class WeightedDirectedGraph implements AStarGraph<Integer> {
     }
 
     private EdgeList[] adj;
+    /* Reversed edges into each vertex. */
+    private EdgeList[] radj;
 
     public WeightedDirectedGraph(int V) {
         adj = new EdgeList[V];
+        radj = new EdgeList[V];
         for (int i = 0; i < V; i += 1) {
             adj[i] = new EdgeList();
+            radj[i] = new EdgeList();
         }
     }
 
@@ -46,8 +52,41 @@ public class WeightedDirectedGraph implements AStarGraph<Integer> {
         return estimate;
     }
 
+    @Override
+    public List<WeightedEdge<Integer>> reverseNeighbors(Integer v) {
+        return radj[v].list;
+    }
+
+    /** The same crude heuristic backwards: the weight of the smallest edge into vertex v. */
+    @Override
+    public double estimatedDistanceFromStart(Integer start, Integer v) {
+        double estimate = Double.POSITIVE_INFINITY;
+        for (WeightedEdge<Integer> e : reverseNeighbors(v)) {
+            if (e.weight() < estimate) {
+                estimate = e.weight();
+            }
+        }
+        return estimate;
+    }
+
+    @Override
+    public int numVertices() {
+        return adj.length;
+    }
+
+    @Override
+    public int id(Integer v) {
+        return v;
+    }
+
+    @Override
+    public Integer vertex(int id) {
+        return id;
+    }
+
     public void addEdge(int p, int q, double w) {
         WeightedEdge<Integer> e = new WeightedEdge<>(p, q, w);
         adj[p].list.add(e);
+        radj[q].list.add(new WeightedEdge<>(q, p, w));
     }
 }
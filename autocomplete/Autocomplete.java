@@ -1,5 +1,7 @@
 package autocomplete;
 
+import java.util.Arrays;
+
 public interface Autocomplete {
 
     /**
@@ -7,4 +9,17 @@ public interface Autocomplete {
      * @throws IllegalArgumentException if prefix is null
      */
     Term[] allMatches(String prefix);
+
+    /**
+     * Returns the k terms with the largest weights that start with the given prefix, in
+     * descending order of weight, or all matching terms if there are fewer than k.
+     * @throws IllegalArgumentException if prefix is null or k is less than 1
+     */
+    default Term[] topMatches(String prefix, int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException();
+        }
+        Term[] all = allMatches(prefix);
+        return Arrays.copyOf(all, Math.min(k, all.length));
+    }
 }
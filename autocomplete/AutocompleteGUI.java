@@ -528,10 +528,10 @@ public class AutocompleteGUI extends JFrame {
             else {
                 int textLen = text.length();
 
-                // get all matching terms
-                Term[] allResults = auto.allMatches(text);
+                // get the top k matching terms
+                Term[] allResults = auto.topMatches(text, k);
                 if (allResults == null) {
-                    throw new NullPointerException("allMatches() is null");
+                    throw new NullPointerException("topMatches() is null");
                 }
 
                 results = new String[Math.min(k, allResults.length)];
@@ -539,7 +539,7 @@ public class AutocompleteGUI extends JFrame {
                     for (int i = 0; i < results.length; i++) {
 
                         if (allResults[i] == null) {
-                            throw new NullPointerException("allMatches() "
+                            throw new NullPointerException("topMatches() "
                                     + "returned an array with a null entry");
                         }
 
@@ -1,5 +1,7 @@
 package autocomplete;
 
+import heap.TopKSelector;
+
 import java.util.Arrays;
 
 public class BinaryRangeSearch implements Autocomplete {
@@ -62,8 +64,8 @@ public class BinaryRangeSearch implements Autocomplete {
 
         // reference from https://www.geeksforgeeks.org/find-first-and-last-positions-of-an-element-in-a-sorted-array/
 
-        int leftMost = leftMostIndex(prefixTerm, 0, terms.length);
-        int rightMost = rightMostIndex(prefixTerm, leftMost, terms.length);
+        int leftMost = leftMostIndex(prefixTerm, 0, terms.length - 1);
+        int rightMost = rightMostIndex(prefixTerm, leftMost, terms.length - 1);
 
         if (leftMost == -1 || rightMost == -1) {
             return new Term[0];
@@ -78,12 +80,37 @@ public class BinaryRangeSearch implements Autocomplete {
 
     }
 
+    /**
+     * Returns the k terms with the largest weights that start with the given prefix, in
+     * descending order of weight. Only the k best matches are ever ordered, so this is much
+     * faster than allMatches for short prefixes that match many terms.
+     * @throws IllegalArgumentException if prefix is null or k is less than 1
+     */
+    @Override
+    public Term[] topMatches(String prefix, int k) {
+        if (prefix == null) {
+            throw new IllegalArgumentException();
+        }
+
+        Term prefixTerm = new Term(prefix, 0);
+        int leftMost = leftMostIndex(prefixTerm, 0, terms.length - 1);
+        int rightMost = rightMostIndex(prefixTerm, leftMost, terms.length - 1);
+
+        TopKSelector<Term> top = TopKSelector.largest(k);
+        if (leftMost != -1 && rightMost != -1) {
+            for (int i = leftMost; i <= rightMost; i++) {
+                top.offer(terms[i], terms[i].weight());
+            }
+        }
+        return top.results().toArray(new Term[0]);
+    }
+
     private int leftMostIndex(Term prefixTerm, int left, int right) {
         while (left <= right) {
             int mid = (left + right) / 2;
             int length = prefixTerm.query().length();
-            if ((mid == 0 || compare(terms[mid-1], prefixTerm, length) < 0 &&
-                compare(terms[mid], prefixTerm, length) == 0)) {
+            if ((mid == 0 || compare(terms[mid-1], prefixTerm, length) < 0) &&
+                compare(terms[mid], prefixTerm, length) == 0) {
                 return mid;
             } else if (compare(terms[mid], prefixTerm, length) < 0) {
                 left = mid + 1;
@@ -95,6 +122,9 @@ public class BinaryRangeSearch implements Autocomplete {
     }
 
     private int rightMostIndex(Term prefixTerm, int left, int right) {
+        if (left == -1) {
+            return -1;
+        }
         while (left <= right) {
             int mid = (left + right) / 2;
             int length = prefixTerm.query().length();
@@ -84,4 +84,14 @@ public class BinaryRangeSearchTest {
 
         }
     }
+
+    @Test
+    public void testTopMatches() {
+        for (String prefix : new String[]{"S", "Sa", "San", "New", "zzz"}) {
+            for (int k : new int[]{1, 7, 50}) {
+                Term[] expected = linearAuto.topMatches(prefix, k);
+                assertTermsEqual(expected, binaryAuto.topMatches(prefix, k));
+            }
+        }
+    }
 }
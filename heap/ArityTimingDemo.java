@@ -0,0 +1,163 @@
+package heap;
+
+import edu.princeton.cs.algs4.Stopwatch;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Times ArrayHeapMinPQ with arity 2, 4 and 8 on shortest paths searches shaped like the
+ * two workloads that use it the most:
+ * <ul>
+ *     <li>seam carving: a W x H pixel DAG where every pixel points at the three pixels
+ *     below it, searched with Dijkstra (AStarSeamCarver's heuristic is 0).</li>
+ *     <li>road routing: an N x N grid with jittered edge weights in both directions,
+ *     searched corner to corner with an admissible Manhattan-distance heuristic.</li>
+ * </ul>
+ * Graphs are stored as plain arrays so that the timings are dominated by the queue.
+ */
+public class ArityTimingDemo {
+    private static final int[] ARITIES = {2, 4, 8};
+    private static final int TRIALS = 5;
+
+    public static void main(String[] args) {
+        Random r = new Random(373);
+        Graph seams = seamGraph(1000, 1000, r);
+        Graph roads = roadGraph(1000, r);
+
+        // Warm up the JIT on a throwaway run of each arity.
+        for (int arity : ARITIES) {
+            search(seams, new ArrayHeapMinPQ<>(arity));
+            search(roads, new ArrayHeapMinPQ<>(arity));
+        }
+        for (int arity : ARITIES) {
+            System.out.printf("arity %d: seam carving %.3fs, road routing %.3fs%n", arity,
+                    time(seams, arity), time(roads, arity));
+        }
+    }
+
+    /** Returns the best time in seconds over TRIALS searches of g with the given arity. */
+    private static double time(Graph g, int arity) {
+        double best = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < TRIALS; i++) {
+            Stopwatch sw = new Stopwatch();
+            search(g, new ArrayHeapMinPQ<>(arity));
+            best = Math.min(best, sw.elapsedTime());
+        }
+        return best;
+    }
+
+    /** Runs A* from g.source to g.goal, returning the length of the shortest path. */
+    private static double search(Graph g, ExtrinsicMinPQ<Integer> pq) {
+        double[] distTo = new double[g.offsets.length - 1];
+        Arrays.fill(distTo, Double.POSITIVE_INFINITY);
+        distTo[g.source] = 0;
+        pq.add(g.source, g.heuristic[g.source]);
+        while (!pq.isEmpty()) {
+            int v = pq.removeSmallest();
+            if (v == g.goal) {
+                break;
+            }
+            for (int e = g.offsets[v]; e < g.offsets[v + 1]; e++) {
+                int w = g.targets[e];
+                double d = distTo[v] + g.weights[e];
+                if (d < distTo[w]) {
+                    distTo[w] = d;
+                    if (pq.contains(w)) {
+                        pq.changePriority(w, d + g.heuristic[w]);
+                    } else {
+                        pq.add(w, d + g.heuristic[w]);
+                    }
+                }
+            }
+        }
+        return distTo[g.goal];
+    }
+
+    /** Compressed adjacency lists plus a precomputed heuristic to the goal. */
+    private static class Graph {
+        int[] offsets;
+        int[] targets;
+        double[] weights;
+        double[] heuristic;
+        int source;
+        int goal;
+    }
+
+    /**
+     * Builds the vertical seam DAG for a width x height picture with random energies.
+     * Vertex 0 is a virtual source above the top row and the last vertex is a virtual sink.
+     */
+    private static Graph seamGraph(int width, int height, Random r) {
+        int pixels = width * height;
+        Graph g = new Graph();
+        g.offsets = new int[pixels + 3];
+        g.targets = new int[width + pixels * 3];
+        g.weights = new double[g.targets.length];
+        g.heuristic = new double[pixels + 2];
+        g.source = 0;
+        g.goal = pixels + 1;
+
+        double[] energy = new double[pixels];
+        for (int i = 0; i < pixels; i++) {
+            energy[i] = r.nextDouble() * 1000;
+        }
+        int e = 0;
+        for (int x = 0; x < width; x++) {
+            g.targets[e] = 1 + x;
+            g.weights[e] = energy[x];
+            e++;
+        }
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int v = 1 + y * width + x;
+                g.offsets[v] = e;
+                if (y == height - 1) {
+                    g.targets[e] = g.goal;
+                    e++;
+                    continue;
+                }
+                for (int dx = -1; dx <= 1; dx++) {
+                    if (x + dx >= 0 && x + dx < width) {
+                        int w = y * width + width + x + dx;
+                        g.targets[e] = 1 + w;
+                        g.weights[e] = energy[w];
+                        e++;
+                    }
+                }
+            }
+        }
+        g.offsets[pixels + 1] = e;
+        g.offsets[pixels + 2] = e;
+        return g;
+    }
+
+    /** Builds an n x n street grid with weights between 1 and 2 in both directions. */
+    private static Graph roadGraph(int n, Random r) {
+        int[][] deltas = {{0, 1}, {1, 0}, {0, -1}, {-1, 0}};
+        Graph g = new Graph();
+        g.offsets = new int[n * n + 1];
+        g.targets = new int[n * n * 4];
+        g.weights = new double[g.targets.length];
+        g.heuristic = new double[n * n];
+        g.source = 0;
+        g.goal = n * n - 1;
+        int e = 0;
+        for (int row = 0; row < n; row++) {
+            for (int col = 0; col < n; col++) {
+                int v = row * n + col;
+                g.offsets[v] = e;
+                g.heuristic[v] = (n - 1 - row) + (n - 1 - col);
+                for (int[] d : deltas) {
+                    if (row + d[0] >= 0 && row + d[0] < n && col + d[1] >= 0 && col + d[1] < n) {
+                        g.targets[e] = (row + d[0]) * n + col + d[1];
+                        g.weights[e] = 1 + r.nextDouble();
+                        e++;
+                    }
+                }
+            }
+        }
+        g.offsets[n * n] = e;
+        return g;
+    }
+}
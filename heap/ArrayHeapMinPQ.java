@@ -1,21 +1,56 @@
 package heap;
 
 import java.util.ArrayList;
-import java.util.List;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.NoSuchElementException;
 
 
-public class ArrayHeapMinPQ<T> implements ExtrinsicMinPQ<T> {
+/**
+ * Array heap starting at index 1 whose nodes each have up to arity children. The children
+ * of index i are arity * (i - 1) + 2 through arity * i + 1, which is 2i and 2i + 1 for the
+ * default binary heap. A wider heap is shallower, so swim (used by add and by decreasing a
+ * priority) does fewer swaps, while sink compares more children per level.
+ *
+ * In recycling mode, nodes that leave the heap go on a free list and are reused by later
+ * adds, so a queue that is cleared and refilled (say, once per search) stops allocating
+ * nodes once the free list has grown to its largest size. poolHits and poolMisses count
+ * the adds that reused a node and the adds that allocated one.
+ */
+public class ArrayHeapMinPQ<T> implements ExtrinsicMinPQ<T>, SiftCounting {
 
-    private List<PriorityNode> priorityHeap;
-    private PriorityNode[] test;
+    private ArrayList<PriorityNode> priorityHeap;
     private Map<T, Integer> indexMap;
+    private final int arity;
+    /* Removed nodes waiting to be reused; null unless in recycling mode. */
+    private final ArrayList<PriorityNode> freeNodes;
+    private long poolHits;
+    private long poolMisses;
+    private long siftSteps;
 
-    @SuppressWarnings("unchecked")
     public ArrayHeapMinPQ() {
-        test = (PriorityNode[]) new Object[8];
+        this(2);
+    }
+
+    /**
+     * Creates an empty heap where each node has up to arity children.
+     * @throws IllegalArgumentException if arity is less than 2
+     */
+    public ArrayHeapMinPQ(int arity) {
+        this(arity, false);
+    }
+
+    /**
+     * Creates an empty heap where each node has up to arity children, which reuses removed
+     * nodes if recycle is true.
+     * @throws IllegalArgumentException if arity is less than 2
+     */
+    public ArrayHeapMinPQ(int arity, boolean recycle) {
+        if (arity < 2) {
+            throw new IllegalArgumentException("Arity must be at least 2: " + arity);
+        }
+        this.arity = arity;
+        freeNodes = recycle ? new ArrayList<>() : null;
         priorityHeap = new ArrayList<>();
         indexMap = new HashMap<>();
         // empty at index 0
@@ -23,6 +58,15 @@ public class ArrayHeapMinPQ<T> implements ExtrinsicMinPQ<T> {
 
     }
 
+    /**
+     * Creates a binary heap holding every item in the map with its mapped priority.
+     * Runs in O(N) time.
+     */
+    public ArrayHeapMinPQ(Map<T, Double> items) {
+        this();
+        addAll(items);
+    }
+
     /**
      * Adds an item with the given priority value.
      * Assumes that item is never null.
@@ -34,13 +78,45 @@ public class ArrayHeapMinPQ<T> implements ExtrinsicMinPQ<T> {
         if (this.contains(item)) {
             throw new IllegalArgumentException();
         }
-        PriorityNode newNode = new PriorityNode(item, priority);
-        priorityHeap.add(newNode);
+        priorityHeap.add(newNode(item, priority));
 
         indexMap.put(item, size());
         swim(size());
     }
 
+    /**
+     * Adds every item in the map with its mapped priority.
+     * When at least as many items are added as the PQ already holds, appends them all and
+     * restores the heap property bottom-up (Floyd's method), which runs in O(N) time.
+     * Otherwise adds them one at a time in O(K log N) time.
+     * @throws IllegalArgumentException if any item is already present in the PQ
+     */
+    @Override
+    public void addAll(Map<T, Double> items) {
+        if (items.size() < size()) {
+            ExtrinsicMinPQ.super.addAll(items);
+            return;
+        }
+        for (T item : items.keySet()) {
+            if (contains(item)) {
+                throw new IllegalArgumentException();
+            }
+        }
+        int total = size() + items.size();
+        if (indexMap.isEmpty()) {
+            // Size the map once instead of letting it rehash as it grows.
+            indexMap = new HashMap<>((int) (total / 0.75f) + 1);
+        }
+        priorityHeap.ensureCapacity(total + 1);
+        for (Map.Entry<T, Double> entry : items.entrySet()) {
+            priorityHeap.add(newNode(entry.getKey(), entry.getValue()));
+            indexMap.put(entry.getKey(), size());
+        }
+        for (int i = parent(size()); i >= 1; i--) {
+            sink(i);
+        }
+    }
+
     /**
      * Returns true if the PQ contains the given item; false otherwise.
      * Runs in O(log N) time.
@@ -74,8 +150,10 @@ public class ArrayHeapMinPQ<T> implements ExtrinsicMinPQ<T> {
             throw new NoSuchElementException();
         }
         swap(1, size());
-        T smallest = priorityHeap.remove(size()).getItem();
+        PriorityNode node = priorityHeap.remove(size());
+        T smallest = node.getItem();
         indexMap.remove(smallest);
+        recycle(node);
         sink(1);
         return smallest;
     }
@@ -91,8 +169,9 @@ public class ArrayHeapMinPQ<T> implements ExtrinsicMinPQ<T> {
             throw new NoSuchElementException();
         }
         int index = indexMap.get(item);
-        priorityHeap.get(index).priority = priority;
-        if (priority < priorityHeap.get(index / 2).getPriority()) {
+        double old = priorityHeap.get(index).getPriority();
+        priorityHeap.get(index).setPriority(priority);
+        if (priority < old) {
             swim(index);
         } else {
             sink(index);
@@ -109,22 +188,85 @@ public class ArrayHeapMinPQ<T> implements ExtrinsicMinPQ<T> {
     }
 
 
+    /**
+     * Removes every item. The heap and index keep their capacity, and in recycling mode
+     * every node goes back on the free list.
+     * Runs in O(N) time.
+     */
+    @Override
+    public void clear() {
+        for (int i = size(); i >= 1; i--) {
+            recycle(priorityHeap.remove(i));
+        }
+        indexMap.clear();
+    }
+
+    @Override
+    public long siftSteps() {
+        return siftSteps;
+    }
+
+    /** Returns the number of adds that reused a recycled node. */
+    public long poolHits() {
+        return poolHits;
+    }
+
+    /** Returns the number of adds that allocated a new node. */
+    public long poolMisses() {
+        return poolMisses;
+    }
+
+    /** Returns a node holding item and priority, taken from the free list if possible. */
+    private PriorityNode newNode(T item, double priority) {
+        if (freeNodes == null || freeNodes.isEmpty()) {
+            poolMisses++;
+            return new PriorityNode(item, priority);
+        }
+        poolHits++;
+        PriorityNode node = freeNodes.remove(freeNodes.size() - 1);
+        node.setItem(item);
+        node.setPriority(priority);
+        return node;
+    }
+
+    /** Puts a node that has left the heap on the free list when in recycling mode. */
+    private void recycle(PriorityNode node) {
+        if (freeNodes != null) {
+            node.setItem(null); // don't keep the item reachable
+            freeNodes.add(node);
+        }
+    }
+
+    private int parent(int index) {
+        return (index - 2) / arity + 1;
+    }
+
+    private int firstChild(int index) {
+        return arity * (index - 1) + 2;
+    }
+
     private void swim(int index) {
-        while (index > 1 && smaller(index, index / 2)) {
-            swap(index, index / 2);
-            index /= 2;
+        while (index > 1 && smaller(index, parent(index))) {
+            swap(index, parent(index));
+            index = parent(index);
+            siftSteps++;
         }
     }
 
     private void sink(int index) {
-        while (index * 2 <= size()) {
-            int child = index * 2;
-            if (child < size() && smaller(child + 1, child)) { // have both child node
-                child++;
+        while (firstChild(index) <= size()) {
+            int first = firstChild(index);
+            int last = Math.min(first + arity - 1, size());
+            int child = first;
+            for (int i = first + 1; i <= last; i++) { // find the smallest child
+                if (smaller(i, child)) {
+                    child = i;
+                }
             }
             if (smaller(child, index)) {
                 swap(child, index);
                 index = child;
+                siftSteps++;
             } else {
                 break;
             }
@@ -161,6 +303,10 @@ public class ArrayHeapMinPQ<T> implements ExtrinsicMinPQ<T> {
             return item;
         }
 
+        void setItem(T item) {
+            this.item = item;
+        }
+
         double getPriority() {
             return priority;
         }
@@ -6,10 +6,13 @@ import java.util.Random;
 import java.util.List;
 import java.util.Set;
 import java.util.HashSet;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.ArrayList;
 import java.util.NoSuchElementException;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 
 public class ArrayHeapMinPQTest {
     /* Be sure to write randomized tests that can handle millions of items. To
@@ -133,6 +136,97 @@ public class ArrayHeapMinPQTest {
         }
     }
 
+    @Test
+    public void testArity() {
+        int seed = 373;
+        int num = 5000;
+        for (int arity : new int[]{2, 3, 4, 8}) {
+            Random r = new Random(seed);
+            ArrayHeapMinPQ<Integer> testing = new ArrayHeapMinPQ<>(arity);
+            NaiveMinPQ<Integer> expected = new NaiveMinPQ<>();
+            for (int i = 0; i < num; i++) {
+                double priority = r.nextDouble();
+                testing.add(i, priority);
+                expected.add(i, priority);
+            }
+            for (int i = 0; i < num; i += 3) {
+                double priority = r.nextDouble();
+                testing.changePriority(i, priority);
+                expected.changePriority(i, priority);
+            }
+            for (int i = 0; i < num; i++) {
+                int actual = testing.removeSmallest();
+                int expect = expected.removeSmallest();
+                assertEquals("Arity " + arity + " fail on iteration " + i, expect, actual);
+            }
+        }
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void testArityTooSmall() {
+        new ArrayHeapMinPQ<Integer>(1);
+    }
+
+    @Test
+    public void testAddAll() {
+        Random r = new Random(373);
+        int num = 5000;
+        Map<Integer, Double> items = new HashMap<>();
+        NaiveMinPQ<Integer> expected = new NaiveMinPQ<>();
+        for (int i = 0; i < num; i++) {
+            double priority = r.nextDouble();
+            items.put(i, priority);
+            expected.add(i, priority);
+        }
+        ArrayHeapMinPQ<Integer> testing = new ArrayHeapMinPQ<>(items);
+        assertEquals(num, testing.size());
+
+        // A small batch into a large heap goes through add instead of heapify.
+        Map<Integer, Double> more = new HashMap<>();
+        for (int i = num; i < num + 10; i++) {
+            double priority = r.nextDouble();
+            more.put(i, priority);
+            expected.add(i, priority);
+        }
+        testing.addAll(more);
+        for (int i = 0; i < num + 10; i++) {
+            int actual = testing.removeSmallest();
+            int expect = expected.removeSmallest();
+            assertEquals("addAll fail on iteration " + i, expect, actual);
+        }
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void testAddAllDuplicate() {
+        ArrayHeapMinPQ<Integer> actual = new ArrayHeapMinPQ<>(4);
+        actual.add(1, 1);
+        actual.addAll(Map.of(1, 2.0, 2, 3.0));
+    }
+
+    @Test
+    public void testRecycling() {
+        Random r = new Random(143);
+        int num = 1000;
+        ArrayHeapMinPQ<Integer> testing = new ArrayHeapMinPQ<>(2, true);
+        for (int round = 0; round < 3; round++) {
+            NaiveMinPQ<Integer> expected = new NaiveMinPQ<>();
+            for (int i = 0; i < num; i++) {
+                double priority = r.nextDouble();
+                testing.add(i, priority);
+                expected.add(i, priority);
+            }
+            for (int i = 0; i < num / 2; i++) {
+                assertEquals(expected.removeSmallest(), testing.removeSmallest());
+            }
+            testing.clear();
+            assertEquals(0, testing.size());
+            assertFalse(testing.contains(num - 1));
+        }
+        // Only the first round allocates; the later rounds reuse its nodes.
+        assertEquals(num, testing.poolMisses());
+        assertEquals(2 * num, testing.poolHits());
+    }
+
     public int f(int n, int m) {
         if (n < 10) {
             return 1;
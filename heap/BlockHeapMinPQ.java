@@ -0,0 +1,329 @@
+package heap;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Binary heap stored in a B-heap layout: the tree is cut into subtrees of three levels
+ * (seven nodes), and each subtree is stored in its own block of eight array slots, which is
+ * 64 bytes of priorities, or one cache line. A sink or swim therefore touches a new block
+ * only every third level instead of at almost every level, as in the index * 2 layout.
+ *
+ * Slot 8b + l holds local node l (1 through 7, in the usual 1-indexed heap order) of block
+ * b, and slot 8b is unused. The eight children of block b's bottom row are the roots of
+ * blocks 8b + 1 through 8b + 8, so the blocks themselves form an 8-ary tree. The heap is
+ * still a complete binary tree, but its slots are not contiguous: a tree whose last row
+ * has just started uses one block per node in that row, so the arrays can be up to a few
+ * times longer than the number of items.
+ *
+ * Items and the item-to-slot index are kept as in PrimitiveHeapMinPQ. Java does not align
+ * arrays to 64 bytes, so a block may straddle two cache lines, but never more.
+ */
+public class BlockHeapMinPQ<T> implements ExtrinsicMinPQ<T>, SiftCounting {
+    private static final int INITIAL_CAPACITY = 64;
+
+    /* The heap, laid out in blocks of 8 slots. Unused slots have a null item. */
+    private double[] priorities;
+    private Object[] items;
+    /* tablePos[s] is the position in keys/slots of the item in heap slot s. */
+    private int[] tablePos;
+    private int size;
+
+    /* Open-addressing index from item to heap slot. Load factor is kept at or below 1/2. */
+    private Object[] keys;
+    private int[] slots;
+    private int mask;
+    private long siftSteps;
+
+    public BlockHeapMinPQ() {
+        priorities = new double[INITIAL_CAPACITY];
+        items = new Object[INITIAL_CAPACITY];
+        tablePos = new int[INITIAL_CAPACITY];
+        keys = new Object[INITIAL_CAPACITY];
+        slots = new int[INITIAL_CAPACITY];
+        mask = INITIAL_CAPACITY - 1;
+    }
+
+    /**
+     * Adds an item with the given priority value.
+     * Assumes that item is never null.
+     * Runs in O(log N) time (except when resizing).
+     * @throws IllegalArgumentException if item is already present in the PQ
+     */
+    @Override
+    public void add(T item, double priority) {
+        if (contains(item)) {
+            throw new IllegalArgumentException("Already contains " + item);
+        }
+        int slot = slotOf(size + 1);
+        if (slot >= items.length) {
+            resizeHeap(Math.max(items.length * 2, slot + 8));
+        }
+        if ((size + 1) * 2 > keys.length) {
+            resizeTable(keys.length * 2);
+        }
+        size++;
+        items[slot] = item;
+        priorities[slot] = priority;
+        int pos = probe(item);
+        keys[pos] = item;
+        slots[pos] = slot;
+        tablePos[slot] = pos;
+        swim(slot);
+    }
+
+    /**
+     * Returns true if the PQ contains the given item; false otherwise.
+     * Runs in O(1) expected time.
+     */
+    @Override
+    public boolean contains(T item) {
+        return keys[probe(item)] != null;
+    }
+
+    /**
+     * Returns the item with the smallest priority.
+     * Runs in O(1) time.
+     * @throws NoSuchElementException if the PQ is empty
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public T getSmallest() {
+        if (size == 0) {
+            throw new NoSuchElementException("PQ is empty");
+        }
+        return (T) items[1];
+    }
+
+    /**
+     * Removes and returns the item with the smallest priority.
+     * Runs in O(log N) time.
+     * @throws NoSuchElementException if the PQ is empty
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public T removeSmallest() {
+        if (size == 0) {
+            throw new NoSuchElementException("PQ is empty");
+        }
+        T smallest = (T) items[1];
+        removeFromTable(tablePos[1]);
+        int last = slotOf(size);
+        size--;
+        if (last == 1) {
+            items[1] = null;
+        } else {
+            move(last, 1);
+            items[last] = null;
+            sink(1, 1);
+        }
+        return smallest;
+    }
+
+    /**
+     * Changes the priority of the given item.
+     * Runs in O(log N) time.
+     * @throws NoSuchElementException if the item is not present in the PQ
+     */
+    @Override
+    public void changePriority(T item, double priority) {
+        int pos = probe(item);
+        if (keys[pos] == null) {
+            throw new NoSuchElementException("PQ does not contain " + item);
+        }
+        int slot = slots[pos];
+        double old = priorities[slot];
+        priorities[slot] = priority;
+        if (priority < old) {
+            swim(slot);
+        } else {
+            sink(slot, indexOf(slot));
+        }
+    }
+
+    /**
+     * Returns the number of items in the PQ.
+     * Runs in O(1) time.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long siftSteps() {
+        return siftSteps;
+    }
+
+    /**
+     * Returns the slot of the n-th node of the tree in level order (the node at index n of
+     * an ordinary 1-indexed heap). Below the leading one bit, n spells the path from the
+     * root, one bit per level; each group of three bits picks a child block, and the bits
+     * left over give the position within the last block.
+     */
+    static int slotOf(int n) {
+        int depth = 31 - Integer.numberOfLeadingZeros(n);
+        int rest = depth % 3;
+        int block = 0;
+        for (int shift = depth - 3; shift >= rest; shift -= 3) {
+            block = 8 * block + 1 + ((n >>> shift) & 7);
+        }
+        return 8 * block + ((1 << rest) | (n & ((1 << rest) - 1)));
+    }
+
+    /** Returns the level-order index of the node in the given slot; the inverse of slotOf. */
+    static int indexOf(int slot) {
+        int local = slot & 7;
+        int shift = 31 - Integer.numberOfLeadingZeros(local);
+        int path = local & ((1 << shift) - 1);
+        for (int block = slot >>> 3; block > 0; block = (block - 1) >>> 3) {
+            path |= ((block - 1) & 7) << shift;
+            shift += 3;
+        }
+        return (1 << shift) | path;
+    }
+
+    /** Returns the slot of the left child of the given slot; the right child is its sibling. */
+    private static int leftChild(int slot) {
+        int local = slot & 7;
+        if (local < 4) {
+            return slot + local;
+        }
+        // Bottom row: the children are the roots of two consecutive child blocks.
+        return 8 * (8 * (slot >>> 3) + 1 + 2 * (local - 4)) + 1;
+    }
+
+    private static int rightChild(int left) {
+        return (left & 7) == 1 ? left + 8 : left + 1;
+    }
+
+    /** Returns the slot of the parent of the given slot, which must not be the root. */
+    private static int parent(int slot) {
+        int local = slot & 7;
+        if (local > 1) {
+            return (slot & ~7) + local / 2;
+        }
+        int child = (slot >>> 3) - 1;
+        return 8 * (child >>> 3) + 4 + (child & 7) / 2;
+    }
+
+    /*
+     * swim and sink lift the moving entry out, shift the entries it passes by one level
+     * and drop it into its final slot, instead of swapping at every level.
+     */
+
+    private void swim(int slot) {
+        double priority = priorities[slot];
+        Object item = items[slot];
+        int pos = tablePos[slot];
+        while (slot > 1) {
+            int parent = parent(slot);
+            if (priority >= priorities[parent]) {
+                break;
+            }
+            move(parent, slot);
+            slot = parent;
+            siftSteps++;
+        }
+        place(slot, priority, item, pos);
+    }
+
+    /** Sinks the entry in the given slot, which holds the node with level-order index n. */
+    private void sink(int slot, int n) {
+        double priority = priorities[slot];
+        Object item = items[slot];
+        int pos = tablePos[slot];
+        // Whether a child exists follows from n, so the loop only reads priorities.
+        while (2 * n <= size) {
+            int child = leftChild(slot);
+            n = 2 * n;
+            if (n < size) {
+                int right = rightChild(child);
+                if (priorities[right] < priorities[child]) {
+                    child = right;
+                    n++;
+                }
+            }
+            if (priorities[child] >= priority) {
+                break;
+            }
+            move(child, slot);
+            slot = child;
+            siftSteps++;
+        }
+        place(slot, priority, item, pos);
+    }
+
+    /** Copies the entry in slot from to slot to, fixing up the index without hashing. */
+    private void move(int from, int to) {
+        priorities[to] = priorities[from];
+        items[to] = items[from];
+        tablePos[to] = tablePos[from];
+        slots[tablePos[to]] = to;
+    }
+
+    private void place(int slot, double priority, Object item, int pos) {
+        priorities[slot] = priority;
+        items[slot] = item;
+        tablePos[slot] = pos;
+        slots[pos] = slot;
+    }
+
+    /**
+     * Returns the table position holding item, or the empty position where it would be
+     * inserted if it is not present.
+     */
+    private int probe(Object item) {
+        int pos = hash(item) & mask;
+        while (keys[pos] != null && !keys[pos].equals(item)) {
+            pos = (pos + 1) & mask;
+        }
+        return pos;
+    }
+
+    /** Spreads the high bits of the hash code so that sequential keys don't cluster. */
+    private static int hash(Object item) {
+        int h = item.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Empties the given table position, shifting later entries of the same probe run back
+     * so that lookups never stop early at the hole.
+     */
+    private void removeFromTable(int hole) {
+        keys[hole] = null;
+        int pos = (hole + 1) & mask;
+        while (keys[pos] != null) {
+            int home = hash(keys[pos]) & mask;
+            // Move the entry into the hole unless its home lies cyclically in (hole, pos].
+            if (((pos - home) & mask) >= ((pos - hole) & mask)) {
+                keys[hole] = keys[pos];
+                slots[hole] = slots[pos];
+                tablePos[slots[hole]] = hole;
+                keys[pos] = null;
+                hole = pos;
+            }
+            pos = (pos + 1) & mask;
+        }
+    }
+
+    private void resizeHeap(int capacity) {
+        priorities = Arrays.copyOf(priorities, capacity);
+        items = Arrays.copyOf(items, capacity);
+        tablePos = Arrays.copyOf(tablePos, capacity);
+    }
+
+    private void resizeTable(int tableSize) {
+        keys = new Object[tableSize];
+        slots = new int[tableSize];
+        mask = tableSize - 1;
+        for (int n = 1; n <= size; n++) {
+            int slot = slotOf(n);
+            int pos = probe(items[slot]);
+            keys[pos] = items[slot];
+            slots[pos] = slot;
+            tablePos[slot] = pos;
+        }
+    }
+}
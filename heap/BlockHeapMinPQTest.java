@@ -0,0 +1,84 @@
+package heap;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BlockHeapMinPQTest {
+
+    @Test (expected = IllegalArgumentException.class)
+    public void testAddDuplicate() {
+        BlockHeapMinPQ<Integer> actual = new BlockHeapMinPQ<>();
+        actual.add(1, 1);
+        actual.add(1, 2);
+    }
+
+    @Test (expected = NoSuchElementException.class)
+    public void testRemoveSmallestEmpty() {
+        BlockHeapMinPQ<Integer> actual = new BlockHeapMinPQ<>();
+        actual.removeSmallest();
+    }
+
+    @Test
+    public void testSlotOf() {
+        // The first block holds the top three levels in ordinary heap order.
+        for (int n = 1; n <= 7; n++) {
+            assertEquals(n, BlockHeapMinPQ.slotOf(n));
+        }
+        // The fourth level starts the child blocks, one root per block.
+        for (int n = 8; n <= 15; n++) {
+            assertEquals(8 * (n - 7) + 1, BlockHeapMinPQ.slotOf(n));
+        }
+        Set<Integer> seen = new HashSet<>();
+        for (int n = 1; n < 100000; n++) {
+            int slot = BlockHeapMinPQ.slotOf(n);
+            assertNotEquals("slot 0 of a block is unused", 0, slot & 7);
+            assertTrue("slot used twice: " + slot, seen.add(slot));
+            assertEquals(n, BlockHeapMinPQ.indexOf(slot));
+        }
+    }
+
+    @Test
+    public void testRandomOperation() {
+        Random r = new Random(373);
+        BlockHeapMinPQ<Integer> testing = new BlockHeapMinPQ<>();
+        NaiveMinPQ<Integer> expected = new NaiveMinPQ<>();
+        int next = 0;
+        for (int i = 0; i < 30000; i++) {
+            int op = r.nextInt(5);
+            if (op <= 1 || expected.size() == 0) {
+                double priority = r.nextDouble();
+                testing.add(next, priority);
+                expected.add(next, priority);
+                next++;
+            } else if (op == 2) {
+                assertEquals("removeSmallest fail on iteration " + i,
+                        expected.removeSmallest(), testing.removeSmallest());
+                assertEquals(expected.size(), testing.size());
+            } else if (op == 3) {
+                int target = r.nextInt(next);
+                if (expected.contains(target)) {
+                    double priority = r.nextDouble();
+                    testing.changePriority(target, priority);
+                    expected.changePriority(target, priority);
+                } else {
+                    assertFalse(testing.contains(target));
+                }
+            } else {
+                assertEquals(expected.getSmallest(), testing.getSmallest());
+            }
+        }
+        while (expected.size() > 0) {
+            assertEquals(expected.removeSmallest(), testing.removeSmallest());
+        }
+        assertEquals(0, testing.size());
+    }
+}
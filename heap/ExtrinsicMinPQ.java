@@ -1,5 +1,6 @@
 package heap;
 
+import java.util.Map;
 import java.util.NoSuchElementException;
 
 /**
@@ -16,6 +17,23 @@ public interface ExtrinsicMinPQ<T> {
      */
     void add(T item, double priority);
 
+    /**
+     * Adds every item in the map with its mapped priority. Implementations may build the
+     * heap in bulk, which is faster than adding the items one at a time.
+     * Assumes that no item is null.
+     * @throws IllegalArgumentException if any item is already present in the PQ
+     */
+    default void addAll(Map<T, Double> items) {
+        for (T item : items.keySet()) {
+            if (contains(item)) {
+                throw new IllegalArgumentException("Already contains " + item);
+            }
+        }
+        for (Map.Entry<T, Double> entry : items.entrySet()) {
+            add(entry.getKey(), entry.getValue());
+        }
+    }
+
     /** Returns true if the PQ contains the given item; false otherwise. */
     boolean contains(T item);
 
@@ -44,4 +62,14 @@ public interface ExtrinsicMinPQ<T> {
     default boolean isEmpty() {
         return size() == 0;
     }
+
+    /**
+     * Removes every item, so that the PQ can be reused. Implementations may keep their
+     * internal storage to avoid reallocating it.
+     */
+    default void clear() {
+        while (!isEmpty()) {
+            removeSmallest();
+        }
+    }
 }
@@ -0,0 +1,106 @@
+package heap;
+
+import java.util.NoSuchElementException;
+
+/**
+ * ExtrinsicMinPQ decorator that records the latency of every add, removeSmallest and
+ * changePriority call, and the PQ's largest size, into a MinPQStatistics. If the wrapped
+ * PQ implements SiftCounting, the number of levels each call moved entries is recorded too.
+ * Calls that throw are not recorded. Timing adds two System.nanoTime calls per operation.
+ */
+public class InstrumentedMinPQ<T> implements ExtrinsicMinPQ<T> {
+    private final ExtrinsicMinPQ<T> pq;
+    private final SiftCounting sifts;
+    private final MinPQStatistics stats;
+
+    /** Wraps pq, recording into a new MinPQStatistics. */
+    public InstrumentedMinPQ(ExtrinsicMinPQ<T> pq) {
+        this(pq, new MinPQStatistics());
+    }
+
+    /** Wraps pq, recording into stats, which may be shared with other PQs. */
+    public InstrumentedMinPQ(ExtrinsicMinPQ<T> pq, MinPQStatistics stats) {
+        this.pq = pq;
+        this.sifts = pq instanceof SiftCounting ? (SiftCounting) pq : null;
+        this.stats = stats;
+    }
+
+    /** Returns the statistics this PQ records into. */
+    public MinPQStatistics statistics() {
+        return stats;
+    }
+
+    /**
+     * Adds an item with the given priority value.
+     * @throws IllegalArgumentException if item is already present in the PQ
+     */
+    @Override
+    public void add(T item, double priority) {
+        long steps = siftSteps();
+        long start = System.nanoTime();
+        pq.add(item, priority);
+        record(MinPQStatistics.Operation.ADD, start, steps);
+    }
+
+    /** Returns true if the PQ contains the given item; false otherwise. */
+    @Override
+    public boolean contains(T item) {
+        return pq.contains(item);
+    }
+
+    /**
+     * Returns the item with the smallest priority.
+     * @throws NoSuchElementException if the PQ is empty
+     */
+    @Override
+    public T getSmallest() {
+        return pq.getSmallest();
+    }
+
+    /**
+     * Removes and returns the item with the smallest priority.
+     * @throws NoSuchElementException if the PQ is empty
+     */
+    @Override
+    public T removeSmallest() {
+        long steps = siftSteps();
+        long start = System.nanoTime();
+        T smallest = pq.removeSmallest();
+        record(MinPQStatistics.Operation.REMOVE_SMALLEST, start, steps);
+        return smallest;
+    }
+
+    /**
+     * Changes the priority of the given item.
+     * @throws NoSuchElementException if the item is not present in the PQ
+     */
+    @Override
+    public void changePriority(T item, double priority) {
+        long steps = siftSteps();
+        long start = System.nanoTime();
+        pq.changePriority(item, priority);
+        record(MinPQStatistics.Operation.CHANGE_PRIORITY, start, steps);
+    }
+
+    /** Returns the number of items in the PQ. */
+    @Override
+    public int size() {
+        return pq.size();
+    }
+
+    /** Removes every item from the wrapped PQ without recording anything. */
+    @Override
+    public void clear() {
+        pq.clear();
+    }
+
+    private long siftSteps() {
+        return sifts == null ? 0 : sifts.siftSteps();
+    }
+
+    private void record(MinPQStatistics.Operation op, long start, long stepsBefore) {
+        long nanos = System.nanoTime() - start;
+        long steps = sifts == null ? -1 : sifts.siftSteps() - stepsBefore;
+        stats.record(op, nanos, steps, pq.size());
+    }
+}
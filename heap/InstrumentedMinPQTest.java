@@ -0,0 +1,86 @@
+package heap;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class InstrumentedMinPQTest {
+
+    @Test
+    public void testCounts() {
+        InstrumentedMinPQ<Integer> pq = new InstrumentedMinPQ<>(new ArrayHeapMinPQ<>());
+        Random r = new Random(373);
+        for (int i = 0; i < 1000; i++) {
+            pq.add(i, r.nextDouble());
+        }
+        for (int i = 0; i < 1000; i += 2) {
+            pq.changePriority(i, r.nextDouble());
+        }
+        for (int i = 0; i < 300; i++) {
+            pq.removeSmallest();
+        }
+        try {
+            pq.add(pq.getSmallest(), 0); // duplicates throw and are not recorded
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        MinPQStatistics.Snapshot snapshot = pq.statistics().snapshot();
+        assertEquals(1000, snapshot.add().count());
+        assertEquals(500, snapshot.changePriority().count());
+        assertEquals(300, snapshot.removeSmallest().count());
+        assertEquals(1000, snapshot.maxSize());
+        // removeSmallest sinks from the root of a 700-1000 item heap, so about 8 levels.
+        double depth = snapshot.removeSmallest().averageSiftDepth();
+        assertTrue("removeSmallest depth " + depth, depth > 6 && depth < 10);
+        assertTrue(snapshot.add().p50Nanos() <= snapshot.add().maxNanos());
+    }
+
+    @Test
+    public void testSharedAndUncounted() {
+        MinPQStatistics stats = new MinPQStatistics();
+        InstrumentedMinPQ<String> a = new InstrumentedMinPQ<>(new NaiveMinPQ<>(), stats);
+        InstrumentedMinPQ<String> b = new InstrumentedMinPQ<>(new NaiveMinPQ<>(), stats);
+        a.add("x", 1);
+        b.add("y", 2);
+        b.add("z", 3);
+        assertEquals(3, stats.snapshot().add().count());
+        assertEquals(2, stats.snapshot().maxSize());
+        // NaiveMinPQ doesn't count sift steps.
+        assertNull(stats.snapshot().add().averageSiftDepth());
+    }
+
+    @Test
+    public void testHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long v = 1; v <= 100000; v++) {
+            histogram.record(v);
+        }
+        assertEquals(100000, histogram.count());
+        assertEquals(50000.5, histogram.mean(), 1e-9);
+        assertEquals(100000, histogram.max());
+        // Buckets are at most 12.5% wide, and percentiles report the top of the bucket.
+        for (double p : new double[]{10, 50, 90, 99}) {
+            long exact = (long) (p * 1000);
+            long reported = histogram.percentile(p);
+            assertTrue(p + "th percentile " + reported,
+                    reported >= exact && reported <= exact * 1.125);
+        }
+        assertEquals(100000, histogram.percentile(100));
+    }
+
+    @Test
+    public void testBuckets() {
+        for (long v = 0; v < 1 << 16; v++) {
+            int bucket = LatencyHistogram.bucket(v);
+            assertTrue(LatencyHistogram.lowestValue(bucket) <= v);
+            assertTrue(v < LatencyHistogram.lowestValue(bucket + 1));
+        }
+        int top = LatencyHistogram.bucket(Long.MAX_VALUE);
+        assertTrue(top < 64 * 8);
+    }
+}
@@ -0,0 +1,179 @@
+package heap;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Indexed min-heap over dense int ids 0 through capacity - 1. Follows the same contract
+ * as ExtrinsicMinPQ, but since ids index straight into a position table, contains and
+ * changePriority never hash anything and nothing is boxed.
+ */
+public class IntMinPQ {
+    /* heap[1..size] holds ids; position[id] is the heap index of id, or 0 if absent. */
+    private final int[] heap;
+    private final int[] position;
+    private final double[] priorities;
+    private int size;
+    private long siftSteps;
+
+    /** Creates an empty PQ that accepts ids from 0 up to (but not including) capacity. */
+    public IntMinPQ(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Negative capacity: " + capacity);
+        }
+        heap = new int[capacity + 1];
+        position = new int[capacity];
+        priorities = new double[capacity];
+    }
+
+    /** Returns the number of distinct ids this PQ accepts. */
+    public int capacity() {
+        return position.length;
+    }
+
+    /**
+     * Adds an id with the given priority value.
+     * Runs in O(log N) time.
+     * @throws IllegalArgumentException if id is out of range or already present in the PQ
+     */
+    public void add(int id, double priority) {
+        if (contains(id)) {
+            throw new IllegalArgumentException("Already contains " + id);
+        }
+        size++;
+        heap[size] = id;
+        position[id] = size;
+        priorities[id] = priority;
+        swim(size);
+    }
+
+    /**
+     * Returns true if the PQ contains the given id; false otherwise.
+     * @throws IllegalArgumentException if id is out of range
+     */
+    public boolean contains(int id) {
+        validate(id);
+        return position[id] != 0;
+    }
+
+    /**
+     * Returns the id with the smallest priority.
+     * @throws NoSuchElementException if the PQ is empty
+     */
+    public int getSmallest() {
+        if (size == 0) {
+            throw new NoSuchElementException("PQ is empty");
+        }
+        return heap[1];
+    }
+
+    /**
+     * Returns the current priority of the given id.
+     * @throws NoSuchElementException if the id is not present in the PQ
+     */
+    public double priority(int id) {
+        if (!contains(id)) {
+            throw new NoSuchElementException("PQ does not contain " + id);
+        }
+        return priorities[id];
+    }
+
+    /**
+     * Removes and returns the id with the smallest priority.
+     * Runs in O(log N) time.
+     * @throws NoSuchElementException if the PQ is empty
+     */
+    public int removeSmallest() {
+        if (size == 0) {
+            throw new NoSuchElementException("PQ is empty");
+        }
+        int smallest = heap[1];
+        swap(1, size);
+        position[smallest] = 0;
+        size--;
+        sink(1);
+        return smallest;
+    }
+
+    /**
+     * Changes the priority of the given id.
+     * Runs in O(log N) time.
+     * @throws NoSuchElementException if the id is not present in the PQ
+     */
+    public void changePriority(int id, double priority) {
+        if (!contains(id)) {
+            throw new NoSuchElementException("PQ does not contain " + id);
+        }
+        double old = priorities[id];
+        priorities[id] = priority;
+        if (priority < old) {
+            swim(position[id]);
+        } else {
+            sink(position[id]);
+        }
+    }
+
+    /** Returns the number of ids in the PQ. */
+    public int size() {
+        return size;
+    }
+
+    /** Returns true if the PQ is empty; false otherwise. */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Removes every id. Runs in O(N) time, however large the capacity. */
+    public void clear() {
+        for (int i = 1; i <= size; i++) {
+            position[heap[i]] = 0;
+        }
+        size = 0;
+    }
+
+    /** Returns the total number of levels moved by swim and sink since the PQ was created. */
+    public long siftSteps() {
+        return siftSteps;
+    }
+
+    private void validate(int id) {
+        if (id < 0 || id >= position.length) {
+            throw new IllegalArgumentException("Id " + id + " not in [0, " + position.length + ")");
+        }
+    }
+
+    private boolean smaller(int i, int j) {
+        return priorities[heap[i]] < priorities[heap[j]];
+    }
+
+    private void swim(int index) {
+        while (index > 1 && smaller(index, index / 2)) {
+            swap(index, index / 2);
+            index /= 2;
+            siftSteps++;
+        }
+    }
+
+    private void sink(int index) {
+        while (index * 2 <= size) {
+            int child = index * 2;
+            if (child < size && smaller(child + 1, child)) {
+                child++;
+            }
+            if (smaller(child, index)) {
+                swap(child, index);
+                index = child;
+                siftSteps++;
+            } else {
+                break;
+            }
+        }
+    }
+
+    private void swap(int a, int b) {
+        int temp = heap[a];
+        heap[a] = heap[b];
+        heap[b] = temp;
+        position[heap[a]] = a;
+        position[heap[b]] = b;
+    }
+}
@@ -0,0 +1,101 @@
+package heap;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class IntMinPQTest {
+
+    @Test (expected = IllegalArgumentException.class)
+    public void testAddDuplicate() {
+        IntMinPQ actual = new IntMinPQ(4);
+        actual.add(1, 1);
+        actual.add(1, 2);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void testAddOutOfRange() {
+        IntMinPQ actual = new IntMinPQ(4);
+        actual.add(4, 1);
+    }
+
+    @Test (expected = NoSuchElementException.class)
+    public void testRemoveSmallestEmpty() {
+        IntMinPQ actual = new IntMinPQ(4);
+        actual.removeSmallest();
+    }
+
+    @Test
+    public void testChangePriority() {
+        IntMinPQ actual = new IntMinPQ(4);
+        actual.add(0, 3);
+        actual.add(1, 2);
+        actual.add(2, 1);
+        actual.changePriority(0, 0);
+        actual.changePriority(2, 5);
+        assertEquals(0, actual.removeSmallest());
+        assertEquals(1, actual.removeSmallest());
+        assertEquals(5, actual.priority(2), 0);
+        assertEquals(2, actual.removeSmallest());
+        assertTrue(actual.isEmpty());
+        assertFalse(actual.contains(0));
+    }
+
+    @Test
+    public void testClear() {
+        IntMinPQ actual = new IntMinPQ(4);
+        actual.add(3, 1);
+        actual.add(1, 2);
+        actual.clear();
+        assertTrue(actual.isEmpty());
+        assertFalse(actual.contains(3));
+        actual.add(3, 5);
+        actual.add(2, 4);
+        assertEquals(2, actual.removeSmallest());
+        assertEquals(3, actual.removeSmallest());
+    }
+
+    @Test
+    public void testRandomOperation() {
+        int seed = 373;
+        int iteration = 20000;
+        int capacity = 5000;
+        Random r = new Random(seed);
+        IntMinPQ testing = new IntMinPQ(capacity);
+        NaiveMinPQ<Integer> expected = new NaiveMinPQ<>();
+        Set<Double> prioritySet = new HashSet<>();
+
+        for (int i = 0; i < iteration; i++) {
+            int id = r.nextInt(capacity);
+            double priority = r.nextDouble();
+            while (prioritySet.contains(priority)) {
+                priority = r.nextDouble();
+            }
+            prioritySet.add(priority);
+            int op = r.nextInt(3);
+            if (op == 0) {
+                if (testing.contains(id)) {
+                    testing.changePriority(id, priority);
+                    expected.changePriority(id, priority);
+                } else {
+                    testing.add(id, priority);
+                    expected.add(id, priority);
+                }
+            } else if (op == 1 && !testing.isEmpty()) {
+                int actual = testing.removeSmallest();
+                int expect = expected.removeSmallest();
+                assertEquals("removeSmallest fail on iteration " + i, expect, actual);
+            } else {
+                assertEquals(expected.contains(id), testing.contains(id));
+            }
+            assertEquals(expected.size(), testing.size());
+        }
+    }
+}
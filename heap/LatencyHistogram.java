@@ -0,0 +1,97 @@
+package heap;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of non-negative long values (such as latencies in nanoseconds) in the
+ * style of HdrHistogram: each power of two is split into 8 equal buckets, so any value is
+ * reported within 12.5% of its true value while the histogram stays a fixed 512 counters.
+ * Values below 8 are counted exactly. Any number of threads may record at once; readers see
+ * each count as of some moment during the read, so a report taken while threads are
+ * recording may be slightly out of step with itself.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(64 * SUB_BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /** Records one value. Negative values are recorded as 0. */
+    public void record(long value) {
+        value = Math.max(value, 0);
+        counts.incrementAndGet(bucket(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    /** Returns the number of values recorded. */
+    public long count() {
+        return count.sum();
+    }
+
+    /** Returns the mean of the values recorded, or 0 if there are none. */
+    public double mean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /** Returns the largest value recorded, or 0 if there are none. */
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * Returns the value at the given percentile (0 to 100) rounded up to the top of its
+     * bucket, or 0 if no values have been recorded.
+     * @throws IllegalArgumentException if percentile is not between 0 and 100
+     */
+    public long percentile(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("Not a percentile: " + percentile);
+        }
+        long[] snapshot = new long[counts.length()];
+        long total = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        long target = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= target) {
+                return Math.min(lowestValue(i + 1) - 1, max());
+            }
+        }
+        return 0;
+    }
+
+    /** Returns the bucket holding the given non-negative value. */
+    static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /** Returns the smallest value that falls in the given bucket. */
+    static long lowestValue(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        long sub = bucket % SUB_BUCKETS;
+        if (exponent >= 63) {
+            return Long.MAX_VALUE;
+        }
+        return (SUB_BUCKETS + sub) << (exponent - SUB_BITS);
+    }
+}
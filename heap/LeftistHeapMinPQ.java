@@ -0,0 +1,228 @@
+package heap;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Leftist heap implementation of ExtrinsicMinPQ. Every node's left subtree has a right
+ * spine at least as long as its right subtree's, so right spines are O(log N) long, and two
+ * heaps can be merged by walking their right spines. This makes meld cheap, which lets
+ * separately built queues (such as the per-thread frontiers of a parallel search) be
+ * combined without re-adding their items.
+ *
+ * Each item maps to its node, and nodes know their parents, so changePriority can detach
+ * a node and merge it back in.
+ */
+public class LeftistHeapMinPQ<T> implements ExtrinsicMinPQ<T> {
+    private Node root;
+    private Map<T, Node> nodes;
+
+    public LeftistHeapMinPQ() {
+        nodes = new HashMap<>();
+    }
+
+    /**
+     * Adds an item with the given priority value.
+     * Assumes that item is never null.
+     * Runs in O(log N) time.
+     * @throws IllegalArgumentException if item is already present in the PQ
+     */
+    @Override
+    public void add(T item, double priority) {
+        if (contains(item)) {
+            throw new IllegalArgumentException("Already contains " + item);
+        }
+        Node node = new Node(item, priority);
+        nodes.put(item, node);
+        root = merge(root, node);
+        root.parent = null;
+    }
+
+    /**
+     * Moves every item of other into this PQ, leaving other empty.
+     * The heaps themselves are merged in O(log N) time. The smaller of the two item indexes
+     * is copied into the larger one, which takes time proportional to the smaller queue, so
+     * a sequence of melds that ends with N items costs O(N log N) in total.
+     * @throws IllegalArgumentException if other is this PQ or the two PQs share an item, in
+     *                                  which case neither PQ is changed
+     */
+    public void meld(LeftistHeapMinPQ<T> other) {
+        if (other == this) {
+            throw new IllegalArgumentException("Cannot meld a PQ with itself");
+        }
+        Map<T, Node> small = nodes.size() < other.nodes.size() ? nodes : other.nodes;
+        Map<T, Node> large = small == nodes ? other.nodes : nodes;
+        for (T item : small.keySet()) {
+            if (large.containsKey(item)) {
+                throw new IllegalArgumentException("Both PQs contain " + item);
+            }
+        }
+        large.putAll(small);
+        nodes = large;
+        other.nodes = new HashMap<>();
+        root = merge(root, other.root);
+        if (root != null) {
+            root.parent = null;
+        }
+        other.root = null;
+    }
+
+    /** Returns true if the PQ contains the given item; false otherwise. */
+    @Override
+    public boolean contains(T item) {
+        return nodes.containsKey(item);
+    }
+
+    /**
+     * Returns the item with the smallest priority.
+     * Runs in O(1) time.
+     * @throws NoSuchElementException if the PQ is empty
+     */
+    @Override
+    public T getSmallest() {
+        if (root == null) {
+            throw new NoSuchElementException("PQ is empty");
+        }
+        return root.item;
+    }
+
+    /**
+     * Removes and returns the item with the smallest priority.
+     * Runs in O(log N) time.
+     * @throws NoSuchElementException if the PQ is empty
+     */
+    @Override
+    public T removeSmallest() {
+        if (root == null) {
+            throw new NoSuchElementException("PQ is empty");
+        }
+        T smallest = root.item;
+        nodes.remove(smallest);
+        replace(root, merge(root.left, root.right));
+        return smallest;
+    }
+
+    /**
+     * Changes the priority of the given item by detaching its node and merging it back in.
+     * When the priority decreases, the node keeps its subtree; when it increases, its
+     * children take its place and it is merged back in alone.
+     * Runs in O(log N) time.
+     * @throws NoSuchElementException if the item is not present in the PQ
+     */
+    @Override
+    public void changePriority(T item, double priority) {
+        Node node = nodes.get(item);
+        if (node == null) {
+            throw new NoSuchElementException("PQ does not contain " + item);
+        }
+        if (priority < node.priority) {
+            node.priority = priority;
+            if (node != root) {
+                replace(node, null);
+                root = merge(root, node);
+                root.parent = null;
+            }
+        } else {
+            node.priority = priority;
+            replace(node, merge(node.left, node.right));
+            node.left = null;
+            node.right = null;
+            node.rank = 1;
+            root = merge(root, node);
+            root.parent = null;
+        }
+    }
+
+    /** Returns the number of items in the PQ. */
+    @Override
+    public int size() {
+        return nodes.size();
+    }
+
+    /** Removes every item. */
+    @Override
+    public void clear() {
+        root = null;
+        nodes.clear();
+    }
+
+    /**
+     * Merges two heaps along their right spines, swapping children wherever the right
+     * subtree ends up with the longer right spine. Does not set the result's parent.
+     */
+    private Node merge(Node a, Node b) {
+        if (a == null) {
+            return b;
+        } else if (b == null) {
+            return a;
+        }
+        if (b.priority < a.priority) {
+            Node temp = a;
+            a = b;
+            b = temp;
+        }
+        a.right = merge(a.right, b);
+        a.right.parent = a;
+        if (rank(a.left) < rank(a.right)) {
+            Node temp = a.left;
+            a.left = a.right;
+            a.right = temp;
+        }
+        a.rank = rank(a.right) + 1;
+        return a;
+    }
+
+    /**
+     * Puts replacement (which may be null) where node is in the tree and restores the
+     * leftist property on the path above it.
+     */
+    private void replace(Node node, Node replacement) {
+        Node parent = node.parent;
+        node.parent = null;
+        if (replacement != null) {
+            replacement.parent = parent;
+        }
+        if (parent == null) {
+            root = replacement;
+            return;
+        }
+        if (parent.left == node) {
+            parent.left = replacement;
+        } else {
+            parent.right = replacement;
+        }
+        // Ranks above parent only change while parent's rank does, so this stops early.
+        for (Node n = parent; n != null; n = n.parent) {
+            if (rank(n.left) < rank(n.right)) {
+                Node temp = n.left;
+                n.left = n.right;
+                n.right = temp;
+            }
+            int rank = rank(n.right) + 1;
+            if (rank == n.rank) {
+                break;
+            }
+            n.rank = rank;
+        }
+    }
+
+    /** Returns the length of the right spine of the given subtree. */
+    private int rank(Node node) {
+        return node == null ? 0 : node.rank;
+    }
+
+    private class Node {
+        private T item;
+        private double priority;
+        private Node left;
+        private Node right;
+        private Node parent;
+        private int rank = 1;
+
+        Node(T item, double priority) {
+            this.item = item;
+            this.priority = priority;
+        }
+    }
+}
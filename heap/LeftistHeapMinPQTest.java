@@ -0,0 +1,116 @@
+package heap;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LeftistHeapMinPQTest {
+
+    @Test (expected = IllegalArgumentException.class)
+    public void testAddDuplicate() {
+        LeftistHeapMinPQ<Integer> actual = new LeftistHeapMinPQ<>();
+        actual.add(1, 1);
+        actual.add(1, 2);
+    }
+
+    @Test (expected = NoSuchElementException.class)
+    public void testChangePriorityMissing() {
+        LeftistHeapMinPQ<Integer> actual = new LeftistHeapMinPQ<>();
+        actual.add(1, 1);
+        actual.changePriority(2, 1);
+    }
+
+    @Test
+    public void testRandomOperation() {
+        Random r = new Random(373);
+        LeftistHeapMinPQ<Integer> testing = new LeftistHeapMinPQ<>();
+        NaiveMinPQ<Integer> expected = new NaiveMinPQ<>();
+        List<Integer> itemList = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            int op = r.nextInt(4);
+            if (op <= 1 || itemList.isEmpty()) { // add
+                int item = i;
+                double priority = r.nextDouble();
+                testing.add(item, priority);
+                expected.add(item, priority);
+                itemList.add(item);
+            } else if (op == 2) { // remove
+                int actual = testing.removeSmallest();
+                assertEquals("removeSmallest fail on iteration " + i,
+                        expected.removeSmallest(), (Integer) actual);
+                itemList.remove((Integer) actual);
+                assertFalse(testing.contains(actual));
+            } else { // change priority, up or down
+                int target = itemList.get(r.nextInt(itemList.size()));
+                double priority = r.nextDouble();
+                testing.changePriority(target, priority);
+                expected.changePriority(target, priority);
+            }
+            assertEquals("size fail on iteration " + i, expected.size(), testing.size());
+        }
+        while (expected.size() > 0) {
+            assertEquals(expected.removeSmallest(), testing.removeSmallest());
+        }
+    }
+
+    @Test
+    public void testMeld() {
+        Random r = new Random(143);
+        NaiveMinPQ<Integer> expected = new NaiveMinPQ<>();
+        List<LeftistHeapMinPQ<Integer>> parts = new ArrayList<>();
+        for (int p = 0; p < 8; p++) {
+            LeftistHeapMinPQ<Integer> part = new LeftistHeapMinPQ<>();
+            // Uneven sizes exercise both directions of the index copy.
+            for (int i = 0; i < 100 * (p + 1); i++) {
+                int item = p * 100000 + i;
+                double priority = r.nextDouble();
+                part.add(item, priority);
+                expected.add(item, priority);
+            }
+            parts.add(part);
+        }
+        LeftistHeapMinPQ<Integer> testing = parts.get(0);
+        for (int p = 1; p < 8; p++) {
+            testing.meld(parts.get(p));
+            assertTrue(parts.get(p).isEmpty());
+        }
+        assertEquals(expected.size(), testing.size());
+
+        // The melded queue still supports changePriority on items from every part.
+        for (int p = 0; p < 8; p++) {
+            double priority = r.nextDouble();
+            testing.changePriority(p * 100000 + 7, priority);
+            expected.changePriority(p * 100000 + 7, priority);
+        }
+        while (expected.size() > 0) {
+            assertEquals(expected.removeSmallest(), testing.removeSmallest());
+        }
+    }
+
+    @Test
+    public void testMeldDuplicate() {
+        LeftistHeapMinPQ<String> a = new LeftistHeapMinPQ<>();
+        LeftistHeapMinPQ<String> b = new LeftistHeapMinPQ<>();
+        a.add("x", 1);
+        a.add("y", 2);
+        b.add("y", 3);
+        try {
+            a.meld(b);
+        } catch (IllegalArgumentException e) {
+            // Neither queue changes when the meld is refused.
+            assertEquals(2, a.size());
+            assertEquals(1, b.size());
+            assertEquals("x", a.getSmallest());
+            assertEquals("y", b.getSmallest());
+            return;
+        }
+        throw new AssertionError("meld accepted a duplicate item");
+    }
+}
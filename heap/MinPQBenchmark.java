@@ -0,0 +1,355 @@
+package heap;
+
+import astar.TreeMapMinPQ;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Benchmark suite for every ExtrinsicMinPQ implementation. For each queue and each size N
+ * it measures four workloads:
+ * <ul>
+ *     <li>add: N adds with random priorities.</li>
+ *     <li>removeSmallest: N removals from a queue filled with N items.</li>
+ *     <li>changePriority: N random priority changes in a queue of N items.</li>
+ *     <li>dijkstra: a recorded trace of the add/changePriority/removeSmallest calls
+ *     Dijkstra's algorithm makes on a square grid with N vertices.</li>
+ * </ul>
+ * Each measurement is the median of several runs after warmup, reported in nanoseconds per
+ * operation, along with the bytes allocated per operation by the benchmark thread (the same
+ * quantity as JMH's gc.alloc.rate.norm). Only the timed phase counts; filling the queue
+ * beforehand does not. Items are boxed once up front, so the bytes are the queue's own;
+ * OffHeapMinPQ runs through its ExtrinsicMinPQ<Long> methods, so they include the Long
+ * that removeSmallest boxes.
+ *
+ * Usage: java heap.MinPQBenchmark [sizes...], e.g. 1000 10000 10000000.
+ * Defaults to 1000 through 1000000. NaiveMinPQ is skipped above 10000 items and
+ * RadixHeapMinPQ only runs the monotone workloads. MultiQueueMinPQ runs with one stripe,
+ * since the recorded traces assume removeSmallest is exact.
+ *
+ * Setting -Dqueue=NAME runs only the named queue, so the whole process can be measured
+ * with hardware counters, e.g.
+ * perf stat -e L1-dcache-load-misses,LLC-load-misses java -Dqueue=BlockHeapMinPQ ...
+ */
+public class MinPQBenchmark {
+    private static final int WARMUP_RUNS = 3;
+    private static final int MEASURED_RUNS = 5;
+    private static final int NAIVE_LIMIT = 10000;
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) {
+        int[] sizes = {1000, 10000, 100000, 1000000};
+        if (args.length > 0) {
+            sizes = Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+        }
+
+        Map<String, Queue<?>> queues = new LinkedHashMap<>();
+        queues.put("ArrayHeapMinPQ", new Queue<Integer>(ArrayHeapMinPQ::new, Integer::valueOf));
+        queues.put("ArrayHeapMinPQ(4)",
+                new Queue<Integer>(() -> new ArrayHeapMinPQ<>(4), Integer::valueOf));
+        queues.put("PrimitiveHeapMinPQ",
+                new Queue<Integer>(PrimitiveHeapMinPQ::new, Integer::valueOf));
+        queues.put("BlockHeapMinPQ", new Queue<Integer>(BlockHeapMinPQ::new, Integer::valueOf));
+        queues.put("PairingHeapMinPQ",
+                new Queue<Integer>(PairingHeapMinPQ::new, Integer::valueOf));
+        queues.put("LeftistHeapMinPQ",
+                new Queue<Integer>(LeftistHeapMinPQ::new, Integer::valueOf));
+        queues.put("RadixHeapMinPQ", new Queue<Integer>(RadixHeapMinPQ::new, Integer::valueOf));
+        queues.put("MultiQueueMinPQ(1)",
+                new Queue<Integer>(() -> new MultiQueueMinPQ<>(1), Integer::valueOf));
+        queues.put("OffHeapMinPQ", new Queue<Long>(OffHeapMinPQ::new, Long::valueOf));
+        queues.put("TreeMapMinPQ", new Queue<Integer>(TreeMapMinPQ::new, Integer::valueOf));
+        queues.put("NaiveMinPQ", new Queue<Integer>(NaiveMinPQ::new, Integer::valueOf));
+
+        String only = System.getProperty("queue");
+        if (only != null) {
+            queues.keySet().retainAll(Set.of(only));
+        }
+
+        System.out.printf("%-20s %-15s %10s %12s %12s%n",
+                "queue", "workload", "N", "ns/op", "bytes/op");
+        for (int n : sizes) {
+            Workload[] workloads = {
+                new AddWorkload(n), new RemoveWorkload(n),
+                new ChangeWorkload(n), new DijkstraWorkload(n)
+            };
+            int numItems = 0;
+            for (Workload workload : workloads) {
+                numItems = Math.max(numItems, workload.numItems());
+            }
+            for (Map.Entry<String, Queue<?>> queue : queues.entrySet()) {
+                if (queue.getKey().equals("NaiveMinPQ") && n > NAIVE_LIMIT) {
+                    continue;
+                }
+                for (Workload workload : workloads) {
+                    if (queue.getKey().equals("RadixHeapMinPQ") && !workload.monotone()) {
+                        continue;
+                    }
+                    double[] result = measure(workload, queue.getValue(), numItems);
+                    System.out.printf("%-20s %-15s %10d %12.1f %12.1f%n",
+                            queue.getKey(), workload.name(), n, result[0], result[1]);
+                }
+            }
+        }
+    }
+
+    /** A queue to measure, and how to box the item with a given index for it. */
+    private static class Queue<T> {
+        private final Supplier<ExtrinsicMinPQ<T>> factory;
+        private final IntFunction<T> box;
+
+        Queue(Supplier<ExtrinsicMinPQ<T>> factory, IntFunction<T> box) {
+            this.factory = factory;
+            this.box = box;
+        }
+
+        /** Returns items 0 through numItems - 1, boxed. */
+        @SuppressWarnings("unchecked")
+        T[] items(int numItems) {
+            T[] items = (T[]) new Object[numItems];
+            for (int i = 0; i < numItems; i++) {
+                items[i] = box.apply(i);
+            }
+            return items;
+        }
+    }
+
+    /** Returns the median {ns/op, bytes/op} of MEASURED_RUNS runs after WARMUP_RUNS runs. */
+    private static <T> double[] measure(Workload workload, Queue<T> queue, int numItems) {
+        T[] items = queue.items(numItems);
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            run(workload, queue, items);
+        }
+        double[] nanos = new double[MEASURED_RUNS];
+        double[] bytes = new double[MEASURED_RUNS];
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            double[] result = run(workload, queue, items);
+            nanos[i] = result[0];
+            bytes[i] = result[1];
+        }
+        Arrays.sort(nanos);
+        Arrays.sort(bytes);
+        return new double[]{nanos[MEASURED_RUNS / 2], bytes[MEASURED_RUNS / 2]};
+    }
+
+    private static <T> double[] run(Workload workload, Queue<T> queue, T[] items) {
+        ExtrinsicMinPQ<T> pq = queue.factory.get();
+        workload.setUp(pq, items);
+        long thread = Thread.currentThread().getId();
+        long allocated = THREADS.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        int ops = workload.run(pq, items);
+        long elapsed = System.nanoTime() - start;
+        allocated = THREADS.getThreadAllocatedBytes(thread) - allocated;
+        return new double[]{(double) elapsed / ops, (double) allocated / ops};
+    }
+
+    private interface Workload {
+        String name();
+
+        /** Returns true if no priority passed to the PQ is below the last one removed. */
+        boolean monotone();
+
+        /** Returns how many items the workload uses; item i is items[i] below. */
+        int numItems();
+
+        /** Prepares pq for the timed phase. */
+        <T> void setUp(ExtrinsicMinPQ<T> pq, T[] items);
+
+        /** Runs the timed phase, returning the number of PQ operations it made. */
+        <T> int run(ExtrinsicMinPQ<T> pq, T[] items);
+    }
+
+    private static class AddWorkload implements Workload {
+        private final double[] priorities;
+
+        AddWorkload(int n) {
+            priorities = new Random(373).doubles(n).toArray();
+        }
+
+        public String name() {
+            return "add";
+        }
+
+        public boolean monotone() {
+            return true;
+        }
+
+        public int numItems() {
+            return priorities.length;
+        }
+
+        public <T> void setUp(ExtrinsicMinPQ<T> pq, T[] items) { }
+
+        public <T> int run(ExtrinsicMinPQ<T> pq, T[] items) {
+            for (int i = 0; i < priorities.length; i++) {
+                pq.add(items[i], priorities[i]);
+            }
+            return priorities.length;
+        }
+    }
+
+    private static class RemoveWorkload extends AddWorkload {
+        RemoveWorkload(int n) {
+            super(n);
+        }
+
+        @Override
+        public String name() {
+            return "removeSmallest";
+        }
+
+        @Override
+        public <T> void setUp(ExtrinsicMinPQ<T> pq, T[] items) {
+            super.run(pq, items);
+        }
+
+        @Override
+        public <T> int run(ExtrinsicMinPQ<T> pq, T[] items) {
+            int n = pq.size();
+            for (int i = 0; i < n; i++) {
+                pq.removeSmallest();
+            }
+            return n;
+        }
+    }
+
+    private static class ChangeWorkload extends AddWorkload {
+        private final int[] targets;
+        private final double[] changes;
+
+        ChangeWorkload(int n) {
+            super(n);
+            Random r = new Random(143);
+            targets = r.ints(n, 0, n).toArray();
+            changes = r.doubles(n).toArray();
+        }
+
+        @Override
+        public String name() {
+            return "changePriority";
+        }
+
+        @Override
+        public boolean monotone() {
+            return false;
+        }
+
+        @Override
+        public <T> void setUp(ExtrinsicMinPQ<T> pq, T[] items) {
+            super.run(pq, items);
+        }
+
+        @Override
+        public <T> int run(ExtrinsicMinPQ<T> pq, T[] items) {
+            for (int i = 0; i < targets.length; i++) {
+                pq.changePriority(items[targets[i]], changes[i]);
+            }
+            return targets.length;
+        }
+    }
+
+    /**
+     * Replays the queue calls of Dijkstra's algorithm on a side x side grid with random
+     * weights. The trace is recorded once, so every queue sees exactly the same calls.
+     */
+    private static class DijkstraWorkload implements Workload {
+        private static final byte ADD = 0;
+        private static final byte CHANGE = 1;
+        private static final byte REMOVE = 2;
+
+        private byte[] ops;
+        private int[] indices;
+        private double[] priorities;
+        private int length;
+        private final int vertices;
+
+        DijkstraWorkload(int n) {
+            int side = Math.max(2, (int) Math.sqrt(n));
+            vertices = side * side;
+            ops = new byte[vertices * 4];
+            indices = new int[ops.length];
+            priorities = new double[ops.length];
+
+            Random r = new Random(373);
+            double[] right = r.doubles(vertices).toArray();
+            double[] down = r.doubles(vertices).toArray();
+            double[] distTo = new double[vertices];
+            Arrays.fill(distTo, Double.POSITIVE_INFINITY);
+            IntMinPQ pq = new IntMinPQ(vertices);
+            distTo[0] = 0;
+            pq.add(0, 0);
+            record(ADD, 0, 0);
+            while (!pq.isEmpty()) {
+                int v = pq.removeSmallest();
+                record(REMOVE, v, 0);
+                int row = v / side;
+                int col = v % side;
+                relax(pq, distTo, v, col + 1 < side ? v + 1 : -1, right[v]);
+                relax(pq, distTo, v, col > 0 ? v - 1 : -1, right[Math.max(v - 1, 0)]);
+                relax(pq, distTo, v, row + 1 < side ? v + side : -1, down[v]);
+                relax(pq, distTo, v, row > 0 ? v - side : -1, down[Math.max(v - side, 0)]);
+            }
+        }
+
+        private void relax(IntMinPQ pq, double[] distTo, int v, int w, double weight) {
+            if (w < 0 || distTo[v] + weight >= distTo[w]) {
+                return;
+            }
+            distTo[w] = distTo[v] + weight;
+            if (pq.contains(w)) {
+                pq.changePriority(w, distTo[w]);
+                record(CHANGE, w, distTo[w]);
+            } else {
+                pq.add(w, distTo[w]);
+                record(ADD, w, distTo[w]);
+            }
+        }
+
+        private void record(byte op, int item, double priority) {
+            if (length == ops.length) {
+                ops = Arrays.copyOf(ops, length * 2);
+                indices = Arrays.copyOf(indices, length * 2);
+                priorities = Arrays.copyOf(priorities, length * 2);
+            }
+            ops[length] = op;
+            indices[length] = item;
+            priorities[length] = priority;
+            length++;
+        }
+
+        public String name() {
+            return "dijkstra";
+        }
+
+        public boolean monotone() {
+            return true;
+        }
+
+        public int numItems() {
+            return vertices;
+        }
+
+        public <T> void setUp(ExtrinsicMinPQ<T> pq, T[] items) { }
+
+        public <T> int run(ExtrinsicMinPQ<T> pq, T[] items) {
+            for (int i = 0; i < length; i++) {
+                if (ops[i] == ADD) {
+                    pq.add(items[indices[i]], priorities[i]);
+                } else if (ops[i] == CHANGE) {
+                    pq.changePriority(items[indices[i]], priorities[i]);
+                } else {
+                    pq.removeSmallest();
+                }
+            }
+            return length;
+        }
+    }
+}
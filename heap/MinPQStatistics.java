@@ -0,0 +1,152 @@
+package heap;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms for the add, removeSmallest and changePriority calls of
+ * one or more InstrumentedMinPQs. Recording is lock-free, so many queues on many threads
+ * can share one instance, and snapshot can be called at any time.
+ */
+public class MinPQStatistics {
+
+    /** The PQ operations that are recorded. */
+    public enum Operation { ADD, REMOVE_SMALLEST, CHANGE_PRIORITY }
+
+    private final LatencyHistogram[] latencies = new LatencyHistogram[Operation.values().length];
+    private final LongAdder[] siftSteps = new LongAdder[Operation.values().length];
+    private final LongAdder[] siftedCalls = new LongAdder[Operation.values().length];
+    private final LongAccumulator maxSize = new LongAccumulator(Math::max, 0);
+
+    public MinPQStatistics() {
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LatencyHistogram();
+            siftSteps[i] = new LongAdder();
+            siftedCalls[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records one call of the given operation that took the given number of nanoseconds
+     * and left the PQ with the given size. siftSteps is the number of levels entries moved,
+     * or -1 if the PQ doesn't count them.
+     */
+    public void record(Operation op, long nanos, long siftSteps, int size) {
+        latencies[op.ordinal()].record(nanos);
+        if (siftSteps >= 0) {
+            this.siftSteps[op.ordinal()].add(siftSteps);
+            siftedCalls[op.ordinal()].increment();
+        }
+        maxSize.accumulate(size);
+    }
+
+    /** Returns the latency histogram of the given operation. */
+    public LatencyHistogram latency(Operation op) {
+        return latencies[op.ordinal()];
+    }
+
+    /** Returns a summary of everything recorded so far. */
+    public Snapshot snapshot() {
+        return new Snapshot(this);
+    }
+
+    /** Point-in-time summary of a MinPQStatistics. Field names double as its JSON form. */
+    public static class Snapshot {
+        private final OperationSnapshot add;
+        private final OperationSnapshot removeSmallest;
+        private final OperationSnapshot changePriority;
+        private final long maxSize;
+
+        private Snapshot(MinPQStatistics stats) {
+            add = new OperationSnapshot(stats, Operation.ADD);
+            removeSmallest = new OperationSnapshot(stats, Operation.REMOVE_SMALLEST);
+            changePriority = new OperationSnapshot(stats, Operation.CHANGE_PRIORITY);
+            maxSize = stats.maxSize.get();
+        }
+
+        public OperationSnapshot add() {
+            return add;
+        }
+
+        public OperationSnapshot removeSmallest() {
+            return removeSmallest;
+        }
+
+        public OperationSnapshot changePriority() {
+            return changePriority;
+        }
+
+        /** Returns the largest size any recorded PQ reached. */
+        public long maxSize() {
+            return maxSize;
+        }
+
+        @Override
+        public String toString() {
+            return "add: " + add + "\nremoveSmallest: " + removeSmallest
+                    + "\nchangePriority: " + changePriority + "\nmax size: " + maxSize;
+        }
+    }
+
+    /** Point-in-time summary of one operation. Latencies are in nanoseconds. */
+    public static class OperationSnapshot {
+        private final long count;
+        private final double meanNanos;
+        private final long p50Nanos;
+        private final long p99Nanos;
+        private final long p999Nanos;
+        private final long maxNanos;
+        /* Null if none of the recorded PQs count sift steps. */
+        private final Double averageSiftDepth;
+
+        private OperationSnapshot(MinPQStatistics stats, Operation op) {
+            LatencyHistogram latency = stats.latency(op);
+            count = latency.count();
+            meanNanos = latency.mean();
+            p50Nanos = latency.percentile(50);
+            p99Nanos = latency.percentile(99);
+            p999Nanos = latency.percentile(99.9);
+            maxNanos = latency.max();
+            long calls = stats.siftedCalls[op.ordinal()].sum();
+            averageSiftDepth = calls == 0 ? null
+                    : (double) stats.siftSteps[op.ordinal()].sum() / calls;
+        }
+
+        public long count() {
+            return count;
+        }
+
+        public double meanNanos() {
+            return meanNanos;
+        }
+
+        public long p50Nanos() {
+            return p50Nanos;
+        }
+
+        public long p99Nanos() {
+            return p99Nanos;
+        }
+
+        public long p999Nanos() {
+            return p999Nanos;
+        }
+
+        public long maxNanos() {
+            return maxNanos;
+        }
+
+        /** Returns the mean number of levels moved per call, or null if unknown. */
+        public Double averageSiftDepth() {
+            return averageSiftDepth;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d calls, mean %.0fns, p50 %dns, p99 %dns, p99.9 %dns, "
+                    + "max %dns, sift depth %s", count, meanNanos, p50Nanos, p99Nanos,
+                    p999Nanos, maxNanos,
+                    averageSiftDepth == null ? "n/a" : String.format("%.2f", averageSiftDepth));
+        }
+    }
+}
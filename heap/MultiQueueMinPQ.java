@@ -0,0 +1,212 @@
+package heap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thread-safe, relaxed ExtrinsicMinPQ in the style of a MultiQueue: items are spread over
+ * several independently locked heaps (stripes), so threads rarely wait for each other.
+ * add puts the item in a random stripe that is not locked. removeSmallest picks two random
+ * stripes and removes the smallest item of the one whose smallest priority is lower, so
+ * it returns one of the smallest items with high probability, but not always the smallest.
+ * This is fine for searches that tolerate re-expanding a vertex, and with one stripe the
+ * PQ is exact.
+ *
+ * contains, changePriority and the no-duplicates rule are exact: a concurrent map records
+ * which stripe holds each item, and it is only updated while that stripe is locked.
+ */
+public class MultiQueueMinPQ<T> implements ExtrinsicMinPQ<T> {
+    private final List<Stripe> stripes;
+    private final ConcurrentHashMap<T, Integer> stripeOf;
+    private final AtomicInteger size;
+
+    /** Creates a PQ with two stripes per available processor. */
+    public MultiQueueMinPQ() {
+        this(2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a PQ with the given number of stripes.
+     * @throws IllegalArgumentException if numStripes is less than 1
+     */
+    public MultiQueueMinPQ(int numStripes) {
+        if (numStripes < 1) {
+            throw new IllegalArgumentException("Need at least one stripe: " + numStripes);
+        }
+        stripes = new ArrayList<>(numStripes);
+        for (int i = 0; i < numStripes; i++) {
+            stripes.add(new Stripe());
+        }
+        stripeOf = new ConcurrentHashMap<>();
+        size = new AtomicInteger();
+    }
+
+    /**
+     * Adds an item with the given priority value to a random unlocked stripe.
+     * Assumes that item is never null.
+     * @throws IllegalArgumentException if item is already present in the PQ
+     */
+    @Override
+    public void add(T item, double priority) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int i = random.nextInt(stripes.size());
+        while (!stripes.get(i).lock.tryLock()) {
+            i = random.nextInt(stripes.size());
+        }
+        Stripe stripe = stripes.get(i);
+        try {
+            if (stripeOf.putIfAbsent(item, i) != null) {
+                throw new IllegalArgumentException("Already contains " + item);
+            }
+            stripe.heap.add(item, priority);
+            stripe.update();
+            size.incrementAndGet();
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /** Returns true if the PQ contains the given item; false otherwise. */
+    @Override
+    public boolean contains(T item) {
+        return stripeOf.containsKey(item);
+    }
+
+    /**
+     * Returns the item with the smallest priority among all stripes. Under concurrent
+     * modification the result may already be out of date.
+     * @throws NoSuchElementException if the PQ is empty
+     */
+    @Override
+    public T getSmallest() {
+        while (true) {
+            Stripe best = null;
+            for (Stripe stripe : stripes) {
+                if (best == null || stripe.smallest < best.smallest) {
+                    best = stripe;
+                }
+            }
+            if (best.smallest == Double.POSITIVE_INFINITY) {
+                best = nonEmptyStripe();
+                if (best == null) {
+                    if (size.get() == 0) {
+                        throw new NoSuchElementException("PQ is empty");
+                    }
+                    continue;
+                }
+            }
+            best.lock.lock();
+            try {
+                if (!best.heap.isEmpty()) {
+                    return best.heap.getSmallest();
+                }
+            } finally {
+                best.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Removes and returns an item with one of the smallest priorities, chosen as the
+     * smallest item of the better of two random stripes.
+     * @throws NoSuchElementException if the PQ is empty
+     */
+    @Override
+    public T removeSmallest() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (true) {
+            if (size.get() == 0) {
+                throw new NoSuchElementException("PQ is empty");
+            }
+            Stripe a = stripes.get(random.nextInt(stripes.size()));
+            Stripe b = stripes.get(random.nextInt(stripes.size()));
+            Stripe best = b.smallest < a.smallest ? b : a;
+            if (best.smallest == Double.POSITIVE_INFINITY) {
+                // Both picks look empty (or only hold infinite priorities); scan everything.
+                best = nonEmptyStripe();
+                if (best == null) {
+                    continue;
+                }
+            }
+            if (!best.lock.tryLock()) {
+                continue;
+            }
+            try {
+                if (best.heap.isEmpty()) {
+                    continue;
+                }
+                T smallest = best.heap.removeSmallest();
+                stripeOf.remove(smallest);
+                best.update();
+                size.decrementAndGet();
+                return smallest;
+            } finally {
+                best.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Changes the priority of the given item within the stripe that holds it.
+     * @throws NoSuchElementException if the item is not present in the PQ
+     */
+    @Override
+    public void changePriority(T item, double priority) {
+        while (true) {
+            Integer i = stripeOf.get(item);
+            if (i == null) {
+                throw new NoSuchElementException("PQ does not contain " + item);
+            }
+            Stripe stripe = stripes.get(i);
+            stripe.lock.lock();
+            try {
+                // Between the lookup and the lock, the item may have been removed, or removed
+                // and added again to another stripe. Its entry only changes while its stripe
+                // is locked, so if it still names this stripe, the item is in this heap.
+                if (i.equals(stripeOf.get(item))) {
+                    stripe.heap.changePriority(item, priority);
+                    stripe.update();
+                    return;
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+    }
+
+    /** Returns the number of items in the PQ. */
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    /** Returns any stripe that currently looks non-empty, or null if none do. */
+    private Stripe nonEmptyStripe() {
+        for (Stripe stripe : stripes) {
+            if (stripe.count > 0) {
+                return stripe;
+            }
+        }
+        return null;
+    }
+
+    private class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final PrimitiveHeapMinPQ<T> heap = new PrimitiveHeapMinPQ<>();
+        /* Copies of the heap's size and smallest priority (infinity when empty) that can be
+         * read without the lock. */
+        private volatile int count = 0;
+        private volatile double smallest = Double.POSITIVE_INFINITY;
+
+        /** Refreshes count and smallest. Must be called with the lock held. */
+        void update() {
+            count = heap.size();
+            smallest = heap.isEmpty() ? Double.POSITIVE_INFINITY : heap.getSmallestPriority();
+        }
+    }
+}
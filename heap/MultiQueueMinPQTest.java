@@ -0,0 +1,100 @@
+package heap;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MultiQueueMinPQTest {
+
+    @Test (expected = IllegalArgumentException.class)
+    public void testAddDuplicateAcrossStripes() {
+        MultiQueueMinPQ<Integer> actual = new MultiQueueMinPQ<>(8);
+        actual.add(1, 1);
+        actual.add(1, 2);
+    }
+
+    @Test (expected = NoSuchElementException.class)
+    public void testRemoveSmallestEmpty() {
+        MultiQueueMinPQ<Integer> actual = new MultiQueueMinPQ<>(8);
+        actual.removeSmallest();
+    }
+
+    /** With a single stripe the PQ is exact. */
+    @Test
+    public void testSingleStripe() {
+        Random r = new Random(373);
+        int num = 5000;
+        MultiQueueMinPQ<Integer> testing = new MultiQueueMinPQ<>(1);
+        NaiveMinPQ<Integer> expected = new NaiveMinPQ<>();
+        for (int i = 0; i < num; i++) {
+            double priority = r.nextDouble();
+            testing.add(i, priority);
+            expected.add(i, priority);
+        }
+        for (int i = 0; i < num; i += 2) {
+            double priority = r.nextDouble();
+            testing.changePriority(i, priority);
+            expected.changePriority(i, priority);
+        }
+        for (int i = 0; i < num; i++) {
+            int actual = testing.removeSmallest();
+            int expect = expected.removeSmallest();
+            assertEquals("Fail on iteration " + i, expect, actual);
+        }
+        assertTrue(testing.isEmpty());
+    }
+
+    /** Several threads add disjoint items, then all of them drain the PQ together. */
+    @Test
+    public void testConcurrentAddAndRemove() throws InterruptedException {
+        int threads = 4;
+        int perThread = 20000;
+        MultiQueueMinPQ<Integer> testing = new MultiQueueMinPQ<>(8);
+        AtomicIntegerArray removed = new AtomicIntegerArray(threads * perThread);
+
+        List<Thread> adders = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t * perThread;
+            adders.add(new Thread(() -> {
+                Random r = new Random(offset);
+                for (int i = 0; i < perThread; i++) {
+                    testing.add(offset + i, r.nextDouble());
+                }
+            }));
+        }
+        runAll(adders);
+        assertEquals(threads * perThread, testing.size());
+
+        List<Thread> removers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            removers.add(new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    removed.incrementAndGet(testing.removeSmallest());
+                }
+            }));
+        }
+        runAll(removers);
+        assertTrue(testing.isEmpty());
+        for (int i = 0; i < removed.length(); i++) {
+            assertEquals("Item " + i + " removed the wrong number of times", 1, removed.get(i));
+            assertFalse(testing.contains(i));
+        }
+    }
+
+    private static void runAll(List<Thread> threads) throws InterruptedException {
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+}
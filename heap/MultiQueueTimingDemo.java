@@ -0,0 +1,100 @@
+package heap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * Measures the throughput of MultiQueueMinPQ against a PrimitiveHeapMinPQ behind a single
+ * lock as the number of threads grows from 1 to the number of available processors (at
+ * least 4). Each thread runs a Dijkstra-like mix of operations on its own items: it adds
+ * two items, lowers the priority of one of them, and removes the smallest.
+ */
+public class MultiQueueTimingDemo {
+    private static final int OPS_PER_THREAD = 1000000;
+
+    public static void main(String[] args) throws InterruptedException {
+        int maxThreads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        System.out.println("Available processors: " + Runtime.getRuntime().availableProcessors());
+
+        // Warm up the JIT on both queues.
+        throughput(new MultiQueueMinPQ<>(), 2);
+        throughput(new LockedMinPQ<>(), 2);
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            System.out.printf("%d threads: MultiQueueMinPQ %.2f Mops/s, single lock %.2f Mops/s%n",
+                    threads, throughput(new MultiQueueMinPQ<>(2 * threads), threads),
+                    throughput(new LockedMinPQ<>(), threads));
+        }
+    }
+
+    /** Returns the millions of operations per second that threads workers reach on pq. */
+    private static double throughput(ExtrinsicMinPQ<Long> pq, int threads)
+            throws InterruptedException {
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long offset = (long) t * OPS_PER_THREAD;
+            workers.add(new Thread(() -> {
+                Random r = new Random(offset);
+                long next = offset;
+                for (int i = 0; i < OPS_PER_THREAD; i += 4) {
+                    long a = next++;
+                    long b = next++;
+                    double priority = r.nextDouble();
+                    pq.add(a, priority);
+                    pq.add(b, priority + r.nextDouble());
+                    try {
+                        pq.changePriority(b, priority / 2);
+                    } catch (NoSuchElementException e) {
+                        // Another thread already removed b.
+                    }
+                    pq.removeSmallest();
+                }
+            }));
+        }
+        long start = System.nanoTime();
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        return threads * (double) OPS_PER_THREAD / seconds / 1e6;
+    }
+
+    /** PrimitiveHeapMinPQ with every operation behind one lock, as a baseline. */
+    private static class LockedMinPQ<T> implements ExtrinsicMinPQ<T> {
+        private final PrimitiveHeapMinPQ<T> pq = new PrimitiveHeapMinPQ<>();
+
+        @Override
+        public synchronized void add(T item, double priority) {
+            pq.add(item, priority);
+        }
+
+        @Override
+        public synchronized boolean contains(T item) {
+            return pq.contains(item);
+        }
+
+        @Override
+        public synchronized T getSmallest() {
+            return pq.getSmallest();
+        }
+
+        @Override
+        public synchronized T removeSmallest() {
+            return pq.removeSmallest();
+        }
+
+        @Override
+        public synchronized void changePriority(T item, double priority) {
+            pq.changePriority(item, priority);
+        }
+
+        @Override
+        public synchronized int size() {
+            return pq.size();
+        }
+    }
+}
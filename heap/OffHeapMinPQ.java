@@ -0,0 +1,361 @@
+package heap;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * ExtrinsicMinPQ of long ids whose heap and id-to-index table live outside the Java heap,
+ * in direct ByteBuffers. The garbage collector sees only a few hundred buffer objects
+ * however many entries there are, so a frontier of 100M+ entries neither fills the Java
+ * heap nor lengthens GC pauses.
+ *
+ * Heap entries are 20 bytes (priority, id, table position) stored in pages of 2^16 entries
+ * starting at index 1; the heap grows by adding pages, never by copying. The table is an
+ * open-addressing hash table of 16-byte slots (id, heap index) with linear probing, kept at
+ * most 3/4 full; it has to be rehashed when it grows, so pass the expected size to the
+ * constructor to avoid that pause. Direct buffers are freed when they become unreachable.
+ * The JVM caps direct memory at the maximum heap size by default; raise the cap with
+ * -XX:MaxDirectMemorySize (about 50 bytes per entry are needed at the largest table size).
+ *
+ * The long-typed methods (add(long, double), removeSmallestId and so on) don't box.
+ */
+public class OffHeapMinPQ implements ExtrinsicMinPQ<Long> {
+    private static final int PAGE_BITS = 16;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private static final int ENTRY_BYTES = 20;
+    private static final int PRIORITY = 0;
+    private static final int ID = 8;
+    private static final int TABLE_POS = 16;
+
+    private static final int SLOT_BYTES = 16;
+    private static final int KEY = 0;
+    /* Heap index of the slot's id, or 0 if the slot is empty. */
+    private static final int INDEX = 8;
+
+    private static final int MIN_TABLE_SIZE = 16;
+    private static final int MAX_TABLE_SIZE = 1 << 30;
+
+    private ByteBuffer[] heapPages;
+    private int size;
+
+    private ByteBuffer[] tablePages;
+    private int mask;
+
+    public OffHeapMinPQ() {
+        this(0);
+    }
+
+    /** Creates an empty PQ whose table can hold expectedSize ids without being rehashed. */
+    public OffHeapMinPQ(long expectedSize) {
+        heapPages = new ByteBuffer[0];
+        long tableSize = MIN_TABLE_SIZE;
+        while (tableSize * 3 / 4 < expectedSize && tableSize < MAX_TABLE_SIZE) {
+            tableSize *= 2;
+        }
+        allocateTable((int) tableSize);
+    }
+
+    /**
+     * Adds an id with the given priority value.
+     * Runs in O(log N) time (except when the table is rehashed).
+     * @throws IllegalArgumentException if id is already present in the PQ
+     */
+    public void add(long id, double priority) {
+        if (contains(id)) {
+            throw new IllegalArgumentException("Already contains " + id);
+        }
+        if (size + 1 == Integer.MAX_VALUE) {
+            throw new IllegalStateException("PQ is full");
+        }
+        if ((size + 1) >>> PAGE_BITS >= heapPages.length) {
+            heapPages = Arrays.copyOf(heapPages, heapPages.length + 1);
+            heapPages[heapPages.length - 1] = allocate(PAGE_SIZE * ENTRY_BYTES);
+        }
+        if ((long) (size + 1) * 4 > (long) (mask + 1) * 3) {
+            resizeTable((mask + 1) * 2L);
+        }
+        size++;
+        int pos = probe(id);
+        setKey(pos, id);
+        setIndex(pos, size);
+        place(size, priority, id, pos);
+        swim(size);
+    }
+
+    /** Returns true if the PQ contains the given id; false otherwise. */
+    public boolean contains(long id) {
+        return index(probe(id)) != 0;
+    }
+
+    /**
+     * Returns the id with the smallest priority.
+     * @throws NoSuchElementException if the PQ is empty
+     */
+    public long getSmallestId() {
+        if (size == 0) {
+            throw new NoSuchElementException("PQ is empty");
+        }
+        return id(1);
+    }
+
+    /**
+     * Returns the smallest priority in the PQ.
+     * @throws NoSuchElementException if the PQ is empty
+     */
+    public double getSmallestPriority() {
+        if (size == 0) {
+            throw new NoSuchElementException("PQ is empty");
+        }
+        return priority(1);
+    }
+
+    /**
+     * Removes and returns the id with the smallest priority.
+     * Runs in O(log N) time.
+     * @throws NoSuchElementException if the PQ is empty
+     */
+    public long removeSmallestId() {
+        long smallest = getSmallestId();
+        // Removing from the table can move other slots, so read the last entry afterwards.
+        removeFromTable(tablePos(1));
+        if (size > 1) {
+            place(1, priority(size), id(size), tablePos(size));
+            size--;
+            sink(1);
+        } else {
+            size--;
+        }
+        return smallest;
+    }
+
+    /**
+     * Changes the priority of the given id.
+     * Runs in O(log N) time.
+     * @throws NoSuchElementException if the id is not present in the PQ
+     */
+    public void changePriority(long id, double priority) {
+        int pos = probe(id);
+        int index = index(pos);
+        if (index == 0) {
+            throw new NoSuchElementException("PQ does not contain " + id);
+        }
+        double old = priority(index);
+        setPriority(index, priority);
+        if (priority < old) {
+            swim(index);
+        } else {
+            sink(index);
+        }
+    }
+
+    @Override
+    public void add(Long item, double priority) {
+        add(item.longValue(), priority);
+    }
+
+    @Override
+    public boolean contains(Long item) {
+        return contains(item.longValue());
+    }
+
+    @Override
+    public Long getSmallest() {
+        return getSmallestId();
+    }
+
+    @Override
+    public Long removeSmallest() {
+        return removeSmallestId();
+    }
+
+    @Override
+    public void changePriority(Long item, double priority) {
+        changePriority(item.longValue(), priority);
+    }
+
+    /** Returns the number of ids in the PQ. */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /** Removes every id, keeping the pages already allocated. Runs in O(table size) time. */
+    @Override
+    public void clear() {
+        for (int pos = 0; pos <= mask; pos++) {
+            setIndex(pos, 0);
+        }
+        size = 0;
+    }
+
+    /*
+     * swim and sink lift the moving entry out, shift the entries it passes by one level
+     * and drop it into its final index, instead of swapping at every level.
+     */
+
+    private void swim(int index) {
+        double priority = priority(index);
+        long id = id(index);
+        int pos = tablePos(index);
+        while (index > 1 && priority < priority(index / 2)) {
+            move(index / 2, index);
+            index /= 2;
+        }
+        place(index, priority, id, pos);
+    }
+
+    private void sink(int index) {
+        double priority = priority(index);
+        long id = id(index);
+        int pos = tablePos(index);
+        while (index <= size / 2) {
+            int child = index * 2;
+            if (child < size && priority(child + 1) < priority(child)) {
+                child++;
+            }
+            if (priority(child) >= priority) {
+                break;
+            }
+            move(child, index);
+            index = child;
+        }
+        place(index, priority, id, pos);
+    }
+
+    /** Copies the entry at heap index from to heap index to, fixing up the table. */
+    private void move(int from, int to) {
+        place(to, priority(from), id(from), tablePos(from));
+    }
+
+    private void place(int index, double priority, long id, int pos) {
+        ByteBuffer page = page(index);
+        int entry = entry(index);
+        page.putDouble(entry + PRIORITY, priority);
+        page.putLong(entry + ID, id);
+        page.putInt(entry + TABLE_POS, pos);
+        setIndex(pos, index);
+    }
+
+    private ByteBuffer page(int index) {
+        return heapPages[index >>> PAGE_BITS];
+    }
+
+    /** Returns the byte offset of heap index within its page. */
+    private static int entry(int index) {
+        return (index & PAGE_MASK) * ENTRY_BYTES;
+    }
+
+    private double priority(int index) {
+        return page(index).getDouble(entry(index) + PRIORITY);
+    }
+
+    private void setPriority(int index, double priority) {
+        page(index).putDouble(entry(index) + PRIORITY, priority);
+    }
+
+    private long id(int index) {
+        return page(index).getLong(entry(index) + ID);
+    }
+
+    private int tablePos(int index) {
+        return page(index).getInt(entry(index) + TABLE_POS);
+    }
+
+    private void setTablePos(int index, int pos) {
+        page(index).putInt(entry(index) + TABLE_POS, pos);
+    }
+
+    /**
+     * Returns the table position holding id, or the empty position where it would be
+     * inserted if it is not present.
+     */
+    private int probe(long id) {
+        int pos = hash(id) & mask;
+        while (index(pos) != 0 && key(pos) != id) {
+            pos = (pos + 1) & mask;
+        }
+        return pos;
+    }
+
+    /** Mixes all 64 bits of the id so that sequential ids don't cluster. */
+    private static int hash(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Empties the given table position, shifting later entries of the same probe run back
+     * so that lookups never stop early at the hole.
+     */
+    private void removeFromTable(int hole) {
+        setIndex(hole, 0);
+        int pos = (hole + 1) & mask;
+        while (index(pos) != 0) {
+            int home = hash(key(pos)) & mask;
+            // Move the entry into the hole unless its home lies cyclically in (hole, pos].
+            if (((pos - home) & mask) >= ((pos - hole) & mask)) {
+                setKey(hole, key(pos));
+                setIndex(hole, index(pos));
+                setTablePos(index(hole), hole);
+                setIndex(pos, 0);
+                hole = pos;
+            }
+            pos = (pos + 1) & mask;
+        }
+    }
+
+    private ByteBuffer tablePage(int pos) {
+        return tablePages[pos >>> PAGE_BITS];
+    }
+
+    /** Returns the byte offset of table position pos within its page. */
+    private static int slot(int pos) {
+        return (pos & PAGE_MASK) * SLOT_BYTES;
+    }
+
+    private long key(int pos) {
+        return tablePage(pos).getLong(slot(pos) + KEY);
+    }
+
+    private void setKey(int pos, long id) {
+        tablePage(pos).putLong(slot(pos) + KEY, id);
+    }
+
+    private int index(int pos) {
+        return tablePage(pos).getInt(slot(pos) + INDEX);
+    }
+
+    private void setIndex(int pos, int index) {
+        tablePage(pos).putInt(slot(pos) + INDEX, index);
+    }
+
+    private void allocateTable(int tableSize) {
+        int pageSlots = Math.min(tableSize, PAGE_SIZE);
+        tablePages = new ByteBuffer[tableSize / pageSlots];
+        for (int i = 0; i < tablePages.length; i++) {
+            tablePages[i] = allocate(pageSlots * SLOT_BYTES);
+        }
+        mask = tableSize - 1;
+    }
+
+    private void resizeTable(long tableSize) {
+        if (tableSize > MAX_TABLE_SIZE) {
+            throw new IllegalStateException("PQ is full");
+        }
+        allocateTable((int) tableSize);
+        for (int i = 1; i <= size; i++) {
+            int pos = probe(id(i));
+            setKey(pos, id(i));
+            setIndex(pos, i);
+            setTablePos(i, pos);
+        }
+    }
+
+    private static ByteBuffer allocate(int bytes) {
+        return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    }
+}
@@ -0,0 +1,83 @@
+package heap;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class OffHeapMinPQTest {
+
+    @Test (expected = IllegalArgumentException.class)
+    public void testAddDuplicate() {
+        OffHeapMinPQ actual = new OffHeapMinPQ();
+        actual.add(1L, 1);
+        actual.add(1L, 2);
+    }
+
+    @Test (expected = NoSuchElementException.class)
+    public void testChangePriorityMissing() {
+        OffHeapMinPQ actual = new OffHeapMinPQ();
+        actual.add(1L, 1);
+        actual.changePriority(2L, 1);
+    }
+
+    @Test
+    public void testRandomOperation() {
+        // Enough entries to span several heap and table pages, with ids from all over the
+        // long range (including negative ones) as OSM ids can be.
+        Random r = new Random(373);
+        OffHeapMinPQ testing = new OffHeapMinPQ();
+        PrimitiveHeapMinPQ<Long> expected = new PrimitiveHeapMinPQ<>();
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 300000; i++) {
+            int op = r.nextInt(5);
+            if (op <= 1 || ids.isEmpty()) {
+                long id = r.nextLong();
+                double priority = r.nextDouble();
+                testing.add(id, priority);
+                expected.add(id, priority);
+                ids.add(id);
+            } else if (op == 2) {
+                long actual = testing.removeSmallestId();
+                assertEquals("removeSmallest fail on iteration " + i,
+                        (long) expected.removeSmallest(), actual);
+                assertFalse(testing.contains(actual));
+            } else if (op == 3) {
+                long id = ids.get(r.nextInt(ids.size()));
+                if (expected.contains(id)) {
+                    double priority = r.nextDouble();
+                    testing.changePriority(id, priority);
+                    expected.changePriority(id, priority);
+                } else {
+                    assertFalse(testing.contains(id));
+                }
+            } else {
+                assertEquals(expected.getSmallest(), testing.getSmallest());
+            }
+            assertEquals(expected.size(), testing.size());
+        }
+        while (!expected.isEmpty()) {
+            assertEquals(expected.removeSmallest(), testing.removeSmallest());
+        }
+    }
+
+    @Test
+    public void testClear() {
+        OffHeapMinPQ pq = new OffHeapMinPQ(1000);
+        for (long id = 0; id < 1000; id++) {
+            pq.add(id, -id);
+        }
+        assertEquals(999L, pq.getSmallestId());
+        pq.clear();
+        assertTrue(pq.isEmpty());
+        assertFalse(pq.contains(5L));
+        pq.add(5L, 1);
+        assertEquals(5L, pq.removeSmallestId());
+    }
+}
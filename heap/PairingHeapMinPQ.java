@@ -0,0 +1,194 @@
+package heap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Pairing heap implementation of ExtrinsicMinPQ. Each item maps to its node, so
+ * changePriority can cut the node out of the tree and meld it back into the root.
+ * Decreasing a priority this way is O(1) amortized; add is O(1) and removeSmallest
+ * is O(log N) amortized.
+ */
+public class PairingHeapMinPQ<T> implements ExtrinsicMinPQ<T> {
+    private Node root;
+    private Map<T, Node> nodes;
+    /* Reused by combine so that removeSmallest doesn't allocate a new list each time. */
+    private List<Node> pairs;
+
+    public PairingHeapMinPQ() {
+        nodes = new HashMap<>();
+        pairs = new ArrayList<>();
+    }
+
+    /**
+     * Adds an item with the given priority value.
+     * Assumes that item is never null.
+     * Runs in O(1) time.
+     * @throws IllegalArgumentException if item is already present in the PQ
+     */
+    @Override
+    public void add(T item, double priority) {
+        if (contains(item)) {
+            throw new IllegalArgumentException("Already contains " + item);
+        }
+        Node node = new Node(item, priority);
+        nodes.put(item, node);
+        root = meld(root, node);
+    }
+
+    /** Returns true if the PQ contains the given item; false otherwise. */
+    @Override
+    public boolean contains(T item) {
+        return nodes.containsKey(item);
+    }
+
+    /**
+     * Returns the item with the smallest priority.
+     * Runs in O(1) time.
+     * @throws NoSuchElementException if the PQ is empty
+     */
+    @Override
+    public T getSmallest() {
+        if (root == null) {
+            throw new NoSuchElementException("PQ is empty");
+        }
+        return root.item;
+    }
+
+    /**
+     * Removes and returns the item with the smallest priority.
+     * Runs in O(log N) amortized time.
+     * @throws NoSuchElementException if the PQ is empty
+     */
+    @Override
+    public T removeSmallest() {
+        if (root == null) {
+            throw new NoSuchElementException("PQ is empty");
+        }
+        T smallest = root.item;
+        nodes.remove(smallest);
+        root = combine(root.child);
+        return smallest;
+    }
+
+    /**
+     * Changes the priority of the given item.
+     * Runs in O(1) amortized time when the priority decreases, and O(log N) amortized
+     * time when it increases.
+     * @throws NoSuchElementException if the item is not present in the PQ
+     */
+    @Override
+    public void changePriority(T item, double priority) {
+        Node node = nodes.get(item);
+        if (node == null) {
+            throw new NoSuchElementException("PQ does not contain " + item);
+        }
+        if (priority < node.priority) {
+            node.priority = priority;
+            if (node != root) {
+                cut(node);
+                root = meld(root, node);
+            }
+        } else {
+            // The node's children may now be smaller than it, so pull them out first.
+            node.priority = priority;
+            if (node == root) {
+                root = combine(node.child);
+            } else {
+                cut(node);
+                root = meld(root, combine(node.child));
+            }
+            node.child = null;
+            root = meld(root, node);
+        }
+    }
+
+    /** Returns the number of items in the PQ. */
+    @Override
+    public int size() {
+        return nodes.size();
+    }
+
+    /** Links two trees, making the root with the larger priority the first child of the other. */
+    private Node meld(Node a, Node b) {
+        if (a == null) {
+            return b;
+        } else if (b == null) {
+            return a;
+        }
+        if (b.priority < a.priority) {
+            Node temp = a;
+            a = b;
+            b = temp;
+        }
+        b.prev = a;
+        b.sibling = a.child;
+        if (a.child != null) {
+            a.child.prev = b;
+        }
+        a.child = b;
+        a.prev = null;
+        a.sibling = null;
+        return a;
+    }
+
+    /** Detaches the subtree rooted at node (which is not the root) from its parent. */
+    private void cut(Node node) {
+        if (node.prev.child == node) {
+            node.prev.child = node.sibling;
+        } else {
+            node.prev.sibling = node.sibling;
+        }
+        if (node.sibling != null) {
+            node.sibling.prev = node.prev;
+        }
+        node.prev = null;
+        node.sibling = null;
+    }
+
+    /**
+     * Combines a list of siblings into a single tree with the standard two-pass method:
+     * meld pairs left to right, then meld the results right to left.
+     */
+    private Node combine(Node first) {
+        if (first == null) {
+            return null;
+        }
+        pairs.clear();
+        while (first != null) {
+            Node a = first;
+            Node b = a.sibling;
+            first = b == null ? null : b.sibling;
+            a.prev = null;
+            a.sibling = null;
+            if (b != null) {
+                b.prev = null;
+                b.sibling = null;
+            }
+            pairs.add(meld(a, b));
+        }
+        Node result = pairs.get(pairs.size() - 1);
+        for (int i = pairs.size() - 2; i >= 0; i--) {
+            result = meld(pairs.get(i), result);
+        }
+        pairs.clear();
+        return result;
+    }
+
+    private class Node {
+        private T item;
+        private double priority;
+        private Node child;
+        private Node sibling;
+        /* The parent if this is the first child, otherwise the previous sibling. */
+        private Node prev;
+
+        Node(T item, double priority) {
+            this.item = item;
+            this.priority = priority;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package heap;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PairingHeapMinPQTest {
+
+    @Test (expected = IllegalArgumentException.class)
+    public void testAddDuplicate() {
+        PairingHeapMinPQ<Integer> actual = new PairingHeapMinPQ<>();
+        actual.add(1, 1);
+        actual.add(1, 2);
+    }
+
+    @Test (expected = NoSuchElementException.class)
+    public void testRemoveSmallestEmpty() {
+        PairingHeapMinPQ<Integer> actual = new PairingHeapMinPQ<>();
+        actual.removeSmallest();
+    }
+
+    @Test (expected = NoSuchElementException.class)
+    public void testChangePriorityMissing() {
+        PairingHeapMinPQ<Integer> actual = new PairingHeapMinPQ<>();
+        actual.add(1, 1);
+        actual.changePriority(2, 1);
+    }
+
+    @Test
+    public void testIncreaseAndDecrease() {
+        PairingHeapMinPQ<String> actual = new PairingHeapMinPQ<>();
+        actual.add("a", 1);
+        actual.add("b", 2);
+        actual.add("c", 3);
+        actual.add("d", 4);
+        actual.removeSmallest(); // forces b, c and d into a single tree
+        actual.changePriority("b", 10); // increase the root
+        assertEquals("c", actual.getSmallest());
+        actual.changePriority("d", 0); // decrease a non-root
+        assertEquals("d", actual.removeSmallest());
+        actual.changePriority("c", 20); // increase the only child's parent
+        assertEquals("b", actual.removeSmallest());
+        assertEquals("c", actual.removeSmallest());
+        assertTrue(actual.isEmpty());
+        assertFalse(actual.contains("a"));
+    }
+
+    @Test
+    public void testRandomOperation() {
+        int seed = 143;
+        int iteration = 20000;
+        int max = 1000000;
+        Random r = new Random(seed);
+        PairingHeapMinPQ<Integer> testing = new PairingHeapMinPQ<>();
+        NaiveMinPQ<Integer> expected = new NaiveMinPQ<>();
+        List<Integer> itemList = new ArrayList<>();
+        Set<Integer> prioritySet = new HashSet<>();
+
+        for (int i = 0; i < iteration; i++) {
+            int item = r.nextInt(max);
+            int priority = r.nextInt(max);
+            while (expected.contains(item) || prioritySet.contains(priority)) {
+                item = r.nextInt(max);
+                priority = r.nextInt(max);
+            }
+            int op = r.nextInt(4);
+            if (op == 0 || op == 1) { // add
+                testing.add(item, priority);
+                expected.add(item, priority);
+                itemList.add(item);
+                prioritySet.add(priority);
+            } else if (op == 2) { // remove
+                if (testing.size() == 0) {
+                    continue;
+                }
+                int actual = testing.removeSmallest();
+                int expect = expected.removeSmallest();
+                itemList.remove((Integer) actual);
+                assertEquals("removeSmallest fail on iteration " + i, expect, actual);
+                assertFalse(testing.contains(actual));
+            } else { // change priority
+                if (itemList.isEmpty()) {
+                    continue;
+                }
+                int target = itemList.get(r.nextInt(itemList.size()));
+                testing.changePriority(target, priority);
+                expected.changePriority(target, priority);
+                prioritySet.add(priority);
+            }
+            assertEquals("size fail on iteration " + i, expected.size(), testing.size());
+        }
+
+        while (expected.size() > 0) {
+            int expect = expected.removeSmallest();
+            int actual = testing.removeSmallest();
+            assertEquals(expect, actual);
+        }
+    }
+}
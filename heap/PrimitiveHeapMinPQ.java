@@ -0,0 +1,261 @@
+package heap;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Array heap that keeps priorities in a double[] and items in a parallel Object[]
+ * instead of one PriorityNode per entry. The item-to-slot index is an open-addressing
+ * hash table with linear probing, so no boxed Integers are created either.
+ * Once the arrays have grown to fit the largest queue size, add, removeSmallest and
+ * changePriority do not allocate.
+ */
+public class PrimitiveHeapMinPQ<T> implements ExtrinsicMinPQ<T>, SiftCounting {
+    private static final int INITIAL_CAPACITY = 16;
+
+    /* The heap itself, starting at index 1. */
+    private double[] priorities;
+    private Object[] items;
+    /* tablePos[i] is the position in keys/slots of the item at heap index i. */
+    private int[] tablePos;
+    private int size;
+
+    /* Open-addressing index from item to heap index. Load factor is kept at or below 1/2. */
+    private Object[] keys;
+    private int[] slots;
+    private int mask;
+    private long siftSteps;
+
+    public PrimitiveHeapMinPQ() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /** Creates an empty PQ that can hold capacity items before it needs to resize. */
+    public PrimitiveHeapMinPQ(int capacity) {
+        if (capacity < 1) {
+            capacity = 1;
+        }
+        priorities = new double[capacity + 1];
+        items = new Object[capacity + 1];
+        tablePos = new int[capacity + 1];
+        int tableSize = Integer.highestOneBit(capacity * 2 - 1) << 1;
+        keys = new Object[tableSize];
+        slots = new int[tableSize];
+        mask = tableSize - 1;
+    }
+
+    /**
+     * Adds an item with the given priority value.
+     * Assumes that item is never null.
+     * Runs in O(log N) time (except when resizing).
+     * @throws IllegalArgumentException if item is already present in the PQ
+     */
+    @Override
+    public void add(T item, double priority) {
+        if (contains(item)) {
+            throw new IllegalArgumentException("Already contains " + item);
+        }
+        if (size + 1 == items.length) {
+            resizeHeap(items.length * 2);
+        }
+        if ((size + 1) * 2 > keys.length) {
+            resizeTable(keys.length * 2);
+        }
+        size++;
+        items[size] = item;
+        priorities[size] = priority;
+        int pos = probe(item);
+        keys[pos] = item;
+        slots[pos] = size;
+        tablePos[size] = pos;
+        swim(size);
+    }
+
+    /**
+     * Returns true if the PQ contains the given item; false otherwise.
+     * Runs in O(1) expected time.
+     */
+    @Override
+    public boolean contains(T item) {
+        return keys[probe(item)] != null;
+    }
+
+    /**
+     * Returns the item with the smallest priority.
+     * Runs in O(1) time.
+     * @throws NoSuchElementException if the PQ is empty
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public T getSmallest() {
+        if (size == 0) {
+            throw new NoSuchElementException("PQ is empty");
+        }
+        return (T) items[1];
+    }
+
+    /**
+     * Returns the smallest priority in the PQ.
+     * @throws NoSuchElementException if the PQ is empty
+     */
+    double getSmallestPriority() {
+        if (size == 0) {
+            throw new NoSuchElementException("PQ is empty");
+        }
+        return priorities[1];
+    }
+
+    /**
+     * Removes and returns the item with the smallest priority.
+     * Runs in O(log N) time.
+     * @throws NoSuchElementException if the PQ is empty
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public T removeSmallest() {
+        if (size == 0) {
+            throw new NoSuchElementException("PQ is empty");
+        }
+        T smallest = (T) items[1];
+        swap(1, size);
+        removeFromTable(tablePos[size]);
+        items[size] = null;
+        size--;
+        sink(1);
+        return smallest;
+    }
+
+    /**
+     * Changes the priority of the given item.
+     * Runs in O(log N) time.
+     * @throws NoSuchElementException if the item is not present in the PQ
+     */
+    @Override
+    public void changePriority(T item, double priority) {
+        int pos = probe(item);
+        if (keys[pos] == null) {
+            throw new NoSuchElementException("PQ does not contain " + item);
+        }
+        int index = slots[pos];
+        double old = priorities[index];
+        priorities[index] = priority;
+        if (priority < old) {
+            swim(index);
+        } else {
+            sink(index);
+        }
+    }
+
+    /**
+     * Returns the number of items in the PQ.
+     * Runs in O(1) time.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long siftSteps() {
+        return siftSteps;
+    }
+
+    private void swim(int index) {
+        while (index > 1 && priorities[index] < priorities[index / 2]) {
+            swap(index, index / 2);
+            index /= 2;
+            siftSteps++;
+        }
+    }
+
+    private void sink(int index) {
+        while (index * 2 <= size) {
+            int child = index * 2;
+            if (child < size && priorities[child + 1] < priorities[child]) {
+                child++;
+            }
+            if (priorities[child] < priorities[index]) {
+                swap(child, index);
+                index = child;
+                siftSteps++;
+            } else {
+                break;
+            }
+        }
+    }
+
+    /** Swaps the entries at heap indices a and b, fixing up the index without hashing. */
+    private void swap(int a, int b) {
+        double tempPriority = priorities[a];
+        priorities[a] = priorities[b];
+        priorities[b] = tempPriority;
+
+        Object tempItem = items[a];
+        items[a] = items[b];
+        items[b] = tempItem;
+
+        int tempPos = tablePos[a];
+        tablePos[a] = tablePos[b];
+        tablePos[b] = tempPos;
+
+        slots[tablePos[a]] = a;
+        slots[tablePos[b]] = b;
+    }
+
+    /**
+     * Returns the table position holding item, or the empty position where it would be
+     * inserted if it is not present.
+     */
+    private int probe(Object item) {
+        int pos = hash(item) & mask;
+        while (keys[pos] != null && !keys[pos].equals(item)) {
+            pos = (pos + 1) & mask;
+        }
+        return pos;
+    }
+
+    /** Spreads the high bits of the hash code so that sequential keys don't cluster. */
+    private static int hash(Object item) {
+        int h = item.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Empties the given table position, shifting later entries of the same probe run back
+     * so that lookups never stop early at the hole.
+     */
+    private void removeFromTable(int hole) {
+        keys[hole] = null;
+        int pos = (hole + 1) & mask;
+        while (keys[pos] != null) {
+            int home = hash(keys[pos]) & mask;
+            // Move the entry into the hole unless its home lies cyclically in (hole, pos].
+            if (((pos - home) & mask) >= ((pos - hole) & mask)) {
+                keys[hole] = keys[pos];
+                slots[hole] = slots[pos];
+                tablePos[slots[hole]] = hole;
+                keys[pos] = null;
+                hole = pos;
+            }
+            pos = (pos + 1) & mask;
+        }
+    }
+
+    private void resizeHeap(int capacity) {
+        priorities = Arrays.copyOf(priorities, capacity);
+        items = Arrays.copyOf(items, capacity);
+        tablePos = Arrays.copyOf(tablePos, capacity);
+    }
+
+    private void resizeTable(int tableSize) {
+        keys = new Object[tableSize];
+        slots = new int[tableSize];
+        mask = tableSize - 1;
+        for (int i = 1; i <= size; i++) {
+            int pos = probe(items[i]);
+            keys[pos] = items[i];
+            slots[pos] = i;
+            tablePos[i] = pos;
+        }
+    }
+}
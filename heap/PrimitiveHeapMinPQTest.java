@@ -0,0 +1,102 @@
+package heap;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PrimitiveHeapMinPQTest {
+
+    @Test (expected = IllegalArgumentException.class)
+    public void testAddDuplicate() {
+        PrimitiveHeapMinPQ<Integer> actual = new PrimitiveHeapMinPQ<>();
+        actual.add(1, 1);
+        actual.add(1, 2);
+    }
+
+    @Test (expected = NoSuchElementException.class)
+    public void testRemoveSmallestEmpty() {
+        PrimitiveHeapMinPQ<Integer> actual = new PrimitiveHeapMinPQ<>();
+        actual.removeSmallest();
+    }
+
+    @Test (expected = NoSuchElementException.class)
+    public void testChangePriorityMissing() {
+        PrimitiveHeapMinPQ<Integer> actual = new PrimitiveHeapMinPQ<>();
+        actual.add(1, 1);
+        actual.changePriority(2, 1);
+    }
+
+    @Test
+    public void testContainsAfterRemove() {
+        PrimitiveHeapMinPQ<String> actual = new PrimitiveHeapMinPQ<>(1);
+        actual.add("b", 2);
+        actual.add("a", 1);
+        actual.add("c", 3);
+        assertEquals("a", actual.removeSmallest());
+        assertFalse(actual.contains("a"));
+        assertTrue(actual.contains("b"));
+        assertTrue(actual.contains("c"));
+        assertEquals(2, actual.size());
+    }
+
+    @Test
+    public void testRandomOperation() {
+        int seed = 373;
+        int iteration = 20000;
+        int max = 1000000;
+        Random r = new Random(seed);
+        PrimitiveHeapMinPQ<Integer> testing = new PrimitiveHeapMinPQ<>();
+        NaiveMinPQ<Integer> expected = new NaiveMinPQ<>();
+        List<Integer> itemList = new ArrayList<>();
+        Set<Integer> prioritySet = new HashSet<>();
+
+        for (int i = 0; i < iteration; i++) {
+            int item = r.nextInt(max);
+            int priority = r.nextInt(max);
+            while (expected.contains(item) || prioritySet.contains(priority)) {
+                item = r.nextInt(max);
+                priority = r.nextInt(max);
+            }
+            int op = r.nextInt(4);
+            if (op == 0 || op == 1) { // add
+                testing.add(item, priority);
+                expected.add(item, priority);
+                itemList.add(item);
+                prioritySet.add(priority);
+            } else if (op == 2) { // remove
+                if (testing.size() == 0) {
+                    continue;
+                }
+                int actual = testing.removeSmallest();
+                int expect = expected.removeSmallest();
+                itemList.remove((Integer) actual);
+                assertEquals("removeSmallest fail on iteration " + i, expect, actual);
+                assertFalse(testing.contains(actual));
+            } else { // change priority
+                if (itemList.isEmpty()) {
+                    continue;
+                }
+                int target = itemList.get(r.nextInt(itemList.size()));
+                testing.changePriority(target, priority);
+                expected.changePriority(target, priority);
+                prioritySet.add(priority);
+            }
+            assertEquals("size fail on iteration " + i, expected.size(), testing.size());
+        }
+
+        while (expected.size() > 0) {
+            int expect = expected.removeSmallest();
+            int actual = testing.removeSmallest();
+            assertEquals(expect, actual);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package heap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Radix heap implementation of ExtrinsicMinPQ for monotone workloads, where no priority
+ * is ever smaller than the last one removed. A* with a consistent heuristic (and so
+ * Dijkstra's algorithm) has this property, as do the unit-weight word ladder and sliding
+ * puzzle graphs.
+ *
+ * Priorities are mapped to 64-bit keys that sort in the same order as the doubles. An item
+ * lives in bucket 0 if its key equals the key of the last removed item, and otherwise in
+ * bucket b where b - 1 is the highest bit in which the two keys differ. Each item moves
+ * to a lower bucket at most 64 times, so removeSmallest is O(1) amortized per item, without
+ * any comparisons between items in the same bucket.
+ */
+public class RadixHeapMinPQ<T> implements ExtrinsicMinPQ<T> {
+    private static final int BUCKETS = 65;
+
+    private List<List<Entry>> buckets;
+    private Map<T, Entry> entries;
+    /* Key of the last removed item; no key in the PQ is smaller. */
+    private long last;
+
+    public RadixHeapMinPQ() {
+        buckets = new ArrayList<>(BUCKETS);
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.add(new ArrayList<>());
+        }
+        entries = new HashMap<>();
+        last = 0;
+    }
+
+    /**
+     * Adds an item with the given priority value.
+     * Assumes that item is never null.
+     * Runs in O(1) time.
+     * @throws IllegalArgumentException if item is already present in the PQ, or if priority
+     *                                  is smaller than the priority of the last item removed
+     */
+    @Override
+    public void add(T item, double priority) {
+        if (contains(item)) {
+            throw new IllegalArgumentException("Already contains " + item);
+        }
+        Entry entry = new Entry(item, checkMonotone(priority));
+        entries.put(item, entry);
+        insert(entry);
+    }
+
+    /** Returns true if the PQ contains the given item; false otherwise. */
+    @Override
+    public boolean contains(T item) {
+        return entries.containsKey(item);
+    }
+
+    /**
+     * Returns the item with the smallest priority, without changing the PQ.
+     * Runs in O(1) time if the smallest key is the last removed one, and otherwise in time
+     * linear in the size of the first non-empty bucket.
+     * @throws NoSuchElementException if the PQ is empty
+     */
+    @Override
+    public T getSmallest() {
+        if (entries.isEmpty()) {
+            throw new NoSuchElementException("PQ is empty");
+        }
+        List<Entry> smallest = buckets.get(0);
+        if (!smallest.isEmpty()) {
+            return smallest.get(smallest.size() - 1).item;
+        }
+        return smallestEntry(firstBucket()).item;
+    }
+
+    /**
+     * Removes and returns the item with the smallest priority.
+     * Runs in O(1) amortized time.
+     * @throws NoSuchElementException if the PQ is empty
+     */
+    @Override
+    public T removeSmallest() {
+        if (entries.isEmpty()) {
+            throw new NoSuchElementException("PQ is empty");
+        }
+        List<Entry> bucket = buckets.get(0);
+        if (bucket.isEmpty()) {
+            redistribute();
+        }
+        T smallest = bucket.remove(bucket.size() - 1).item;
+        entries.remove(smallest);
+        return smallest;
+    }
+
+    /**
+     * Changes the priority of the given item.
+     * Runs in O(1) time.
+     * @throws NoSuchElementException if the item is not present in the PQ
+     * @throws IllegalArgumentException if priority is smaller than the priority of the last
+     *                                  item removed
+     */
+    @Override
+    public void changePriority(T item, double priority) {
+        Entry entry = entries.get(item);
+        if (entry == null) {
+            throw new NoSuchElementException("PQ does not contain " + item);
+        }
+        long key = checkMonotone(priority);
+        detach(entry);
+        entry.key = key;
+        insert(entry);
+    }
+
+    /** Returns the number of items in the PQ. */
+    @Override
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the key for priority, which compares (as an unsigned long) the same way
+     * that the priorities do.
+     * @throws IllegalArgumentException if the key would be smaller than the last removed key
+     */
+    private long checkMonotone(double priority) {
+        if (Double.isNaN(priority)) {
+            throw new IllegalArgumentException("Priority is NaN");
+        }
+        long bits = Double.doubleToLongBits(priority);
+        // Flip all bits of negative numbers and only the sign bit of positive ones.
+        long key = bits ^ ((bits >> 63) | Long.MIN_VALUE);
+        if (Long.compareUnsigned(key, last) < 0) {
+            throw new IllegalArgumentException("Priority " + priority
+                    + " is smaller than the last priority removed");
+        }
+        return key;
+    }
+
+    private int bucketFor(long key) {
+        return 64 - Long.numberOfLeadingZeros(key ^ last);
+    }
+
+    private void insert(Entry entry) {
+        entry.bucket = bucketFor(entry.key);
+        List<Entry> bucket = buckets.get(entry.bucket);
+        entry.index = bucket.size();
+        bucket.add(entry);
+    }
+
+    /** Removes the entry from its bucket by moving the bucket's last entry into its place. */
+    private void detach(Entry entry) {
+        List<Entry> bucket = buckets.get(entry.bucket);
+        Entry moved = bucket.remove(bucket.size() - 1);
+        if (moved != entry) {
+            bucket.set(entry.index, moved);
+            moved.index = entry.index;
+        }
+    }
+
+    /** Returns the first non-empty bucket after bucket 0. Assumes the PQ isn't empty. */
+    private List<Entry> firstBucket() {
+        int i = 1;
+        while (buckets.get(i).isEmpty()) {
+            i++;
+        }
+        return buckets.get(i);
+    }
+
+    /** Returns the entry of bucket with the smallest key. Assumes bucket isn't empty. */
+    private Entry smallestEntry(List<Entry> bucket) {
+        Entry min = bucket.get(0);
+        for (Entry entry : bucket) {
+            if (Long.compareUnsigned(entry.key, min.key) < 0) {
+                min = entry;
+            }
+        }
+        return min;
+    }
+
+    /**
+     * Makes the smallest key in the first non-empty bucket the new last key, and moves
+     * every entry of that bucket into a lower bucket. Only removeSmallest calls this, right
+     * before removing an item with that key. Assumes bucket 0 is empty.
+     */
+    private void redistribute() {
+        List<Entry> bucket = firstBucket();
+        last = smallestEntry(bucket).key;
+        for (Entry entry : bucket) {
+            insert(entry);
+        }
+        bucket.clear();
+    }
+
+    private class Entry {
+        private T item;
+        private long key;
+        private int bucket;
+        private int index;
+
+        Entry(T item, long key) {
+            this.item = item;
+            this.key = key;
+        }
+    }
+}
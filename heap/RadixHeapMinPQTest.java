@@ -0,0 +1,111 @@
+package heap;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class RadixHeapMinPQTest {
+
+    @Test (expected = IllegalArgumentException.class)
+    public void testAddBelowLastRemoved() {
+        RadixHeapMinPQ<String> actual = new RadixHeapMinPQ<>();
+        actual.add("a", 5);
+        actual.add("b", 7);
+        actual.removeSmallest();
+        actual.add("c", 4);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void testChangePriorityBelowLastRemoved() {
+        RadixHeapMinPQ<String> actual = new RadixHeapMinPQ<>();
+        actual.add("a", 5);
+        actual.add("b", 7);
+        actual.removeSmallest();
+        actual.changePriority("b", 4.5);
+    }
+
+    @Test
+    public void testAddBelowPeekedAboveLastRemoved() {
+        RadixHeapMinPQ<String> actual = new RadixHeapMinPQ<>();
+        actual.add("a", 5);
+        actual.add("b", 9);
+        actual.add("c", 12);
+        assertEquals("a", actual.removeSmallest());
+        assertEquals("b", actual.getSmallest());
+        actual.add("d", 6);
+        actual.changePriority("c", 5);
+        assertEquals("c", actual.getSmallest());
+        assertEquals("c", actual.removeSmallest());
+        assertEquals("d", actual.removeSmallest());
+        assertEquals("b", actual.removeSmallest());
+    }
+
+    @Test (expected = NoSuchElementException.class)
+    public void testRemoveSmallestEmpty() {
+        RadixHeapMinPQ<String> actual = new RadixHeapMinPQ<>();
+        actual.removeSmallest();
+    }
+
+    @Test
+    public void testNegativeAndInfinitePriorities() {
+        RadixHeapMinPQ<String> actual = new RadixHeapMinPQ<>();
+        actual.add("inf", Double.POSITIVE_INFINITY);
+        actual.add("zero", 0);
+        actual.add("neg", -2.5);
+        actual.add("pos", 3);
+        actual.add("negInf", Double.NEGATIVE_INFINITY);
+        assertEquals("negInf", actual.removeSmallest());
+        assertEquals("neg", actual.removeSmallest());
+        actual.changePriority("inf", -1);
+        assertEquals("inf", actual.removeSmallest());
+        assertEquals("zero", actual.removeSmallest());
+        assertEquals("pos", actual.removeSmallest());
+        assertFalse(actual.contains("pos"));
+    }
+
+    /** Runs a Dijkstra-like trace where every new priority is at least the last one removed. */
+    @Test
+    public void testMonotoneRandomOperation() {
+        Random r = new Random(373);
+        int iteration = 20000;
+        RadixHeapMinPQ<Integer> testing = new RadixHeapMinPQ<>();
+        NaiveMinPQ<Integer> expected = new NaiveMinPQ<>();
+        List<Integer> items = new ArrayList<>();
+        Map<Integer, Double> priorities = new HashMap<>();
+        double floor = 0;
+        int next = 0;
+
+        for (int i = 0; i < iteration; i++) {
+            // Distinct priorities keep the expected order well defined.
+            double priority = floor + r.nextInt(1000) + i * 1e-6;
+            int op = r.nextInt(3);
+            if (op == 0) {
+                testing.add(next, priority);
+                expected.add(next, priority);
+                items.add(next);
+                priorities.put(next, priority);
+                next++;
+            } else if (op == 1 && !items.isEmpty()) {
+                int target = items.get(r.nextInt(items.size()));
+                testing.changePriority(target, priority);
+                expected.changePriority(target, priority);
+                priorities.put(target, priority);
+            } else if (!items.isEmpty()) {
+                int expect = expected.removeSmallest();
+                int actual = testing.removeSmallest();
+                assertEquals("removeSmallest fail on iteration " + i, expect, actual);
+                items.remove((Integer) actual);
+                floor = priorities.get(actual);
+            }
+            assertEquals(expected.size(), testing.size());
+        }
+    }
+}
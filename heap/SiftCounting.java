@@ -0,0 +1,11 @@
+package heap;
+
+/**
+ * Implemented by array heaps that count how many levels entries move in swim and sink,
+ * so that InstrumentedMinPQ can report the average sift depth per operation.
+ */
+public interface SiftCounting {
+
+    /** Returns the total number of levels moved by swim and sink since the heap was created. */
+    long siftSteps();
+}
@@ -0,0 +1,200 @@
+package heap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Keeps the k best items offered to it, where best means either the largest or the
+ * smallest keys. The kept entries sit in a heap of k slots whose root is the worst of
+ * them, so each offer takes O(1) time when the item doesn't make the cut and O(log k)
+ * time when it does, and selecting from N items never sorts all N.
+ *
+ * Keys are primitive longs or doubles and are not boxed; use one kind of key per selector,
+ * and no NaN. Among equal keys, the item offered first is better, so the results match a
+ * stable sort of the offered items. Selectors filled by separate workers can be combined
+ * with merge.
+ */
+public class TopKSelector<T> {
+    private final int k;
+    private final boolean largest;
+
+    /* Heap of the kept entries starting at index 1, with the worst entry at the root.
+     * keys are stored so that a larger key is always better; see encode. */
+    private final long[] keys;
+    private final long[] order;
+    private final Object[] items;
+    private int size;
+    private long offered;
+
+    private TopKSelector(int k, boolean largest) {
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be at least 1: " + k);
+        }
+        this.k = k;
+        this.largest = largest;
+        keys = new long[k + 1];
+        order = new long[k + 1];
+        items = new Object[k + 1];
+    }
+
+    /**
+     * Returns a selector that keeps the k items with the largest keys.
+     * @throws IllegalArgumentException if k is less than 1
+     */
+    public static <T> TopKSelector<T> largest(int k) {
+        return new TopKSelector<>(k, true);
+    }
+
+    /**
+     * Returns a selector that keeps the k items with the smallest keys.
+     * @throws IllegalArgumentException if k is less than 1
+     */
+    public static <T> TopKSelector<T> smallest(int k) {
+        return new TopKSelector<>(k, false);
+    }
+
+    /** Offers an item with the given key, returning true if it is kept (for now). */
+    public boolean offer(T item, long key) {
+        return offerEncoded(item, largest ? key : ~key);
+    }
+
+    /** Offers an item with the given key, returning true if it is kept (for now). */
+    public boolean offer(T item, double key) {
+        long bits = Double.doubleToLongBits(key);
+        // Flip the magnitude bits of negative doubles so the longs sort like the doubles.
+        long sortable = bits ^ ((bits >> 63) & Long.MAX_VALUE);
+        return offerEncoded(item, largest ? sortable : ~sortable);
+    }
+
+    /**
+     * Offers every item kept by other, in its order, as if they had been offered to this
+     * selector after everything offered so far.
+     * @throws IllegalArgumentException if other keeps the opposite end (smallest vs largest)
+     */
+    public void merge(TopKSelector<T> other) {
+        if (other.largest != largest) {
+            throw new IllegalArgumentException("Cannot merge largest and smallest selectors");
+        }
+        for (int i : other.sortedIndices()) {
+            offerEncoded(other.item(i), other.keys[i]);
+        }
+    }
+
+    /** Returns the number of items kept, which is at most k. */
+    public int size() {
+        return size;
+    }
+
+    /** Returns true if k items are kept, so that worse items are no longer accepted. */
+    public boolean isFull() {
+        return size == k;
+    }
+
+    /**
+     * Returns the long key of the worst item kept.
+     * @throws NoSuchElementException if nothing has been offered
+     */
+    public long worstLong() {
+        if (size == 0) {
+            throw new NoSuchElementException("Selector is empty");
+        }
+        return largest ? keys[1] : ~keys[1];
+    }
+
+    /**
+     * Returns the double key of the worst item kept. Once the selector is full, only items
+     * with a better key than this are accepted, which is what a search needs for pruning.
+     * @throws NoSuchElementException if nothing has been offered
+     */
+    public double worstDouble() {
+        long sortable = worstLong();
+        return Double.longBitsToDouble(sortable ^ ((sortable >> 63) & Long.MAX_VALUE));
+    }
+
+    /** Returns the kept items, best first. Runs in O(k log k) time. */
+    public List<T> results() {
+        List<T> results = new ArrayList<>(size);
+        for (int i : sortedIndices()) {
+            results.add(item(i));
+        }
+        return results;
+    }
+
+    private boolean offerEncoded(Object item, long key) {
+        long seq = offered++;
+        if (size < k) {
+            size++;
+            keys[size] = key;
+            order[size] = seq;
+            items[size] = item;
+            swim(size);
+            return true;
+        }
+        // Ties go to the kept item, since it was offered first.
+        if (key <= keys[1]) {
+            return false;
+        }
+        keys[1] = key;
+        order[1] = seq;
+        items[1] = item;
+        sink(1);
+        return true;
+    }
+
+    /** Returns heap indices 1 through size, ordered from the best entry to the worst. */
+    private Integer[] sortedIndices() {
+        Integer[] indices = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            indices[i] = i + 1;
+        }
+        Arrays.sort(indices, (a, b) -> worse(a, b) ? 1 : worse(b, a) ? -1 : 0);
+        return indices;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T item(int i) {
+        return (T) items[i];
+    }
+
+    /** Returns true if the entry at index i is worse than the one at index j. */
+    private boolean worse(int i, int j) {
+        return keys[i] < keys[j] || (keys[i] == keys[j] && order[i] > order[j]);
+    }
+
+    private void swim(int index) {
+        while (index > 1 && worse(index, index / 2)) {
+            swap(index, index / 2);
+            index /= 2;
+        }
+    }
+
+    private void sink(int index) {
+        while (index * 2 <= size) {
+            int child = index * 2;
+            if (child < size && worse(child + 1, child)) {
+                child++;
+            }
+            if (!worse(child, index)) {
+                break;
+            }
+            swap(child, index);
+            index = child;
+        }
+    }
+
+    private void swap(int a, int b) {
+        long tempKey = keys[a];
+        keys[a] = keys[b];
+        keys[b] = tempKey;
+
+        long tempOrder = order[a];
+        order[a] = order[b];
+        order[b] = tempOrder;
+
+        Object tempItem = items[a];
+        items[a] = items[b];
+        items[b] = tempItem;
+    }
+}
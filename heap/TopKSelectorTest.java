@@ -0,0 +1,92 @@
+package heap;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TopKSelectorTest {
+
+    @Test (expected = IllegalArgumentException.class)
+    public void testKTooSmall() {
+        TopKSelector.largest(0);
+    }
+
+    @Test
+    public void testLargestLongs() {
+        Random r = new Random(373);
+        int num = 10000;
+        long[] keys = new long[num];
+        List<Integer> expected = new ArrayList<>();
+        TopKSelector<Integer> top = TopKSelector.largest(25);
+        for (int i = 0; i < num; i++) {
+            // A small key range forces plenty of ties.
+            keys[i] = r.nextInt(500) - 250;
+            expected.add(i);
+            top.offer(i, keys[i]);
+        }
+        // List.sort is stable, so ties stay in the order offered.
+        expected.sort(Comparator.comparingLong((Integer i) -> keys[i]).reversed());
+        assertEquals(expected.subList(0, 25), top.results());
+        assertTrue(top.isFull());
+        assertEquals(keys[expected.get(24)], top.worstLong());
+    }
+
+    @Test
+    public void testSmallestDoubles() {
+        Random r = new Random(143);
+        int num = 10000;
+        double[] keys = new double[num];
+        List<Integer> expected = new ArrayList<>();
+        TopKSelector<Integer> top = TopKSelector.smallest(10);
+        for (int i = 0; i < num; i++) {
+            keys[i] = r.nextGaussian() * 1000;
+            expected.add(i);
+            top.offer(i, keys[i]);
+        }
+        expected.sort(Comparator.comparingDouble((Integer i) -> keys[i]));
+        assertEquals(expected.subList(0, 10), top.results());
+        assertEquals(keys[expected.get(9)], top.worstDouble(), 0);
+    }
+
+    @Test
+    public void testFewerThanK() {
+        TopKSelector<String> top = TopKSelector.smallest(5);
+        assertTrue(top.offer("b", 2.0));
+        assertTrue(top.offer("a", -1.0));
+        assertFalse(top.isFull());
+        assertEquals(List.of("a", "b"), top.results());
+    }
+
+    @Test
+    public void testMerge() {
+        Random r = new Random(373);
+        TopKSelector<Integer> all = TopKSelector.largest(50);
+        List<TopKSelector<Integer>> parts = new ArrayList<>();
+        for (int w = 0; w < 4; w++) {
+            parts.add(TopKSelector.largest(50));
+        }
+        for (int i = 0; i < 20000; i++) {
+            double key = r.nextDouble();
+            all.offer(i, key);
+            parts.get(i % 4).offer(i, key);
+        }
+        TopKSelector<Integer> merged = parts.get(0);
+        for (int w = 1; w < 4; w++) {
+            merged.merge(parts.get(w));
+        }
+        assertEquals(all.results(), merged.results());
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void testMergeOppositeEnds() {
+        TopKSelector<Integer> largest = TopKSelector.largest(3);
+        largest.merge(TopKSelector.smallest(3));
+    }
+}
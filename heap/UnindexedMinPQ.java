@@ -0,0 +1,120 @@
+package heap;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Plain binary array heap of (item, priority) entries with no item index. Unlike an
+ * ExtrinsicMinPQ, the same item may be added any number of times, and there is no contains
+ * or changePriority. Searches that use it insert a fresh entry instead of changing a
+ * priority and skip the out-of-date entries when they come off the heap ("lazy deletion").
+ * Priorities and items are kept in parallel arrays, so add and removeSmallest do not
+ * allocate once the arrays have grown.
+ */
+public class UnindexedMinPQ<T> {
+    private static final int INITIAL_CAPACITY = 16;
+
+    /* The heap itself, starting at index 1. */
+    private double[] priorities;
+    private Object[] items;
+    private int size;
+
+    public UnindexedMinPQ() {
+        priorities = new double[INITIAL_CAPACITY];
+        items = new Object[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Adds an entry for the item with the given priority, even if the item already has one.
+     * Runs in O(log N) time (except when resizing).
+     */
+    public void add(T item, double priority) {
+        if (size + 1 == items.length) {
+            priorities = Arrays.copyOf(priorities, items.length * 2);
+            items = Arrays.copyOf(items, items.length * 2);
+        }
+        size++;
+        items[size] = item;
+        priorities[size] = priority;
+        swim(size);
+    }
+
+    /**
+     * Returns the item of the entry with the smallest priority.
+     * @throws NoSuchElementException if the PQ is empty
+     */
+    @SuppressWarnings("unchecked")
+    public T getSmallest() {
+        if (size == 0) {
+            throw new NoSuchElementException("PQ is empty");
+        }
+        return (T) items[1];
+    }
+
+    /**
+     * Returns the smallest priority of any entry.
+     * @throws NoSuchElementException if the PQ is empty
+     */
+    public double smallestPriority() {
+        if (size == 0) {
+            throw new NoSuchElementException("PQ is empty");
+        }
+        return priorities[1];
+    }
+
+    /**
+     * Removes the entry with the smallest priority and returns its item.
+     * Runs in O(log N) time.
+     * @throws NoSuchElementException if the PQ is empty
+     */
+    public T removeSmallest() {
+        T smallest = getSmallest();
+        items[1] = items[size];
+        priorities[1] = priorities[size];
+        items[size] = null;
+        size--;
+        sink(1);
+        return smallest;
+    }
+
+    /** Returns the number of entries in the PQ. */
+    public int size() {
+        return size;
+    }
+
+    /** Returns true if the PQ is empty; false otherwise. */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private void swim(int index) {
+        double priority = priorities[index];
+        Object item = items[index];
+        while (index > 1 && priority < priorities[index / 2]) {
+            priorities[index] = priorities[index / 2];
+            items[index] = items[index / 2];
+            index /= 2;
+        }
+        priorities[index] = priority;
+        items[index] = item;
+    }
+
+    private void sink(int index) {
+        double priority = priorities[index];
+        Object item = items[index];
+        while (index * 2 <= size) {
+            int child = index * 2;
+            if (child < size && priorities[child + 1] < priorities[child]) {
+                child++;
+            }
+            if (priorities[child] >= priority) {
+                break;
+            }
+            priorities[index] = priorities[child];
+            items[index] = items[child];
+            index = child;
+        }
+        priorities[index] = priority;
+        items[index] = item;
+    }
+}
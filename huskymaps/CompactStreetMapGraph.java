@@ -0,0 +1,717 @@
+package huskymaps;
+
+import astar.DenseAStarGraph;
+import astar.EdgeVisitor;
+import astar.ReversibleAStarGraph;
+import astar.WeightedEdge;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static huskymaps.utils.Spatial.greatCircleDistance;
+import static huskymaps.utils.Spatial.projectToX;
+import static huskymaps.utils.Spatial.projectToY;
+
+/**
+ * A frozen StreetMapGraph in compressed sparse row form, made with StreetMapGraph.compact
+ * once the OSM data has been parsed, or straight from the OSM file with fromOSM. Instead of
+ * a map of sets of WeightedEdge objects, the whole graph lives in a handful of primitive
+ * arrays:
+ *
+ * Vertices are numbered 0 through n - 1 in increasing order of their OSM ids, and those
+ * numbers are the ids of DenseAStarGraph, so solvers can index arrays with them. The
+ * outgoing edges of vertex v are at indices offsets[v] until offsets[v + 1] of targets,
+ * weights and names. Incoming edges are stored the same way, each pointing at the outgoing
+ * edge it reverses. Street names are interned into one table, so each edge stores an int.
+ * closest searches a KD-tree that is laid out in an array, median first.
+ *
+ * Weights are stored as floats, rounded up so that a path is never shorter here than in
+ * the original graph and the great-circle heuristic stays admissible.
+ *
+ * The arrays are views of one little-endian buffer laid out exactly like the snapshot
+ * file that write saves, so read can map the file and use it in place: loading costs
+ * little more than decoding the strings, and processes that map the same snapshot share
+ * its pages. A snapshot can be at most 2 GB.
+ */
+public class CompactStreetMapGraph implements ReversibleAStarGraph<Long>,
+        DenseAStarGraph<Long> {
+    private static final int MAGIC = 0x534d4731; // "SMG1"
+    private static final int VERSION = 1;
+    /* Marks an edge without a street name. */
+    static final int NO_NAME = -1;
+    /* Bytes of a named location before its name: id, lat, lon and importance. */
+    private static final int LOCATION_BYTES = 28;
+
+    private final ByteBuffer data;
+
+    private final LongBuffer ids;
+    /* The same ids boxed once up front, so that visiting edges doesn't allocate. */
+    private final Long[] vertices;
+    private final DoubleBuffer lats;
+    private final DoubleBuffer lons;
+
+    private final IntBuffer offsets;
+    private final IntBuffer targets;
+    private final FloatBuffer weights;
+    private final IntBuffer names;
+    private final String[] streetNames;
+
+    private final IntBuffer reverseOffsets;
+    private final IntBuffer reverseSources;
+    /* The index of the outgoing edge that each incoming edge reverses. */
+    private final IntBuffer reverseEdges;
+
+    /*
+     * The KD-tree over the vertices with outgoing edges, which are the only ones closest
+     * returns. The subtree in [lo, hi) has its root at (lo + hi) / 2, splitting on
+     * projected x at even levels and projected y at odd ones.
+     */
+    private final IntBuffer kdVertices;
+    private final DoubleBuffer kdX;
+    private final DoubleBuffer kdY;
+
+    private final LocationIndex locations;
+
+    /** Wraps a buffer holding a valid snapshot. */
+    private CompactStreetMapGraph(ByteBuffer data) {
+        this.data = data;
+        Layout layout = new Layout(data);
+        int n = layout.vertices;
+        int edgeBytes = layout.edges * Integer.BYTES;
+        ids = section(data, layout.ids, n * Long.BYTES).asLongBuffer();
+        lats = section(data, layout.lats, n * Double.BYTES).asDoubleBuffer();
+        lons = section(data, layout.lons, n * Double.BYTES).asDoubleBuffer();
+        kdX = section(data, layout.kdX, layout.kdSize * Double.BYTES).asDoubleBuffer();
+        kdY = section(data, layout.kdY, layout.kdSize * Double.BYTES).asDoubleBuffer();
+        offsets = section(data, layout.offsets, (n + 1) * Integer.BYTES).asIntBuffer();
+        reverseOffsets =
+                section(data, layout.reverseOffsets, (n + 1) * Integer.BYTES).asIntBuffer();
+        targets = section(data, layout.targets, edgeBytes).asIntBuffer();
+        weights = section(data, layout.weights, edgeBytes).asFloatBuffer();
+        names = section(data, layout.names, edgeBytes).asIntBuffer();
+        reverseSources = section(data, layout.reverseSources, edgeBytes).asIntBuffer();
+        reverseEdges = section(data, layout.reverseEdges, edgeBytes).asIntBuffer();
+        kdVertices =
+                section(data, layout.kdVertices, layout.kdSize * Integer.BYTES).asIntBuffer();
+
+        vertices = new Long[n];
+        for (int v = 0; v < n; v++) {
+            vertices[v] = ids.get(v);
+        }
+        int position = Math.toIntExact(layout.strings);
+        streetNames = new String[count(data, position, Integer.BYTES)];
+        position += Integer.BYTES;
+        for (int i = 0; i < streetNames.length; i++) {
+            streetNames[i] = getString(data, position);
+            position += Integer.BYTES + data.getInt(position);
+        }
+        int numLocations = count(data, position, LOCATION_BYTES + Integer.BYTES);
+        position += Integer.BYTES;
+        List<Node> named = new ArrayList<>(numLocations);
+        for (int i = 0; i < numLocations; i++) {
+            long id = data.getLong(position);
+            double lat = data.getDouble(position + 8);
+            double lon = data.getDouble(position + 16);
+            int importance = data.getInt(position + 24);
+            position += LOCATION_BYTES;
+            named.add(new Node(id, lat, lon, getString(data, position), importance));
+            position += Integer.BYTES + data.getInt(position);
+        }
+        locations = new LocationIndex(named);
+    }
+
+    /** Returns the compact form of graph, whose named locations are in the given index. */
+    static CompactStreetMapGraph of(StreetMapGraph graph, LocationIndex locations) {
+        long[] ids = graph.vertices().stream().mapToLong(Long::longValue).sorted().toArray();
+        int n = ids.length;
+        double[] lats = new double[n];
+        double[] lons = new double[n];
+        for (int v = 0; v < n; v++) {
+            lats[v] = graph.lat(ids[v]);
+            lons[v] = graph.lon(ids[v]);
+        }
+
+        int[] offsets = new int[n + 1];
+        List<List<WeightedEdge<Long>>> edges = new ArrayList<>(n);
+        for (int v = 0; v < n; v++) {
+            edges.add(graph.neighbors(ids[v]));
+            offsets[v + 1] = offsets[v] + edges.get(v).size();
+        }
+        int m = offsets[n];
+        int[] targets = new int[m];
+        float[] weights = new float[m];
+        int[] names = new int[m];
+        Map<String, Integer> interned = new HashMap<>();
+        List<String> streetNames = new ArrayList<>();
+        for (int v = 0; v < n; v++) {
+            int e = offsets[v];
+            for (WeightedEdge<Long> edge : edges.get(v)) {
+                targets[e] = Arrays.binarySearch(ids, edge.to());
+                weights[e] = roundUp(edge.weight());
+                if (edge.name() == null) {
+                    names[e] = NO_NAME;
+                } else {
+                    names[e] = interned.computeIfAbsent(edge.name(), name -> {
+                        streetNames.add(name);
+                        return streetNames.size() - 1;
+                    });
+                }
+                e++;
+            }
+            edges.set(v, null);
+        }
+        return of(ids, lats, lons, offsets, targets, weights, names, streetNames, locations);
+    }
+
+    /**
+     * Returns the compact form of a graph given by its outgoing edges. Vertex v has OSM id
+     * ids[v], which must be increasing, and its outgoing edges at indices offsets[v] until
+     * offsets[v + 1] of the edge arrays. Weights must already be rounded up with roundUp,
+     * and names index into streetNames (or are NO_NAME). The arrays are copied.
+     */
+    static CompactStreetMapGraph of(long[] ids, double[] lats, double[] lons, int[] offsets,
+                                    int[] targets, float[] weights, int[] names,
+                                    List<String> streetNames, LocationIndex locations) {
+        int n = ids.length;
+        int m = offsets[n];
+        int[] reverseOffsets = new int[n + 1];
+        for (int e = 0; e < m; e++) {
+            reverseOffsets[targets[e] + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            reverseOffsets[v + 1] += reverseOffsets[v];
+        }
+        int[] reverseSources = new int[m];
+        int[] reverseEdges = new int[m];
+        int[] next = Arrays.copyOf(reverseOffsets, n);
+        for (int v = 0; v < n; v++) {
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                int r = next[targets[e]]++;
+                reverseSources[r] = v;
+                reverseEdges[r] = e;
+            }
+        }
+
+        int[] kdVertices = buildTree(offsets, lats, lons);
+        double[] kdX = new double[kdVertices.length];
+        double[] kdY = new double[kdVertices.length];
+        for (int i = 0; i < kdVertices.length; i++) {
+            kdX[i] = projectToX(lons[kdVertices[i]], lats[kdVertices[i]]);
+            kdY[i] = projectToY(lons[kdVertices[i]], lats[kdVertices[i]]);
+        }
+
+        // Lay everything out as a snapshot, in a buffer outside the heap.
+        List<byte[]> strings = new ArrayList<>();
+        long stringBytes = 2 * Integer.BYTES;
+        for (String name : streetNames) {
+            strings.add(name.getBytes(StandardCharsets.UTF_8));
+            stringBytes += Integer.BYTES + strings.get(strings.size() - 1).length;
+        }
+        List<Node> named = locations.nodes();
+        for (Node node : named) {
+            strings.add(node.name().getBytes(StandardCharsets.UTF_8));
+            stringBytes += LOCATION_BYTES + Integer.BYTES
+                    + strings.get(strings.size() - 1).length;
+        }
+        Layout layout = new Layout(n, m, kdVertices.length, stringBytes);
+        if (layout.size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("A graph of " + n + " vertices and " + m
+                    + " edges needs " + layout.size + " bytes, more than the "
+                    + Integer.MAX_VALUE + " a snapshot can hold");
+        }
+        ByteBuffer data = ByteBuffer.allocateDirect((int) layout.size)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        data.putInt(0, MAGIC);
+        data.putInt(4, VERSION);
+        data.putInt(8, n);
+        data.putInt(12, m);
+        data.putInt(16, kdVertices.length);
+        data.putInt(20, (int) stringBytes);
+        section(data, layout.ids, n * Long.BYTES).asLongBuffer().put(ids);
+        section(data, layout.lats, n * Double.BYTES).asDoubleBuffer().put(lats);
+        section(data, layout.lons, n * Double.BYTES).asDoubleBuffer().put(lons);
+        section(data, layout.kdX, kdX.length * Double.BYTES).asDoubleBuffer().put(kdX);
+        section(data, layout.kdY, kdY.length * Double.BYTES).asDoubleBuffer().put(kdY);
+        section(data, layout.offsets, (n + 1) * Integer.BYTES).asIntBuffer().put(offsets);
+        section(data, layout.reverseOffsets, (n + 1) * Integer.BYTES).asIntBuffer()
+                .put(reverseOffsets);
+        section(data, layout.targets, m * Integer.BYTES).asIntBuffer().put(targets);
+        section(data, layout.weights, m * Float.BYTES).asFloatBuffer().put(weights);
+        section(data, layout.names, m * Integer.BYTES).asIntBuffer().put(names);
+        section(data, layout.reverseSources, m * Integer.BYTES).asIntBuffer()
+                .put(reverseSources);
+        section(data, layout.reverseEdges, m * Integer.BYTES).asIntBuffer().put(reverseEdges);
+        section(data, layout.kdVertices, kdVertices.length * Integer.BYTES).asIntBuffer()
+                .put(kdVertices);
+        int position = (int) layout.strings;
+        data.putInt(position, streetNames.size());
+        position += Integer.BYTES;
+        for (int i = 0; i < streetNames.size(); i++) {
+            position = putString(data, position, strings.get(i));
+        }
+        data.putInt(position, named.size());
+        position += Integer.BYTES;
+        for (int i = 0; i < named.size(); i++) {
+            Node node = named.get(i);
+            data.putLong(position, node.id());
+            data.putDouble(position + 8, node.lat());
+            data.putDouble(position + 16, node.lon());
+            data.putInt(position + 24, node.importance());
+            position = putString(data, position + LOCATION_BYTES,
+                    strings.get(streetNames.size() + i));
+        }
+        return new CompactStreetMapGraph(data);
+    }
+
+    /**
+     * Saves this graph as a snapshot that read can load. The snapshot is written to a
+     * temporary file next to filename and then moved over it in one step, so processes
+     * that have the old snapshot mapped keep seeing it whole, and concurrent writers
+     * can't leave a mix of their snapshots behind.
+     * @throws IOException if the file can't be written
+     */
+    public void write(String filename) throws IOException {
+        Path target = Paths.get(filename).toAbsolutePath();
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(),
+                ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer source = data.duplicate();
+                source.clear();
+                while (source.hasRemaining()) {
+                    channel.write(source);
+                }
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Maps a snapshot written by write into memory. The file must not be modified in place
+     * while the graph is in use; replacing it with write is fine.
+     * @throws IOException if the file can't be read or isn't a valid snapshot of this
+     *                     version
+     */
+    public static CompactStreetMapGraph read(String filename) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename),
+                StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer data = null;
+            if (size >= Layout.HEADER_BYTES && size <= Integer.MAX_VALUE) {
+                data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size)
+                        .order(ByteOrder.LITTLE_ENDIAN);
+            }
+            if (data == null || data.getInt(0) != MAGIC || data.getInt(4) != VERSION) {
+                throw new IOException(filename + " is not a version " + VERSION
+                        + " street map graph snapshot");
+            }
+            if (new Layout(data).size != size) {
+                throw new IOException(filename + " is truncated or corrupt");
+            }
+            try {
+                return new CompactStreetMapGraph(data);
+            } catch (IndexOutOfBoundsException | IllegalArgumentException
+                    | NegativeArraySizeException | BufferUnderflowException e) {
+                // The header adds up, but a section (most likely the strings) doesn't.
+                throw new IOException(filename + " is corrupt", e);
+            }
+        }
+    }
+
+    /**
+     * Parses a gzipped OSM XML file, or an OSM PBF file if its name ends in .pbf, straight
+     * into compact form, without building a StreetMapGraph first. Decompression, parsing
+     * and edge weights run on their own threads, with a worker for each processor.
+     * @throws IOException if the file can't be read or parsed
+     */
+    public static CompactStreetMapGraph fromOSM(String filename) throws IOException {
+        return OSMIngest.ingest(filename, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Returns the vertex closest to the given longitude and latitude.
+     * @param lat The target latitude.
+     * @param lon The target longitude.
+     * @return The id of the node in the graph closest to the target.
+     */
+    public long closest(double lat, double lon) {
+        double x = projectToX(lon, lat);
+        double y = projectToY(lon, lat);
+        return ids.get(kdVertices.get(closest(0, kdVertices.limit(), true, x, y, -1)));
+    }
+
+    /**
+     * Returns the KD-tree position of the point closest to (x, y) among best and the
+     * subtree in [lo, hi).
+     */
+    private int closest(int lo, int hi, boolean evenLevel, double x, double y, int best) {
+        if (lo >= hi) {
+            return best;
+        }
+        int mid = (lo + hi) >>> 1;
+        if (best < 0 || distanceSquared(mid, x, y) < distanceSquared(best, x, y)) {
+            best = mid;
+        }
+        double separation = evenLevel ? x - kdX.get(mid) : y - kdY.get(mid);
+        if (separation < 0) {
+            best = closest(lo, mid, !evenLevel, x, y, best);
+            if (separation * separation < distanceSquared(best, x, y)) {
+                best = closest(mid + 1, hi, !evenLevel, x, y, best);
+            }
+        } else {
+            best = closest(mid + 1, hi, !evenLevel, x, y, best);
+            if (separation * separation < distanceSquared(best, x, y)) {
+                best = closest(lo, mid, !evenLevel, x, y, best);
+            }
+        }
+        return best;
+    }
+
+    private double distanceSquared(int i, double x, double y) {
+        double dx = kdX.get(i) - x;
+        double dy = kdY.get(i) - y;
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * In linear time, collect all the names of OSM locations that prefix-match the query string.
+     * @param prefix Prefix string to be searched for. Could be any case, with our without
+     *               punctuation.
+     * @return A <code>List</code> of full names of locations matching the <code>prefix</code>.
+     */
+    public List<String> getLocationsByPrefix(String prefix) {
+        return locations.getLocationsByPrefix(prefix);
+    }
+
+    /**
+     * Collect all locations that match a cleaned <code>locationName</code>, and return
+     * information about each node that matches.
+     * @param locationName A full name of a location searched for.
+     * @return A list of locations whose name matches the <code>locationName</code>.
+     */
+    public List<Node> getLocations(String locationName) {
+        return locations.getLocations(locationName);
+    }
+
+    /** Returns a list of outgoing edges for V. Assumes V exists in this graph. */
+    @Override
+    public List<WeightedEdge<Long>> neighbors(Long v) {
+        int from = id(v);
+        int start = offsets.get(from);
+        int end = offsets.get(from + 1);
+        List<WeightedEdge<Long>> result = new ArrayList<>(end - start);
+        for (int e = start; e < end; e++) {
+            result.add(new WeightedEdge<>(v, vertices[targets.get(e)], weights.get(e),
+                    name(e)));
+        }
+        return result;
+    }
+
+    /** Visits the outgoing edges of V straight from the arrays. */
+    @Override
+    public void forEachNeighbor(Long v, EdgeVisitor<Long> visitor) {
+        int from = id(v);
+        int end = offsets.get(from + 1);
+        for (int e = offsets.get(from); e < end; e++) {
+            visitor.visit(vertices[targets.get(e)], weights.get(e));
+        }
+    }
+
+    /** Returns a list of reversed incoming edges for V. Assumes V exists in this graph. */
+    @Override
+    public List<WeightedEdge<Long>> reverseNeighbors(Long v) {
+        int to = id(v);
+        int start = reverseOffsets.get(to);
+        int end = reverseOffsets.get(to + 1);
+        List<WeightedEdge<Long>> result = new ArrayList<>(end - start);
+        for (int r = start; r < end; r++) {
+            int e = reverseEdges.get(r);
+            result.add(new WeightedEdge<>(v, vertices[reverseSources.get(r)], weights.get(e),
+                    name(e)));
+        }
+        return result;
+    }
+
+    /** Visits the reversed incoming edges of V straight from the arrays. */
+    @Override
+    public void forEachReverseNeighbor(Long v, EdgeVisitor<Long> visitor) {
+        int to = id(v);
+        int end = reverseOffsets.get(to + 1);
+        for (int r = reverseOffsets.get(to); r < end; r++) {
+            visitor.visit(vertices[reverseSources.get(r)], weights.get(reverseEdges.get(r)));
+        }
+    }
+
+    /**
+     * Returns the great-circle distance between S and GOAL. Assumes
+     * S and GOAL exist in this graph.
+     */
+    @Override
+    public double estimatedDistanceToGoal(Long s, Long goal) {
+        int from = id(s);
+        int to = id(goal);
+        return greatCircleDistance(lons.get(from), lons.get(to), lats.get(from), lats.get(to));
+    }
+
+    @Override
+    public int numVertices() {
+        return vertices.length;
+    }
+
+    /** Returns the dense id of the vertex with the given OSM id. */
+    @Override
+    public int id(Long v) {
+        int index = indexOf(v);
+        if (index < 0) {
+            throw new IllegalArgumentException("Not a vertex: " + v);
+        }
+        return index;
+    }
+
+    @Override
+    public Long vertex(int id) {
+        return vertices[id];
+    }
+
+    /** Returns a set of my vertices. Altering this set does not alter this graph. */
+    public Set<Long> vertices() {
+        return new HashSet<>(Arrays.asList(vertices));
+    }
+
+    /**
+     * Gets the latitude of a vertex.
+     * @param v The id of the vertex.
+     * @return The latitude of the vertex.
+     */
+    public double lat(long v) {
+        int index = indexOf(v);
+        return index < 0 ? 0.0 : lats.get(index);
+    }
+
+    /**
+     * Gets the longitude of a vertex.
+     * @param v The id of the vertex.
+     * @return The longitude of the vertex.
+     */
+    public double lon(long v) {
+        int index = indexOf(v);
+        return index < 0 ? 0.0 : lons.get(index);
+    }
+
+    /** Returns the dense id of the vertex with the given OSM id, or -1 if there is none. */
+    private int indexOf(long id) {
+        int lo = 0;
+        int hi = vertices.length - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            long midId = ids.get(mid);
+            if (midId < id) {
+                lo = mid + 1;
+            } else if (midId > id) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private String name(int edge) {
+        int name = names.get(edge);
+        return name == NO_NAME ? null : streetNames[name];
+    }
+
+    /** Returns the smallest float that is at least weight. */
+    static float roundUp(double weight) {
+        float rounded = (float) weight;
+        return rounded < weight ? Math.nextUp(rounded) : rounded;
+    }
+
+    /** Returns the given bytes of data as a little-endian buffer of their own. */
+    private static ByteBuffer section(ByteBuffer data, long position, int bytes) {
+        int start = Math.toIntExact(position);
+        return data.duplicate().position(start).limit(start + bytes).slice()
+                .order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /** Reads a string stored as its length in bytes followed by its UTF-8 bytes. */
+    private static String getString(ByteBuffer data, int position) {
+        byte[] bytes = new byte[count(data, position, 1)];
+        data.duplicate().position(position + Integer.BYTES).get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the number of entries stored after position, each at least entryBytes long.
+     * @throws IndexOutOfBoundsException if that many entries can't fit in data
+     */
+    private static int count(ByteBuffer data, int position, int entryBytes) {
+        int count = data.getInt(position);
+        long available = data.capacity() - (long) position - Integer.BYTES;
+        if (count < 0 || (long) count * entryBytes > available) {
+            throw new IndexOutOfBoundsException("Count " + count + " at " + position
+                    + " doesn't fit in the snapshot");
+        }
+        return count;
+    }
+
+    /** Stores bytes as a string for getString, returning the position after it. */
+    private static int putString(ByteBuffer data, int position, byte[] bytes) {
+        data.putInt(position, bytes.length);
+        data.duplicate().position(position + Integer.BYTES).put(bytes);
+        return position + Integer.BYTES + bytes.length;
+    }
+
+    /** Returns the vertices with outgoing edges, arranged as a KD-tree. */
+    private static int[] buildTree(int[] offsets, double[] lats, double[] lons) {
+        int n = lats.length;
+        int count = 0;
+        for (int v = 0; v < n; v++) {
+            if (offsets[v + 1] > offsets[v]) {
+                count++;
+            }
+        }
+        int[] tree = new int[count];
+        double[] x = new double[n];
+        double[] y = new double[n];
+        int i = 0;
+        for (int v = 0; v < n; v++) {
+            if (offsets[v + 1] > offsets[v]) {
+                tree[i] = v;
+                i++;
+            }
+            x[v] = projectToX(lons[v], lats[v]);
+            y[v] = projectToY(lons[v], lats[v]);
+        }
+        buildTree(tree, 0, count, true, x, y);
+        return tree;
+    }
+
+    /**
+     * Moves the median of tree[lo, hi) to the middle, with smaller keys before it and
+     * larger ones after, then does the same for both halves on the other axis.
+     */
+    private static void buildTree(int[] tree, int lo, int hi, boolean evenLevel,
+                                  double[] x, double[] y) {
+        if (hi - lo <= 1) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        select(tree, lo, hi - 1, mid, evenLevel ? x : y);
+        buildTree(tree, lo, mid, !evenLevel, x, y);
+        buildTree(tree, mid + 1, hi, !evenLevel, x, y);
+    }
+
+    /**
+     * Rearranges a[lo..hi] so that a[k] holds the vertex with the k-th smallest key, with
+     * no larger keys before it and no smaller keys after it (Hoare's quickselect).
+     */
+    private static void select(int[] a, int lo, int hi, int k, double[] key) {
+        while (lo < hi) {
+            double pivot = key[a[(lo + hi) >>> 1]];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (key[a[i]] < pivot) {
+                    i++;
+                }
+                while (key[a[j]] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    int temp = a[i];
+                    a[i] = a[j];
+                    a[j] = temp;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Byte positions of the sections of a snapshot. After a 32-byte header (magic, version,
+     * vertex count, edge count, KD-tree size, string bytes and two unused ints) come the
+     * 8-byte sections, then the 4-byte ones, so every section is aligned. The strings go
+     * last: the street names, then the named locations (id, lat, lon, importance, name).
+     * Positions are longs, so a graph too big for a snapshot shows up as a size past
+     * Integer.MAX_VALUE instead of wrapping around.
+     */
+    private static class Layout {
+        private static final int HEADER_BYTES = 32;
+
+        private final int vertices;
+        private final int edges;
+        private final int kdSize;
+        private final long ids = HEADER_BYTES;
+        private final long lats;
+        private final long lons;
+        private final long kdX;
+        private final long kdY;
+        private final long offsets;
+        private final long reverseOffsets;
+        private final long targets;
+        private final long weights;
+        private final long names;
+        private final long reverseSources;
+        private final long reverseEdges;
+        private final long kdVertices;
+        private final long strings;
+        private final long size;
+
+        /** The layout of the snapshot in data, which must have a valid header. */
+        Layout(ByteBuffer data) {
+            this(data.getInt(8), data.getInt(12), data.getInt(16), data.getInt(20));
+        }
+
+        Layout(int vertices, int edges, int kdSize, long stringBytes) {
+            this.vertices = vertices;
+            this.edges = edges;
+            this.kdSize = kdSize;
+            lats = ids + (long) vertices * Long.BYTES;
+            lons = lats + (long) vertices * Double.BYTES;
+            kdX = lons + (long) vertices * Double.BYTES;
+            kdY = kdX + (long) kdSize * Double.BYTES;
+            offsets = kdY + (long) kdSize * Double.BYTES;
+            reverseOffsets = offsets + (vertices + 1L) * Integer.BYTES;
+            targets = reverseOffsets + (vertices + 1L) * Integer.BYTES;
+            weights = targets + (long) edges * Integer.BYTES;
+            names = weights + (long) edges * Float.BYTES;
+            reverseSources = names + (long) edges * Integer.BYTES;
+            reverseEdges = reverseSources + (long) edges * Integer.BYTES;
+            kdVertices = reverseEdges + (long) edges * Integer.BYTES;
+            strings = kdVertices + (long) kdSize * Integer.BYTES;
+            size = strings + stringBytes;
+        }
+    }
+}
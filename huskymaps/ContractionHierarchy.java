@@ -0,0 +1,681 @@
+package huskymaps;
+
+import astar.AStarGraph;
+import astar.WeightedEdge;
+import heap.IntMinPQ;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.function.LongToDoubleFunction;
+
+/**
+ * Contraction hierarchy over a StreetMapGraph, for answering many shortest path queries
+ * quickly after a one-time preprocessing step.
+ *
+ * Preprocessing contracts the vertices one at a time, least important first. Contracting v
+ * removes it from the remaining graph, adding a shortcut u -> w (remembering v as its
+ * middle vertex) for every path u -> v -> w that no other path of at most the same length
+ * can replace. A vertex's rank is its position in this order. Every shortest path then has
+ * an equally short version in the augmented graph that only goes up in rank and then only
+ * goes down, so a query runs Dijkstra's algorithm upwards from both ends and only ever
+ * sees a small part of the graph. Shortcuts on the resulting path are unpacked back into
+ * the original vertices through their middle vertices.
+ *
+ * Vertices are numbered 0 through n - 1 in increasing order of their OSM ids. The upward
+ * edges are kept in compressed sparse row form: the edges of vertex v are at indices
+ * forwardStart[v] until forwardStart[v + 1] of the forward arrays. Forward edges go from v
+ * to higher ranked vertices. Backward edges are stored at their (lower ranked) end vertex v,
+ * so that their target is the higher ranked start vertex. Use write and read to save
+ * the hierarchy instead of preprocessing on every start, and builtFrom to check that a
+ * saved hierarchy still belongs to the graph it is used with.
+ *
+ * Queries are thread-safe; each thread gets its own search arrays.
+ */
+public class ContractionHierarchy {
+    private static final int MAGIC = 0x43484731; // "CHG1"
+    private static final int VERSION = 2;
+    /* Marks an original edge, which has no middle vertex. */
+    private static final int NONE = -1;
+    /*
+     * Witness searches give up after settling this many vertices; the shortcut is then
+     * added even though it might not be needed, which is safe but makes queries slower.
+     */
+    private static final int WITNESS_SETTLE_LIMIT = 64;
+
+    private final long[] ids;
+    private final int[] rank;
+    /* Fingerprint of the graph this hierarchy was built from. */
+    private final long fingerprint;
+
+    private final int[] forwardStart;
+    private final int[] forwardTarget;
+    private final double[] forwardWeight;
+    private final int[] forwardMiddle;
+
+    private final int[] backwardStart;
+    private final int[] backwardTarget;
+    private final double[] backwardWeight;
+    private final int[] backwardMiddle;
+
+    private final ThreadLocal<Search> searches;
+
+    private ContractionHierarchy(long[] ids, int[] rank, long fingerprint,
+                                 int[] forwardStart, int[] forwardTarget,
+                                 double[] forwardWeight, int[] forwardMiddle,
+                                 int[] backwardStart, int[] backwardTarget,
+                                 double[] backwardWeight, int[] backwardMiddle) {
+        this.ids = ids;
+        this.rank = rank;
+        this.fingerprint = fingerprint;
+        this.forwardStart = forwardStart;
+        this.forwardTarget = forwardTarget;
+        this.forwardWeight = forwardWeight;
+        this.forwardMiddle = forwardMiddle;
+        this.backwardStart = backwardStart;
+        this.backwardTarget = backwardTarget;
+        this.backwardWeight = backwardWeight;
+        this.backwardMiddle = backwardMiddle;
+        this.searches = ThreadLocal.withInitial(() -> new Search(ids.length));
+    }
+
+    /** Preprocesses the given graph. Takes time roughly linear in its size, but a lot of it. */
+    public static ContractionHierarchy build(StreetMapGraph graph) {
+        return new Builder(graph).build();
+    }
+
+    /**
+     * Returns whether this hierarchy was built from a graph with the same vertices,
+     * locations and edges as graph, so that it finds the same routes.
+     */
+    public boolean builtFrom(CompactStreetMapGraph graph) {
+        return fingerprint == fingerprint(graph.vertices(), graph::lat, graph::lon, graph);
+    }
+
+    /**
+     * Returns a hash of the vertex ids and locations of a street map graph and of the pairs
+     * of vertices its edges connect. A StreetMapGraph and its compact form get the same
+     * hash: the edges are combined in any order, and weights (which the compact form
+     * rounds) are left out, since they follow from the locations.
+     */
+    private static long fingerprint(Collection<Long> vertices, LongToDoubleFunction lat,
+                                    LongToDoubleFunction lon, AStarGraph<Long> graph) {
+        long[] sorted = vertices.stream().mapToLong(Long::longValue).sorted().toArray();
+        long hash = sorted.length;
+        long edges = 0;
+        for (long v : sorted) {
+            hash = 31 * hash + mix(v);
+            hash = 31 * hash + mix(Double.doubleToLongBits(lat.applyAsDouble(v)));
+            hash = 31 * hash + mix(Double.doubleToLongBits(lon.applyAsDouble(v)));
+            for (WeightedEdge<Long> e : graph.neighbors(v)) {
+                edges += mix(31 * mix(v) + e.to());
+            }
+        }
+        return 31 * hash + edges;
+    }
+
+    /** The splitmix64 finalizer, so that similar values get unrelated hashes. */
+    private static long mix(long x) {
+        x = (x ^ (x >>> 30)) * 0xbf58476d1ce4e5b9L;
+        x = (x ^ (x >>> 27)) * 0x94d049bb133111ebL;
+        return x ^ (x >>> 31);
+    }
+
+    /** Returns the number of vertices. */
+    public int numVertices() {
+        return ids.length;
+    }
+
+    /** Returns the number of upward edges, original and shortcut, in both directions. */
+    public int numEdges() {
+        return forwardTarget.length + backwardTarget.length;
+    }
+
+    /**
+     * Returns the ids of the vertices on a shortest path from start to end, inclusive, or
+     * an empty list if there is no path. Returns a list holding just start if start == end.
+     * @throws IllegalArgumentException if start or end is not a vertex
+     */
+    public List<Long> shortestPath(long start, long end) {
+        Search search = searches.get();
+        search.run(index(start), index(end));
+        List<Long> path = new LinkedList<>();
+        if (search.meeting == NONE) {
+            return path;
+        }
+        path.add(start);
+        // Walk the forward search back from the meeting vertex, then unpack its edges in order.
+        Deque<Integer> edges = new ArrayDeque<>();
+        for (int v = search.meeting; search.forward.parentEdge[v] != NONE;
+             v = search.forward.parent[v]) {
+            edges.push(search.forward.parentEdge[v]);
+        }
+        int from = index(start);
+        for (int e : edges) {
+            int to = forwardTarget[e];
+            unpack(from, to, forwardMiddle[e], path);
+            from = to;
+        }
+        for (int v = search.meeting; search.backward.parentEdge[v] != NONE;
+             v = search.backward.parent[v]) {
+            int e = search.backward.parentEdge[v];
+            int to = search.backward.parent[v];
+            unpack(v, to, backwardMiddle[e], path);
+        }
+        return path;
+    }
+
+    /**
+     * Returns the length of a shortest path from start to end, or Double.POSITIVE_INFINITY
+     * if there is none.
+     * @throws IllegalArgumentException if start or end is not a vertex
+     */
+    public double distance(long start, long end) {
+        Search search = searches.get();
+        search.run(index(start), index(end));
+        return search.best;
+    }
+
+    /**
+     * Returns the number of vertices settled by the last query on the calling thread.
+     */
+    public int lastSettled() {
+        return searches.get().settled;
+    }
+
+    private int index(long id) {
+        int index = Arrays.binarySearch(ids, id);
+        if (index < 0) {
+            throw new IllegalArgumentException("Not a vertex: " + id);
+        }
+        return index;
+    }
+
+    /**
+     * Appends the vertices after from on the edge from -> to (excluding from, including to)
+     * to path, replacing every shortcut by the two edges through its middle vertex.
+     */
+    private void unpack(int from, int to, int middle, List<Long> path) {
+        Deque<int[]> stack = new ArrayDeque<>();
+        stack.push(new int[]{from, to, middle});
+        while (!stack.isEmpty()) {
+            int[] edge = stack.pop();
+            int m = edge[2];
+            if (m == NONE) {
+                path.add(ids[edge[1]]);
+                continue;
+            }
+            // The middle vertex is ranked below both ends, so its edges to them are stored
+            // at the middle vertex: edge[0] -> m backwards and m -> edge[1] forwards.
+            int second = find(forwardStart, forwardTarget, m, edge[1]);
+            int first = find(backwardStart, backwardTarget, m, edge[0]);
+            stack.push(new int[]{m, edge[1], forwardMiddle[second]});
+            stack.push(new int[]{edge[0], m, backwardMiddle[first]});
+        }
+    }
+
+    /** Returns the index of the edge from v to target in the given CSR arrays. */
+    private static int find(int[] start, int[] target, int v, int to) {
+        for (int e = start[v]; e < start[v + 1]; e++) {
+            if (target[e] == to) {
+                return e;
+            }
+        }
+        throw new IllegalStateException("Missing edge " + v + " - " + to);
+    }
+
+    /** Writes this hierarchy to the given file in a format read can load. */
+    public void write(String filename) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(filename)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(ids.length);
+            out.writeInt(forwardTarget.length);
+            out.writeInt(backwardTarget.length);
+            out.writeLong(fingerprint);
+            for (int v = 0; v < ids.length; v++) {
+                out.writeLong(ids[v]);
+                out.writeInt(rank[v]);
+            }
+            writeEdges(out, forwardStart, forwardTarget, forwardWeight, forwardMiddle);
+            writeEdges(out, backwardStart, backwardTarget, backwardWeight, backwardMiddle);
+        }
+    }
+
+    private static void writeEdges(DataOutputStream out, int[] start, int[] target,
+                                   double[] weight, int[] middle) throws IOException {
+        for (int s : start) {
+            out.writeInt(s);
+        }
+        for (int e = 0; e < target.length; e++) {
+            out.writeInt(target[e]);
+            out.writeDouble(weight[e]);
+            out.writeInt(middle[e]);
+        }
+    }
+
+    /**
+     * Reads a hierarchy written by write.
+     * @throws IOException if the file can't be read or isn't a hierarchy of this version
+     */
+    public static ContractionHierarchy read(String filename) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(filename)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException(filename + " is not a version " + VERSION
+                        + " contraction hierarchy");
+            }
+            int n = in.readInt();
+            int forwardEdges = in.readInt();
+            int backwardEdges = in.readInt();
+            long fingerprint = in.readLong();
+            long[] ids = new long[n];
+            int[] rank = new int[n];
+            for (int v = 0; v < n; v++) {
+                ids[v] = in.readLong();
+                rank[v] = in.readInt();
+            }
+            int[] forwardStart = new int[n + 1];
+            int[] forwardTarget = new int[forwardEdges];
+            double[] forwardWeight = new double[forwardEdges];
+            int[] forwardMiddle = new int[forwardEdges];
+            readEdges(in, forwardStart, forwardTarget, forwardWeight, forwardMiddle);
+            int[] backwardStart = new int[n + 1];
+            int[] backwardTarget = new int[backwardEdges];
+            double[] backwardWeight = new double[backwardEdges];
+            int[] backwardMiddle = new int[backwardEdges];
+            readEdges(in, backwardStart, backwardTarget, backwardWeight, backwardMiddle);
+            return new ContractionHierarchy(ids, rank, fingerprint, forwardStart, forwardTarget,
+                    forwardWeight, forwardMiddle, backwardStart, backwardTarget,
+                    backwardWeight, backwardMiddle);
+        }
+    }
+
+    private static void readEdges(DataInputStream in, int[] start, int[] target,
+                                  double[] weight, int[] middle) throws IOException {
+        for (int v = 0; v < start.length; v++) {
+            start[v] = in.readInt();
+        }
+        for (int e = 0; e < target.length; e++) {
+            target[e] = in.readInt();
+            weight[e] = in.readDouble();
+            middle[e] = in.readInt();
+        }
+    }
+
+    /** Per-direction state of a query, stamped so that it never needs clearing. */
+    private static class Side {
+        private final double[] dist;
+        private final int[] stamp;
+        private final int[] parent;
+        private final int[] parentEdge;
+        private final IntMinPQ pq;
+
+        Side(int n) {
+            dist = new double[n];
+            stamp = new int[n];
+            parent = new int[n];
+            parentEdge = new int[n];
+            pq = new IntMinPQ(n);
+        }
+
+        double dist(int v, int generation) {
+            return stamp[v] == generation ? dist[v] : Double.POSITIVE_INFINITY;
+        }
+
+        void reach(int v, double distance, int from, int edge, int generation) {
+            stamp[v] = generation;
+            dist[v] = distance;
+            parent[v] = from;
+            parentEdge[v] = edge;
+            if (pq.contains(v)) {
+                pq.changePriority(v, distance);
+            } else {
+                pq.add(v, distance);
+            }
+        }
+    }
+
+    /** The search arrays of one thread. */
+    private class Search {
+        private final Side forward;
+        private final Side backward;
+        private int generation;
+        private int meeting;
+        private double best;
+        private int settled;
+
+        Search(int n) {
+            forward = new Side(n);
+            backward = new Side(n);
+        }
+
+        /**
+         * Runs both upward searches, alternating between them, until neither can find a
+         * shorter path than the best one through a vertex both have reached.
+         */
+        void run(int start, int end) {
+            generation++;
+            if (generation == 0) {
+                Arrays.fill(forward.stamp, 0);
+                Arrays.fill(backward.stamp, 0);
+                generation = 1;
+            }
+            forward.pq.clear();
+            backward.pq.clear();
+            meeting = NONE;
+            best = Double.POSITIVE_INFINITY;
+            settled = 0;
+            forward.reach(start, 0, NONE, NONE, generation);
+            backward.reach(end, 0, NONE, NONE, generation);
+
+            boolean forwards = true;
+            while (true) {
+                boolean forwardDone = forward.pq.isEmpty()
+                        || forward.pq.priority(forward.pq.getSmallest()) >= best;
+                boolean backwardDone = backward.pq.isEmpty()
+                        || backward.pq.priority(backward.pq.getSmallest()) >= best;
+                if (forwardDone && backwardDone) {
+                    return;
+                }
+                if (forwards ? !forwardDone : backwardDone) {
+                    settle(forward, backward, forwardStart, forwardTarget, forwardWeight,
+                            backwardStart, backwardTarget, backwardWeight);
+                } else {
+                    settle(backward, forward, backwardStart, backwardTarget, backwardWeight,
+                            forwardStart, forwardTarget, forwardWeight);
+                }
+                forwards = !forwards;
+            }
+        }
+
+        /**
+         * Settles the closest vertex of one side and relaxes its upward edges, unless a
+         * higher ranked vertex reaches it more cheaply through a downward edge (stall on
+         * demand), in which case no shortest path can go up from it.
+         */
+        private void settle(Side side, Side other, int[] start, int[] target, double[] weight,
+                            int[] downStart, int[] downTarget, double[] downWeight) {
+            int v = side.pq.removeSmallest();
+            settled++;
+            double dist = side.dist[v];
+            double through = dist + other.dist(v, generation);
+            if (through < best) {
+                best = through;
+                meeting = v;
+            }
+            for (int e = downStart[v]; e < downStart[v + 1]; e++) {
+                if (side.dist(downTarget[e], generation) + downWeight[e] < dist) {
+                    return;
+                }
+            }
+            for (int e = start[v]; e < start[v + 1]; e++) {
+                int w = target[e];
+                double distance = dist + weight[e];
+                if (distance < side.dist(w, generation)) {
+                    side.reach(w, distance, v, e, generation);
+                }
+            }
+        }
+    }
+
+    /** Contracts a StreetMapGraph and builds the upward edge arrays. */
+    private static class Builder {
+        private final long fingerprint;
+        private final long[] ids;
+        private final int n;
+        /*
+         * out[v] holds edges leaving v and in[v] edges entering v, shortcuts included.
+         * Contracting v removes it from its neighbors' lists, so the lists only ever lead
+         * to vertices not yet contracted, and once v is contracted its own lists hold
+         * exactly its upward edges.
+         */
+        private final EdgeList[] out;
+        private final EdgeList[] in;
+        private final int[] deletedNeighbors;
+        /* One more than the largest level of any contracted neighbor. */
+        private final int[] level;
+        private final int[] rank;
+
+        /* Witness search state, stamped so that it never needs clearing. */
+        private final double[] witnessDist;
+        private final int[] witnessStamp;
+        private int witnessGeneration;
+        private final IntMinPQ witnessPQ;
+
+        Builder(StreetMapGraph graph) {
+            fingerprint = fingerprint(graph.vertices(), graph::lat, graph::lon, graph);
+            ids = graph.vertices().stream().mapToLong(Long::longValue).sorted().toArray();
+            n = ids.length;
+            out = new EdgeList[n];
+            in = new EdgeList[n];
+            for (int v = 0; v < n; v++) {
+                out[v] = new EdgeList();
+                in[v] = new EdgeList();
+            }
+            for (int v = 0; v < n; v++) {
+                for (WeightedEdge<Long> e : graph.neighbors(ids[v])) {
+                    int w = Arrays.binarySearch(ids, e.to());
+                    if (w != v) {
+                        addEdge(v, w, e.weight(), NONE);
+                    }
+                }
+            }
+            deletedNeighbors = new int[n];
+            level = new int[n];
+            rank = new int[n];
+            witnessDist = new double[n];
+            witnessStamp = new int[n];
+            witnessPQ = new IntMinPQ(n);
+        }
+
+        ContractionHierarchy build() {
+            // Lazy updates: a vertex's priority is recomputed when it reaches the top, and
+            // it is contracted only if it still belongs there.
+            IntMinPQ order = new IntMinPQ(n);
+            for (int v = 0; v < n; v++) {
+                order.add(v, priority(v));
+            }
+            int next = 0;
+            while (!order.isEmpty()) {
+                int v = order.removeSmallest();
+                double priority = priority(v);
+                if (!order.isEmpty() && priority > order.priority(order.getSmallest())) {
+                    order.add(v, priority);
+                    continue;
+                }
+                contract(v, false);
+                rank[v] = next++;
+                for (int i = 0; i < out[v].size; i++) {
+                    int w = out[v].target[i];
+                    in[w].remove(v);
+                    deletedNeighbors[w]++;
+                    level[w] = Math.max(level[w], level[v] + 1);
+                }
+                for (int i = 0; i < in[v].size; i++) {
+                    int u = in[v].target[i];
+                    out[u].remove(v);
+                    deletedNeighbors[u]++;
+                    level[u] = Math.max(level[u], level[v] + 1);
+                }
+            }
+            return upward();
+        }
+
+        /**
+         * Returns the contraction priority of v: twice the edge difference (the number of
+         * shortcuts contracting v would add minus the number of edges it would remove),
+         * plus the number of neighbors already contracted and v's level, which both spread
+         * contraction evenly over the graph instead of letting it eat outwards from one
+         * region. The weights were tuned on grid-like street graphs.
+         */
+        private double priority(int v) {
+            int edgeDifference = contract(v, true) - out[v].size - in[v].size;
+            return 2 * edgeDifference + deletedNeighbors[v] + level[v];
+        }
+
+        /**
+         * Finds the shortcuts needed to contract v, adding them unless simulate is true.
+         * Returns the number of shortcuts.
+         */
+        private int contract(int v, boolean simulate) {
+            int shortcuts = 0;
+            double maxOut = 0;
+            for (int j = 0; j < out[v].size; j++) {
+                maxOut = Math.max(maxOut, out[v].weight[j]);
+            }
+            for (int i = 0; i < in[v].size; i++) {
+                int u = in[v].target[i];
+                double toV = in[v].weight[i];
+                witnessSearch(u, v, toV + maxOut);
+                for (int j = 0; j < out[v].size; j++) {
+                    int w = out[v].target[j];
+                    if (w == u) {
+                        continue;
+                    }
+                    double viaV = toV + out[v].weight[j];
+                    double witness = witnessStamp[w] == witnessGeneration
+                            ? witnessDist[w] : Double.POSITIVE_INFINITY;
+                    if (witness > viaV) {
+                        shortcuts++;
+                        if (!simulate) {
+                            addEdge(u, w, viaV, v);
+                        }
+                    }
+                }
+            }
+            return shortcuts;
+        }
+
+        /**
+         * Runs Dijkstra's algorithm from u over the vertices not yet contracted, skipping
+         * v, until it passes maxDistance or has settled WITNESS_SETTLE_LIMIT vertices.
+         */
+        private void witnessSearch(int u, int v, double maxDistance) {
+            witnessGeneration++;
+            witnessPQ.clear();
+            witnessStamp[u] = witnessGeneration;
+            witnessDist[u] = 0;
+            witnessPQ.add(u, 0);
+            int settled = 0;
+            while (!witnessPQ.isEmpty() && settled < WITNESS_SETTLE_LIMIT) {
+                int x = witnessPQ.removeSmallest();
+                settled++;
+                double dist = witnessDist[x];
+                if (dist > maxDistance) {
+                    return;
+                }
+                for (int i = 0; i < out[x].size; i++) {
+                    int y = out[x].target[i];
+                    if (y == v) {
+                        continue;
+                    }
+                    double distance = dist + out[x].weight[i];
+                    if (witnessStamp[y] != witnessGeneration) {
+                        witnessStamp[y] = witnessGeneration;
+                        witnessDist[y] = distance;
+                        witnessPQ.add(y, distance);
+                    } else if (distance < witnessDist[y]) {
+                        witnessDist[y] = distance;
+                        witnessPQ.changePriority(y, distance);
+                    }
+                }
+            }
+        }
+
+        /** Adds the edge from -> to, or lowers the weight of an existing one. */
+        private void addEdge(int from, int to, double weight, int middle) {
+            int i = out[from].indexOf(to);
+            if (i < 0) {
+                out[from].add(to, weight, middle);
+                in[to].add(from, weight, middle);
+            } else if (weight < out[from].weight[i]) {
+                out[from].set(i, weight, middle);
+                in[to].set(in[to].indexOf(from), weight, middle);
+            }
+        }
+
+        /** Packs the upward edges left in every vertex's lists into compressed sparse rows. */
+        private ContractionHierarchy upward() {
+            int[] forwardStart = new int[n + 1];
+            int[] backwardStart = new int[n + 1];
+            for (int v = 0; v < n; v++) {
+                forwardStart[v + 1] = forwardStart[v] + out[v].size;
+                backwardStart[v + 1] = backwardStart[v] + in[v].size;
+            }
+            int[] forwardTarget = new int[forwardStart[n]];
+            double[] forwardWeight = new double[forwardStart[n]];
+            int[] forwardMiddle = new int[forwardStart[n]];
+            int[] backwardTarget = new int[backwardStart[n]];
+            double[] backwardWeight = new double[backwardStart[n]];
+            int[] backwardMiddle = new int[backwardStart[n]];
+            for (int v = 0; v < n; v++) {
+                out[v].copyTo(forwardStart[v], forwardTarget, forwardWeight, forwardMiddle);
+                in[v].copyTo(backwardStart[v], backwardTarget, backwardWeight, backwardMiddle);
+            }
+            return new ContractionHierarchy(ids, rank, fingerprint, forwardStart,
+                    forwardTarget, forwardWeight, forwardMiddle, backwardStart,
+                    backwardTarget, backwardWeight, backwardMiddle);
+        }
+    }
+
+    /** Growable parallel arrays of the edges on one side of a vertex during preprocessing. */
+    private static class EdgeList {
+        private int[] target = new int[4];
+        private double[] weight = new double[4];
+        private int[] middle = new int[4];
+        private int size;
+
+        int indexOf(int to) {
+            for (int i = 0; i < size; i++) {
+                if (target[i] == to) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        void add(int to, double w, int m) {
+            if (size == target.length) {
+                target = Arrays.copyOf(target, size * 2);
+                weight = Arrays.copyOf(weight, size * 2);
+                middle = Arrays.copyOf(middle, size * 2);
+            }
+            target[size] = to;
+            weight[size] = w;
+            middle[size] = m;
+            size++;
+        }
+
+        void set(int i, double w, int m) {
+            weight[i] = w;
+            middle[i] = m;
+        }
+
+        /** Removes the edge to the given vertex, moving the last edge into its place. */
+        void remove(int to) {
+            int i = indexOf(to);
+            size--;
+            target[i] = target[size];
+            weight[i] = weight[size];
+            middle[i] = middle[size];
+        }
+
+        void copyTo(int start, int[] targets, double[] weights, int[] middles) {
+            System.arraycopy(target, 0, targets, start, size);
+            System.arraycopy(weight, 0, weights, start, size);
+            System.arraycopy(middle, 0, middles, start, size);
+        }
+    }
+}
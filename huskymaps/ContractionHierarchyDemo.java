@@ -0,0 +1,92 @@
+package huskymaps;
+
+import astar.AStarEngine;
+import astar.ShortestPathsSolver;
+import astar.WeightedEdge;
+import edu.princeton.cs.algs4.Stopwatch;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static huskymaps.utils.Constants.CH_PATH;
+import static huskymaps.utils.Constants.OSM_DB_PATH;
+
+/**
+ * Preprocesses the Seattle street graph into a contraction hierarchy, saves it to CH_PATH
+ * (where MapServer picks it up) and compares its query times against A* on random routes,
+ * checking that both find paths of the same length. Like RoutingTimingDemo, it can run on
+ * a street grid from GridOSMGenerator when the data submodule isn't checked out.
+ */
+public class ContractionHierarchyDemo {
+    private static final int QUERIES = 1000;
+
+    public static void main(String[] args) throws IOException {
+        StreetMapGraph graph = new StreetMapGraph(OSM_DB_PATH);
+        Stopwatch sw = new Stopwatch();
+        ContractionHierarchy built = ContractionHierarchy.build(graph);
+        System.out.printf("Preprocessed %d vertices in %.1fs, %d upward edges%n",
+                built.numVertices(), sw.elapsedTime(), built.numEdges());
+        built.write(CH_PATH);
+        sw = new Stopwatch();
+        ContractionHierarchy ch = ContractionHierarchy.read(CH_PATH);
+        System.out.printf("Read %s in %.3fs%n", CH_PATH, sw.elapsedTime());
+
+        long[][] queries = RoutingTimingDemo.randomQueries(graph, QUERIES, new Random(373));
+        AStarEngine<Long> engine = new AStarEngine<>();
+        double[] expected = new double[QUERIES];
+        sw = new Stopwatch();
+        for (int i = 0; i < QUERIES; i++) {
+            ShortestPathsSolver<Long> solver =
+                    engine.solve(graph, queries[i][0], queries[i][1], 60);
+            expected[i] = solver.solutionWeight();
+        }
+        System.out.printf("A*:                     %.3fs for %d queries%n",
+                sw.elapsedTime(), QUERIES);
+
+        // Warm up the JIT before timing the hierarchy.
+        for (long[] query : queries) {
+            ch.shortestPath(query[0], query[1]);
+        }
+        List<List<Long>> paths = new ArrayList<>();
+        long settled = 0;
+        sw = new Stopwatch();
+        for (long[] query : queries) {
+            paths.add(ch.shortestPath(query[0], query[1]));
+            settled += ch.lastSettled();
+        }
+        System.out.printf("Contraction hierarchy:  %.3fs for %d queries, %.0f settled per "
+                + "query%n", sw.elapsedTime(), QUERIES, (double) settled / QUERIES);
+
+        int mismatches = 0;
+        for (int i = 0; i < QUERIES; i++) {
+            if (Math.abs(pathWeight(graph, paths.get(i)) - expected[i]) > 1e-9) {
+                mismatches++;
+            }
+        }
+        System.out.println(mismatches + " paths differ in length from A*");
+    }
+
+    /** Returns the total weight of the path's edges, or infinity for an empty path. */
+    private static double pathWeight(StreetMapGraph graph, List<Long> path) {
+        if (path.isEmpty()) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double weight = 0;
+        Long prev = null;
+        for (Long v : path) {
+            if (prev != null) {
+                double step = Double.POSITIVE_INFINITY;
+                for (WeightedEdge<Long> e : graph.neighbors(prev)) {
+                    if (e.to().equals(v)) {
+                        step = Math.min(step, e.weight());
+                    }
+                }
+                weight += step;
+            }
+            prev = v;
+        }
+        return weight;
+    }
+}
@@ -0,0 +1,98 @@
+package huskymaps;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes a synthetic street grid as a gzipped OSM file, a stand-in for the Seattle extract
+ * when the data submodule isn't checked out. Usage: GridOSMGenerator size file, for example
+ * GridOSMGenerator 300 data/seattle-small.osm.gz, after which RoutingTimingDemo and
+ * ContractionHierarchyDemo run on the grid.
+ *
+ * The size by size nodes are jittered over the Seattle bounding box, and 1% of them are
+ * named places. Each row is a residential street and each column a primary one, cut into
+ * ways of 2 to 8 nodes, a tenth of which are left out so that routes have to detour.
+ * The grid only depends on the size, so every run of a demo sees the same graph.
+ */
+public class GridOSMGenerator {
+    private static final double MIN_LAT = 47.52;
+    private static final double MAX_LAT = 47.75;
+    private static final double MIN_LON = -122.69;
+    private static final double MAX_LON = -122.0;
+    private static final long FIRST_ID = 1000;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: GridOSMGenerator size file");
+            System.exit(1);
+        }
+        int n = Integer.parseInt(args[0]);
+        File file = new File(args[1]);
+        if (file.exists()) {
+            System.err.println(file + " already exists");
+            System.exit(1);
+        }
+        try (PrintWriter out = new PrintWriter(new OutputStreamWriter(
+                new GZIPOutputStream(new FileOutputStream(file)), StandardCharsets.UTF_8))) {
+            write(out, n, new Random(7));
+        }
+    }
+
+    private static void write(PrintWriter out, int n, Random random) {
+        out.println("<?xml version=\"1.0\"?>");
+        out.println("<osm>");
+        for (int r = 0; r < n; r++) {
+            for (int c = 0; c < n; c++) {
+                double lat = MIN_LAT + (MAX_LAT - MIN_LAT) * (r + random.nextDouble() * 0.4) / n;
+                double lon = MIN_LON + (MAX_LON - MIN_LON) * (c + random.nextDouble() * 0.4) / n;
+                out.printf(Locale.ROOT, " <node id=\"%d\" lat=\"%.7f\" lon=\"%.7f\">",
+                        id(n, r, c), lat, lon);
+                if (random.nextDouble() < 0.01) {
+                    out.printf("<tag k=\"name\" v=\"Place %d %d\"/>", r, c);
+                }
+                out.println("</node>");
+            }
+        }
+        long way = 1;
+        for (int r = 0; r < n; r++) {
+            way = writeWays(out, n, random, way, r, true);
+        }
+        for (int c = 0; c < n; c++) {
+            way = writeWays(out, n, random, way, c, false);
+        }
+        out.println("</osm>");
+    }
+
+    /**
+     * Writes the ways along one row or column, returning the id of the next way. Consecutive
+     * ways share their end nodes.
+     */
+    private static long writeWays(PrintWriter out, int n, Random random, long way, int line,
+                                  boolean row) {
+        int start = 0;
+        while (start < n - 1) {
+            int end = Math.min(n, start + 2 + random.nextInt(7)) - 1;
+            if (random.nextDouble() < 0.9) {
+                out.printf(" <way id=\"%d\">", way++);
+                for (int i = start; i <= end; i++) {
+                    out.printf("<nd ref=\"%d\"/>", row ? id(n, line, i) : id(n, i, line));
+                }
+                out.printf("<tag k=\"highway\" v=\"%s\"/><tag k=\"name\" v=\"%s %d\"/></way>%n",
+                        row ? "residential" : "primary", row ? "Row" : "Col", line);
+            }
+            start = end;
+        }
+        return way;
+    }
+
+    private static long id(int n, int r, int c) {
+        return FIRST_ID + (long) r * n + c;
+    }
+}
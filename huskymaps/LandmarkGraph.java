@@ -0,0 +1,354 @@
+package huskymaps;
+
+import astar.EdgeVisitor;
+import astar.ReversibleAStarGraph;
+import astar.WeightedEdge;
+import heap.IntMinPQ;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A StreetMapGraph with a stronger A* heuristic: ALT (A*, landmarks and the triangle
+ * inequality). A few landmark vertices are chosen up front, and the distances from every
+ * landmark to every vertex and back are precomputed. Since for any landmark L
+ * d(v, t) >= d(v, L) - d(t, L) and d(v, t) >= d(L, t) - d(L, v), the largest of these
+ * differences is a lower bound on the distance to the goal that follows the roads, unlike
+ * the straight-line distance StreetMapGraph estimates with. The heuristic is consistent,
+ * and never weaker than StreetMapGraph's own since it takes the maximum of both.
+ *
+ * Distances are stored as floats, vertex-major (the landmarks of one vertex are adjacent),
+ * at 8 bytes per vertex per landmark. Every bound is lowered by the largest float rounding
+ * error so that it stays a lower bound.
+ */
+public class LandmarkGraph implements ReversibleAStarGraph<Long> {
+
+    /** How landmarks are chosen. */
+    public enum Selection {
+        /**
+         * Each landmark is the vertex farthest from the landmarks chosen so far, which puts
+         * landmarks around the edges of the map.
+         */
+        FARTHEST,
+        /**
+         * Each landmark is chosen from the shortest path tree of a random root, at the end of
+         * the branch where the landmarks so far give the worst bounds (Goldberg and
+         * Harrelson's "avoid" method).
+         */
+        AVOID
+    }
+
+    private final StreetMapGraph graph;
+    private final long[] ids;
+    private final long[] landmarks;
+    private final int k;
+    /* from[v * k + l] is the distance from landmark l to vertex v; to[v * k + l] back. */
+    private final float[] from;
+    private final float[] to;
+    private final double slack;
+    /*
+     * The last goal (and start, for backward searches) looked up, since A* asks about the
+     * same one over and over.
+     */
+    private volatile Cached lastGoal = new Cached(Long.MIN_VALUE, -1);
+    private volatile Cached lastStart = new Cached(Long.MIN_VALUE, -1);
+
+    /**
+     * Chooses the given number of landmarks in graph with the given selection method and
+     * precomputes their distance tables. The seed makes the random choices repeatable.
+     */
+    public LandmarkGraph(StreetMapGraph graph, int numLandmarks, Selection selection,
+                         long seed) {
+        if (numLandmarks < 1) {
+            throw new IllegalArgumentException("Need at least one landmark");
+        }
+        this.graph = graph;
+        ids = graph.vertices().stream().mapToLong(Long::longValue).sorted().toArray();
+        if (ids.length == 0) {
+            throw new IllegalArgumentException("Can't choose landmarks in an empty graph");
+        }
+        k = numLandmarks;
+        from = new float[ids.length * k];
+        to = new float[ids.length * k];
+        landmarks = new long[k];
+
+        Builder builder = new Builder();
+        Random random = new Random(seed);
+        float max = 0;
+        for (int l = 0; l < k; l++) {
+            int landmark = l == 0 || selection == Selection.FARTHEST
+                    ? builder.farthest(l, random) : builder.avoid(l, random);
+            landmarks[l] = ids[landmark];
+            double[] forward = builder.dijkstra(landmark, builder.out);
+            double[] backward = builder.dijkstra(landmark, builder.in);
+            for (int v = 0; v < ids.length; v++) {
+                from[v * k + l] = (float) forward[v];
+                to[v * k + l] = (float) backward[v];
+                max = Math.max(max, finite(from[v * k + l]));
+                max = Math.max(max, finite(to[v * k + l]));
+            }
+        }
+        // Each float is off by at most half an ulp, so a difference of two by at most one.
+        slack = Math.ulp(max);
+    }
+
+    /** Returns the landmarks, in the order they were chosen. */
+    public long[] landmarks() {
+        return landmarks.clone();
+    }
+
+    @Override
+    public List<WeightedEdge<Long>> neighbors(Long v) {
+        return graph.neighbors(v);
+    }
+
+    @Override
+    public void forEachNeighbor(Long v, EdgeVisitor<Long> visitor) {
+        graph.forEachNeighbor(v, visitor);
+    }
+
+    @Override
+    public List<WeightedEdge<Long>> reverseNeighbors(Long v) {
+        return graph.reverseNeighbors(v);
+    }
+
+    @Override
+    public void forEachReverseNeighbor(Long v, EdgeVisitor<Long> visitor) {
+        graph.forEachReverseNeighbor(v, visitor);
+    }
+
+    /** Returns the larger of the landmark bound and the great-circle distance. */
+    @Override
+    public double estimatedDistanceToGoal(Long s, Long goal) {
+        Cached cached = lastGoal;
+        if (cached.id != goal) {
+            cached = new Cached(goal, index(goal));
+            lastGoal = cached;
+        }
+        double bound = bound(index(s), cached.index);
+        return Math.max(bound, graph.estimatedDistanceToGoal(s, goal));
+    }
+
+    @Override
+    public double estimatedDistanceFromStart(Long start, Long v) {
+        Cached cached = lastStart;
+        if (cached.id != start) {
+            cached = new Cached(start, index(start));
+            lastStart = cached;
+        }
+        double bound = bound(cached.index, index(v));
+        return Math.max(bound, graph.estimatedDistanceToGoal(v, start));
+    }
+
+    /** Returns the landmark lower bound on the distance from vertex s to vertex t. */
+    private double bound(int s, int t) {
+        double best = 0;
+        int sRow = s * k;
+        int tRow = t * k;
+        for (int l = 0; l < k; l++) {
+            // d(s, t) >= d(s, L) - d(t, L) and d(s, t) >= d(L, t) - d(L, s). Infinite
+            // distances (the landmark is unreachable) make the difference meaningless. The
+            // differences are taken in double, where they round by far less than the slack,
+            // so that the slack alone keeps the result a lower bound.
+            double toL = (double) to[sRow + l] - to[tRow + l];
+            if (toL > best && toL != Double.POSITIVE_INFINITY) {
+                best = toL;
+            }
+            double fromL = (double) from[tRow + l] - from[sRow + l];
+            if (fromL > best && fromL != Double.POSITIVE_INFINITY) {
+                best = fromL;
+            }
+        }
+        return Math.max(0, best - slack);
+    }
+
+    private int index(long id) {
+        int index = Arrays.binarySearch(ids, id);
+        if (index < 0) {
+            throw new IllegalArgumentException("Not a vertex: " + id);
+        }
+        return index;
+    }
+
+    private static float finite(float distance) {
+        return distance == Float.POSITIVE_INFINITY ? 0 : distance;
+    }
+
+    /** A vertex id and its index, swapped in as a whole so that threads can share it. */
+    private static class Cached {
+        private final long id;
+        private final int index;
+
+        Cached(long id, int index) {
+            this.id = id;
+            this.index = index;
+        }
+    }
+
+    /**
+     * The graph in compressed sparse row form for the precomputation, which runs 2k
+     * full Dijkstra searches plus the ones landmark selection needs.
+     */
+    private class Builder {
+        private final Adjacency out;
+        private final Adjacency in;
+
+        Builder() {
+            out = new Adjacency(false);
+            in = new Adjacency(true);
+        }
+
+        /**
+         * Returns shortest path distances from source over the given edges, infinity
+         * for vertices it can't reach.
+         */
+        double[] dijkstra(int source, Adjacency edges) {
+            return dijkstra(source, edges, null, null);
+        }
+
+        /**
+         * Same as above, also recording each vertex's parent in the shortest path tree
+         * and the order vertices are settled in, if those arrays are given. The order
+         * array is filled with -1 after the last settled vertex.
+         */
+        double[] dijkstra(int source, Adjacency edges, int[] parent, int[] order) {
+            double[] dist = new double[ids.length];
+            Arrays.fill(dist, Double.POSITIVE_INFINITY);
+            if (parent != null) {
+                Arrays.fill(parent, -1);
+                Arrays.fill(order, -1);
+            }
+            IntMinPQ pq = new IntMinPQ(ids.length);
+            dist[source] = 0;
+            pq.add(source, 0);
+            int settled = 0;
+            while (!pq.isEmpty()) {
+                int v = pq.removeSmallest();
+                if (order != null) {
+                    order[settled] = v;
+                }
+                settled++;
+                for (int e = edges.start[v]; e < edges.start[v + 1]; e++) {
+                    int w = edges.target[e];
+                    double distance = dist[v] + edges.weight[e];
+                    if (distance < dist[w]) {
+                        if (pq.contains(w)) {
+                            pq.changePriority(w, distance);
+                        } else {
+                            pq.add(w, distance);
+                        }
+                        dist[w] = distance;
+                        if (parent != null) {
+                            parent[w] = v;
+                        }
+                    }
+                }
+            }
+            return dist;
+        }
+
+        /**
+         * Returns the vertex whose distance from the nearest of the first l landmarks is
+         * largest. The first landmark is the vertex farthest from a random vertex.
+         */
+        int farthest(int l, Random random) {
+            double[] nearest = new double[ids.length];
+            if (l == 0) {
+                nearest = dijkstra(random.nextInt(ids.length), out);
+            } else {
+                Arrays.fill(nearest, Double.POSITIVE_INFINITY);
+                for (int v = 0; v < ids.length; v++) {
+                    for (int j = 0; j < l; j++) {
+                        nearest[v] = Math.min(nearest[v], from[v * k + j]);
+                    }
+                }
+            }
+            int farthest = 0;
+            for (int v = 1; v < ids.length; v++) {
+                if (finite(nearest[v]) > finite(nearest[farthest])) {
+                    farthest = v;
+                }
+            }
+            return farthest;
+        }
+
+        /**
+         * Grows the shortest path tree of a random root, weighs each vertex by how much
+         * the first l landmarks underestimate its distance from the root, and returns the
+         * leaf reached by always stepping into the heaviest subtree, skipping subtrees
+         * that already contain a landmark.
+         */
+        int avoid(int l, Random random) {
+            int root = random.nextInt(ids.length);
+            int[] parent = new int[ids.length];
+            int[] order = new int[ids.length];
+            double[] dist = dijkstra(root, out, parent, order);
+            double[] size = new double[ids.length];
+            boolean[] hasLandmark = new boolean[ids.length];
+            for (int j = 0; j < l; j++) {
+                hasLandmark[Arrays.binarySearch(ids, landmarks[j])] = true;
+            }
+            int[] heaviestChild = new int[ids.length];
+            Arrays.fill(heaviestChild, -1);
+            // Children are settled after their parents, so walking the settle order
+            // backwards finishes every subtree before its root.
+            for (int i = ids.length - 1; i >= 0; i--) {
+                int v = order[i];
+                if (v < 0) {
+                    continue;
+                }
+                if (hasLandmark[v]) {
+                    size[v] = 0;
+                } else {
+                    size[v] += dist[v] - bound(root, v);
+                }
+                int p = parent[v];
+                if (p >= 0) {
+                    hasLandmark[p] |= hasLandmark[v];
+                    size[p] += size[v];
+                    if (heaviestChild[p] < 0 || size[v] > size[heaviestChild[p]]) {
+                        heaviestChild[p] = v;
+                    }
+                }
+            }
+            int v = root;
+            while (heaviestChild[v] >= 0 && size[heaviestChild[v]] > 0) {
+                v = heaviestChild[v];
+            }
+            return v;
+        }
+
+        private double finite(double distance) {
+            return distance == Double.POSITIVE_INFINITY ? 0 : distance;
+        }
+    }
+
+    /** Edges in compressed sparse row form, indexed like ids. */
+    private class Adjacency {
+        private final int[] start;
+        private final int[] target;
+        private final double[] weight;
+
+        Adjacency(boolean reverse) {
+            start = new int[ids.length + 1];
+            for (int v = 0; v < ids.length; v++) {
+                start[v + 1] = start[v] + edges(v, reverse).size();
+            }
+            target = new int[start[ids.length]];
+            weight = new double[start[ids.length]];
+            for (int v = 0; v < ids.length; v++) {
+                int e = start[v];
+                for (WeightedEdge<Long> edge : edges(v, reverse)) {
+                    target[e] = index(edge.to());
+                    weight[e] = edge.weight();
+                    e++;
+                }
+            }
+        }
+
+        private List<WeightedEdge<Long>> edges(int v, boolean reverse) {
+            return reverse ? graph.reverseNeighbors(ids[v]) : graph.neighbors(ids[v]);
+        }
+    }
+}
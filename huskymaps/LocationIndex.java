@@ -0,0 +1,188 @@
+package huskymaps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * The named locations of a map, sorted by name for prefix and exact-match search. Shared by
+ * StreetMapGraph and the CompactStreetMapGraph made from it, since search only needs the
+ * nodes that have names.
+ */
+class LocationIndex {
+    private final Node[] nodeList;
+
+    LocationIndex(Collection<Node> nodes) {
+        nodeList = nodeSortedByName(nodes);
+    }
+
+    /** Returns the named locations, sorted by name. */
+    List<Node> nodes() {
+        return Collections.unmodifiableList(Arrays.asList(nodeList));
+    }
+
+    /**
+     * In linear time, collect all the names of OSM locations that prefix-match the query string.
+     * @param prefix Prefix string to be searched for. Could be any case, with our without
+     *               punctuation.
+     * @return A <code>List</code> of full names of locations matching the <code>prefix</code>.
+     */
+    List<String> getLocationsByPrefix(String prefix) {
+        List<String> result = new LinkedList<>();
+
+        int leftMostIndex = leftMostIndex(prefix, 0, nodeList.length, false);
+        int rightMostIndex = rightMostIndex(prefix, 0, nodeList.length, false);
+
+        if (leftMostIndex != -1) {
+            for (int i = leftMostIndex; i <= rightMostIndex; i++) {
+                result.add(nodeList[i].name());
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Collect all locations that match a cleaned <code>locationName</code>, and return
+     * information about each node that matches.
+     * @param locationName A full name of a location searched for.
+     * @return A list of locations whose name matches the <code>locationName</code>.
+     */
+    List<Node> getLocations(String locationName) {
+        List<Node> result = new LinkedList<>();
+
+        int leftMostIndex = leftMostIndex(locationName, 0, nodeList.length, true);
+        int rightMostIndex = rightMostIndex(locationName, 0, nodeList.length, true);
+
+        if (leftMostIndex != -1) {
+            for (int i = leftMostIndex; i <= rightMostIndex; i++) {
+                result.add(nodeList[i]);
+            }
+        }
+
+        return result;
+
+    }
+
+    private int leftMostIndex(String prefix, int left, int right, boolean findExactMatch) {
+
+        while (left <= right) {
+            int mid = (left + right) / 2;
+            String currentPrefix = nodeList[mid].name().toLowerCase();
+            if (currentPrefix.length() > prefix.length()){
+                currentPrefix = currentPrefix.substring(0, prefix.length());
+            }
+            if (isLeftMost(prefix, currentPrefix, mid, findExactMatch)) {
+                return mid;
+            } else if (currentPrefix.compareTo(prefix.toLowerCase()) < 0) {
+                left = mid + 1;
+            } else {
+                right = mid - 1;
+            }
+        }
+
+        return -1;
+    }
+
+    private boolean isLeftMost(String prefix, String currentPrefix, int mid, boolean findExactMatch) {
+        if (mid == 0) {
+            return true;
+        }
+        String previousPrefix = nodeList[mid - 1].name().toLowerCase();
+        if (previousPrefix.length() > prefix.length()){
+            previousPrefix = previousPrefix.substring(0, prefix.length());
+        }
+        if (findExactMatch) {
+            return prefix.toLowerCase().compareTo(previousPrefix) > 0 && prefix.equalsIgnoreCase(nodeList[mid].name());
+        } else {
+            return prefix.toLowerCase().compareTo(previousPrefix) > 0
+                    && prefix.equalsIgnoreCase(currentPrefix);
+        }
+    }
+
+    private int rightMostIndex(String prefix, int left, int right, boolean findExactMatch) {
+
+        while (left <= right) {
+            int mid = (left + right) / 2;
+            String currentPrefix = nodeList[mid].name().toLowerCase();
+            if (currentPrefix.length() > prefix.length()){
+                currentPrefix = currentPrefix.substring(0, prefix.length());
+            }
+            if (isRightMost(prefix, currentPrefix, mid, findExactMatch)) {
+                return mid;
+            } else if (currentPrefix.compareTo(prefix.toLowerCase()) > 0) {
+                right = mid - 1;
+            } else {
+                left = mid + 1;
+            }
+        }
+
+        return -1;
+    }
+
+    private boolean isRightMost(String prefix, String currentPrefix, int mid, boolean findExactMatch) {
+        if (mid == nodeList.length - 1) {
+            return true;
+        }
+        String nextPrefix = nodeList[mid + 1].name().toLowerCase();
+        if (nextPrefix.length() > prefix.length()){
+            nextPrefix = nextPrefix.substring(0, prefix.length());
+        }
+        if (findExactMatch) {
+            return prefix.toLowerCase().compareTo(nextPrefix) < 0 && prefix.equalsIgnoreCase(nodeList[mid].name());
+        } else {
+            return prefix.toLowerCase().compareTo(nextPrefix) < 0
+                    && prefix.equalsIgnoreCase(currentPrefix);
+        }
+    }
+
+    private static Node[] nodeSortedByName(Collection<Node> nodes) {
+
+        int haveName = 0;
+        for (Node node : nodes) {
+            if (node.name() != null) {
+                haveName++;
+            }
+        }
+        int i = 0;
+        Node[] result = new Node[haveName];
+        for (Node node : nodes) {
+            if (node.name() != null) {
+                result[i] = node;
+                i++;
+            }
+        }
+        mergeSort(result);
+
+        return result;
+    }
+
+    private static void mergeSort(Node[] list) {
+        if (list.length > 1) {
+
+            Node[] left = Arrays.copyOfRange(list, 0, list.length / 2);
+            Node[] right = Arrays.copyOfRange(list, list.length / 2, list.length);
+
+            mergeSort(left);
+            mergeSort(right);
+            merge(list, left, right);
+        }
+    }
+
+    private static void merge(Node[] list, Node[] left, Node[] right) {
+        int i1 = 0;
+        int i2 = 0;
+        for (int i = 0; i < list.length; i++) {
+
+            if (i2 >= right.length || (i1 < left.length && left[i1].name().compareTo(right[i2].name()) < 0)) {
+                list[i] = left[i1];
+                i1++;
+            } else {
+                list[i] = right[i2];
+                i2++;
+            }
+        }
+    }
+}
@@ -16,10 +16,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
-import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Queue;
 import java.util.Set;
 import java.util.zip.GZIPInputStream;
 
@@ -40,11 +39,13 @@ import static huskymaps.utils.Constants.PLACES_PATH;
  *  The idea here is that some external library is going to walk through the XML file,
  *  and call the startElement and endElement methods when it enters and exits every
  *  element in the file. It is similar to the Visitor pattern we discussed for graphs.
+ *  The handler in turn reports the nodes and roads it finds to an OSMListener, which
+ *  builds the graph.
  */
 final class OSMGraphHandler extends DefaultHandler {
 
     /** Only allow for non-service roads; this prevents going on pedestrian streets. */
-    private static final Set<String> ALLOWED_HIGHWAY_TYPES = Set.of(
+    static final Set<String> ALLOWED_HIGHWAY_TYPES = Set.of(
             "motorway", "trunk", "primary", "secondary", "tertiary", "unclassified", "residential",
             "living_street", "motorway_link", "trunk_link", "primary_link", "secondary_link",
             "tertiary_link"
@@ -52,18 +53,24 @@ final class OSMGraphHandler extends DefaultHandler {
     private String activeState;
     private boolean validWay;
     private String wayName;
-    private final StreetMapGraph g;
+    private final OSMListener listener;
     private Node.Builder nodeBuilder;
-    private Queue<Long> nodePath;
-    private Map<String, Integer> places;
+    private long[] nodePath;
+    private int nodePathLength;
+    private final Map<String, Integer> places;
 
-    private OSMGraphHandler(StreetMapGraph g) {
+    private OSMGraphHandler(OSMListener listener) {
         this.activeState = "";
         this.validWay = false;
         this.wayName = "";
-        this.g = g;
-        this.nodeBuilder = g.nodeBuilder();
-        this.nodePath = new ArrayDeque<>();
+        this.listener = listener;
+        this.nodeBuilder = new Node.Builder();
+        this.nodePath = new long[16];
+        this.places = loadPlaces();
+    }
+
+    /** Returns the importance of each known place by name, or no places if they can't be read. */
+    static Map<String, Integer> loadPlaces() {
         try {
             InputStream fileStream;
             if (!HEROKU_DEPLOYMENT) {
@@ -73,10 +80,10 @@ final class OSMGraphHandler extends DefaultHandler {
                 fileStream = Thread.currentThread().getContextClassLoader().getResourceAsStream(PLACES_PATH);
             }
             Reader fileReader = new InputStreamReader(fileStream);
-            places = new Gson().fromJson(fileReader, new TypeToken<HashMap<String, Integer>>() {}.getType());
+            return new Gson().fromJson(fileReader, new TypeToken<HashMap<String, Integer>>() {}.getType());
         } catch (IOException | NullPointerException e) {
             e.printStackTrace();
-            places = Map.of();
+            return Map.of();
         }
     }
 
@@ -85,7 +92,7 @@ final class OSMGraphHandler extends DefaultHandler {
      * @param s Input string.
      * @return Cleaned string.
      */
-    private static String normalize(String s) {
+    static String normalize(String s) {
         return s.strip()
                 .replace('“', '"')
                 .replace('”', '"')
@@ -96,22 +103,33 @@ final class OSMGraphHandler extends DefaultHandler {
     /** Initialize the graph from an OSM file. Assumes file is correctly formatted. */
     public static void initializeFromXML(StreetMapGraph g, String filename) {
         try {
-            SAXParserFactory factory = SAXParserFactory.newInstance();
-            SAXParser saxParser = factory.newSAXParser();
-            OSMGraphHandler handler = new OSMGraphHandler(g);
-            InputStream fileStream;
-            if (!HEROKU_DEPLOYMENT) {
-                File inputFile = new File(filename);
-                fileStream = new FileInputStream(inputFile);
-            } else {
-                fileStream = Thread.currentThread().getContextClassLoader().getResourceAsStream(filename);
-            }
-            saxParser.parse(new GZIPInputStream(fileStream), handler);
+            parse(new GZIPInputStream(open(filename)), new GraphListener(g));
         } catch (ParserConfigurationException | SAXException | IOException e) {
             e.printStackTrace();
         }
     }
 
+    /** Opens an OSM file, from the classpath when deployed. The stream is still compressed. */
+    static InputStream open(String filename) throws IOException {
+        if (!HEROKU_DEPLOYMENT) {
+            return new FileInputStream(new File(filename));
+        }
+        InputStream fileStream =
+                Thread.currentThread().getContextClassLoader().getResourceAsStream(filename);
+        if (fileStream == null) {
+            throw new IOException(filename + " is not on the classpath");
+        }
+        return fileStream;
+    }
+
+    /** Parses uncompressed OSM XML, reporting its nodes and roads to listener. */
+    static void parse(InputStream in, OSMListener listener)
+            throws ParserConfigurationException, SAXException, IOException {
+        SAXParserFactory factory = SAXParserFactory.newInstance();
+        SAXParser saxParser = factory.newSAXParser();
+        saxParser.parse(in, new OSMGraphHandler(listener));
+    }
+
     /**
      * Called at the beginning of an element.
      * @param uri The Namespace URI, or the empty string if the element has no Namespace URI or
@@ -139,7 +157,10 @@ final class OSMGraphHandler extends DefaultHandler {
             activeState = "way";
         } else if (activeState.equals("way") && qName.equals("nd")) {
             /* While looking at a way, we found a <nd...> tag. */
-            nodePath.add(Long.parseLong(attributes.getValue("ref")));
+            if (nodePathLength == nodePath.length) {
+                nodePath = Arrays.copyOf(nodePath, 2 * nodePathLength);
+            }
+            nodePath[nodePathLength++] = Long.parseLong(attributes.getValue("ref"));
         } else if (activeState.equals("way") && qName.equals("tag")) {
             /* While looking at a way, we found a <tag...> tag. */
             String k = attributes.getValue("k");
@@ -169,18 +190,13 @@ final class OSMGraphHandler extends DefaultHandler {
     public void endElement(String uri, String localName, String qName) throws SAXException {
         if (qName.equals("way")) {
             /* We are done looking at a way. (We finished looking at the nodes, speeds, etc...)*/
-            if (validWay && !nodePath.isEmpty()) {
-                long from = nodePath.remove();
-                while (!nodePath.isEmpty()) {
-                    long to = nodePath.remove();
-                    g.addWeightedEdge(from, to, wayName);
-                    g.addWeightedEdge(to, from, wayName);
-                    from = to;
-                }
+            if (validWay && nodePathLength > 0) {
+                listener.way(nodePath, nodePathLength, wayName);
             }
             clearStates();
         } else if (qName.equals("node")) {
-            g.addNode(nodeBuilder.createNode());
+            listener.node(nodeBuilder.id, nodeBuilder.lat, nodeBuilder.lon, nodeBuilder.name,
+                    nodeBuilder.importance);
             clearStates();
         }
     }
@@ -188,8 +204,30 @@ final class OSMGraphHandler extends DefaultHandler {
     private void clearStates() {
         activeState = "";
         validWay = false;
-        nodePath.clear();
-        nodeBuilder = g.nodeBuilder();
+        nodePathLength = 0;
+        nodeBuilder.setName(null).setImportance(0);
         wayName = "";
     }
+
+    /** Adds nodes and roads straight to a StreetMapGraph, one edge at a time. */
+    static class GraphListener implements OSMListener {
+        private final StreetMapGraph g;
+
+        GraphListener(StreetMapGraph g) {
+            this.g = g;
+        }
+
+        @Override
+        public void node(long id, double lat, double lon, String name, int importance) {
+            g.addNode(new Node(id, lat, lon, name, importance));
+        }
+
+        @Override
+        public void way(long[] nodes, int length, String name) {
+            for (int i = 1; i < length; i++) {
+                g.addWeightedEdge(nodes[i - 1], nodes[i], name);
+                g.addWeightedEdge(nodes[i], nodes[i - 1], name);
+            }
+        }
+    }
 }
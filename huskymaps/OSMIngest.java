@@ -0,0 +1,536 @@
+package huskymaps;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
+
+import static huskymaps.utils.Spatial.greatCircleDistance;
+
+/**
+ * Reads an OSM file into a CompactStreetMapGraph as a pipeline, rather than decompressing,
+ * parsing and adding edges to a StreetMapGraph one at a time on one thread:
+ *
+ * 1. A decompression thread inflates the file into a queue of chunks.
+ * 2. A parser thread runs OSMGraphHandler over the chunks and collects the nodes and roads
+ *    it reports into batches of primitive arrays. PBF files skip the first stage, and the
+ *    parser thread runs OSMPBFReader, which inflates and decodes blocks on its own pool.
+ * 3. The calling thread adds each node batch to a hash table of coordinates, and hands each
+ *    road batch to a pool of workers, which look up both ends of every edge and compute its
+ *    great-circle weight.
+ * 4. Once the whole file is parsed, the vertices are sorted by id and the edges are
+ *    gathered, in file order, into the compressed sparse row arrays in two passes.
+ *
+ * The result is the graph StreetMapGraph.compact makes of the same file. As there, a road
+ * only gets the edges whose nodes came before it in the file (OSM files list all nodes
+ * first), so workers read the table while the calling thread waits to add the next node
+ * batch, and a node that appears twice keeps its first coordinates.
+ */
+final class OSMIngest {
+    /* Bytes per decompressed chunk, and chunks or batches that may wait in a queue. */
+    private static final int CHUNK_BYTES = 1 << 16;
+    private static final int QUEUE_LENGTH = 64;
+    /* Nodes per node batch, and node references per road batch. */
+    private static final int BATCH_SIZE = 1 << 14;
+    /* Ends the queues. */
+    private static final byte[] END_OF_CHUNKS = new byte[0];
+    private static final Batch END_OF_BATCHES = new Batch() { };
+
+    private OSMIngest() {
+    }
+
+    /**
+     * Reads a gzipped OSM XML file, or a PBF file if its name ends in .pbf, computing edge
+     * weights (and decoding PBF blocks) on the given number of worker threads.
+     * @throws IOException if the file can't be read or parsed
+     */
+    static CompactStreetMapGraph ingest(String filename, int threads) throws IOException {
+        BlockingQueue<byte[]> chunks = new ArrayBlockingQueue<>(QUEUE_LENGTH);
+        BlockingQueue<Batch> batches = new ArrayBlockingQueue<>(QUEUE_LENGTH);
+        InputStream file = OSMGraphHandler.open(filename);
+        boolean pbf = filename.endsWith(".pbf");
+        // Unless cancelled, each stage ends its queue even if it fails, so the next one stops.
+        // PBF blocks are inflated by OSMPBFReader as it decodes them, so its inflater is idle.
+        Stage inflater = new Stage("OSM inflater", () -> {
+            try {
+                if (!pbf) {
+                    inflate(file, chunks);
+                }
+            } finally {
+                if (!Thread.currentThread().isInterrupted()) {
+                    put(chunks, END_OF_CHUNKS);
+                }
+            }
+        });
+        Stage parser = new Stage("OSM parser", () -> {
+            try {
+                Batcher batcher = new Batcher(batches);
+                if (pbf) {
+                    OSMPBFReader.read(file, batcher, threads);
+                } else {
+                    ChunkStream in = new ChunkStream(chunks);
+                    OSMGraphHandler.parse(in, batcher);
+                    in.skipToEnd();
+                }
+                batcher.flush();
+            } finally {
+                if (!Thread.currentThread().isInterrupted()) {
+                    put(batches, END_OF_BATCHES);
+                }
+            }
+        });
+        ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            inflater.start();
+            parser.start();
+            Builder builder = new Builder(workers);
+            for (Batch batch = take(batches); batch != END_OF_BATCHES; batch = take(batches)) {
+                if (batch instanceof NodeBatch) {
+                    builder.addNodes((NodeBatch) batch);
+                } else {
+                    builder.addWays((WayBatch) batch);
+                }
+            }
+            finish(inflater, parser);
+            return builder.build();
+        } finally {
+            inflater.interrupt();
+            parser.interrupt();
+            workers.shutdownNow();
+            file.close();
+        }
+    }
+
+    /** Decompresses file into chunks of CHUNK_BYTES, the last one possibly shorter. */
+    private static void inflate(InputStream file, BlockingQueue<byte[]> chunks)
+            throws IOException {
+        InputStream in = new GZIPInputStream(file, CHUNK_BYTES);
+        byte[] chunk = in.readNBytes(CHUNK_BYTES);
+        while (chunk.length > 0) {
+            put(chunks, chunk);
+            chunk = in.readNBytes(CHUNK_BYTES);
+        }
+    }
+
+    /**
+     * Waits for both stages, throwing the first failure. A failed parser stops the inflater,
+     * though a decompression error is reported over the parse error it likely caused.
+     */
+    private static void finish(Stage inflater, Stage parser) throws IOException {
+        try {
+            parser.join();
+            if (parser.failure != null) {
+                inflater.interrupt();
+            }
+            inflater.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading OSM file");
+        }
+        Throwable failure = parser.failure;
+        if (inflater.failure != null && !(inflater.failure instanceof CancellationException)) {
+            failure = inflater.failure;
+        }
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        } else if (failure != null) {
+            throw new IOException("Could not parse OSM file", failure);
+        }
+    }
+
+    private static <T> T take(BlockingQueue<T> queue) throws InterruptedIOException {
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading OSM file");
+        }
+    }
+
+    /**
+     * Puts item in queue, throwing an unchecked exception if interrupted so that it can be
+     * used from a listener.
+     */
+    private static <T> void put(BlockingQueue<T> queue, T item) {
+        try {
+            queue.put(item);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("OSM ingest was cancelled");
+        }
+    }
+
+    /** Something a Stage does, which may throw anything. */
+    private interface Task {
+        void run() throws Exception;
+    }
+
+    /** A thread of the pipeline, remembering how it failed. */
+    private static class Stage extends Thread {
+        private final Task task;
+        private volatile Throwable failure;
+
+        Stage(String name, Task task) {
+            super(name);
+            this.task = task;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                task.run();
+            } catch (Exception | Error e) {
+                failure = e;
+            }
+        }
+    }
+
+    /** Reads the chunks the inflater queues, up to END_OF_CHUNKS. */
+    private static class ChunkStream extends InputStream {
+        private final BlockingQueue<byte[]> chunks;
+        private byte[] chunk = new byte[0];
+        private int position = 0;
+
+        ChunkStream(BlockingQueue<byte[]> chunks) {
+            this.chunks = chunks;
+        }
+
+        /** Returns whether there is a chunk left to read from, taking the next if needed. */
+        private boolean fill() throws InterruptedIOException {
+            while (chunk != END_OF_CHUNKS && position == chunk.length) {
+                chunk = take(chunks);
+                position = 0;
+            }
+            return chunk != END_OF_CHUNKS;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return fill() ? chunk[position++] & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            int n = Math.min(len, chunk.length - position);
+            System.arraycopy(chunk, position, b, off, n);
+            position += n;
+            return n;
+        }
+
+        /** Discards whatever the parser left unread, so that the inflater can finish. */
+        void skipToEnd() throws InterruptedIOException {
+            while (fill()) {
+                position = chunk.length;
+            }
+        }
+    }
+
+    /** Nodes or roads in file order, passed from the parser to the builder. */
+    private abstract static class Batch {
+        int size;
+    }
+
+    private static class NodeBatch extends Batch {
+        final long[] ids = new long[BATCH_SIZE];
+        final double[] lats = new double[BATCH_SIZE];
+        final double[] lons = new double[BATCH_SIZE];
+        final String[] names = new String[BATCH_SIZE];
+        final int[] importance = new int[BATCH_SIZE];
+    }
+
+    /** Roads, where road i runs through refs[starts[i]] until refs[starts[i + 1]]. */
+    private static class WayBatch extends Batch {
+        long[] refs = new long[BATCH_SIZE];
+        int[] starts = new int[64];
+        String[] names = new String[64];
+
+        int numRefs() {
+            return starts[size];
+        }
+    }
+
+    /** Collects what OSMGraphHandler reports into batches, keeping nodes and roads in order. */
+    private static class Batcher implements OSMListener {
+        private final BlockingQueue<Batch> batches;
+        private NodeBatch nodes = new NodeBatch();
+        private WayBatch ways = new WayBatch();
+
+        Batcher(BlockingQueue<Batch> batches) {
+            this.batches = batches;
+        }
+
+        @Override
+        public void node(long id, double lat, double lon, String name, int importance) {
+            if (ways.size > 0) {
+                flush();
+            }
+            NodeBatch b = nodes;
+            b.ids[b.size] = id;
+            b.lats[b.size] = lat;
+            b.lons[b.size] = lon;
+            b.names[b.size] = name;
+            b.importance[b.size] = importance;
+            b.size++;
+            if (b.size == BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        @Override
+        public void way(long[] refs, int length, String name) {
+            if (nodes.size > 0) {
+                flush();
+            }
+            WayBatch b = ways;
+            int start = b.numRefs();
+            if (start + length > b.refs.length) {
+                b.refs = Arrays.copyOf(b.refs, Math.max(2 * b.refs.length, start + length));
+            }
+            if (b.size + 2 > b.starts.length) {
+                b.starts = Arrays.copyOf(b.starts, 2 * b.starts.length);
+                b.names = Arrays.copyOf(b.names, 2 * b.names.length);
+            }
+            System.arraycopy(refs, 0, b.refs, start, length);
+            b.names[b.size] = name;
+            b.size++;
+            b.starts[b.size] = start + length;
+            if (b.numRefs() >= BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        /** Queues the batch being filled, if there is one. */
+        void flush() {
+            if (nodes.size > 0) {
+                put(batches, nodes);
+                nodes = new NodeBatch();
+            }
+            if (ways.size > 0) {
+                put(batches, ways);
+                ways = new WayBatch();
+            }
+        }
+    }
+
+    /** The edges of a road batch, where edge i belongs to road roads[i] of the batch. */
+    private static class EdgeBatch {
+        final WayBatch ways;
+        final int[] sources;
+        final int[] targets;
+        final float[] weights;
+        final int[] roads;
+        int size;
+
+        EdgeBatch(WayBatch ways, int capacity) {
+            this.ways = ways;
+            sources = new int[capacity];
+            targets = new int[capacity];
+            weights = new float[capacity];
+            roads = new int[capacity];
+        }
+
+        void add(int source, int target, float weight, int road) {
+            sources[size] = source;
+            targets[size] = target;
+            weights[size] = weight;
+            roads[size] = road;
+            size++;
+        }
+    }
+
+    /**
+     * Gathers nodes into a table indexed in arrival order, and edges into EdgeBatches
+     * computed by the workers, then builds the graph from both.
+     */
+    private static class Builder {
+        private final ExecutorService workers;
+        private final List<Future<EdgeBatch>> edges = new ArrayList<>();
+        /* How many of the edge batches are known to be done. */
+        private int done = 0;
+
+        private int n = 0;
+        private long[] ids = new long[BATCH_SIZE];
+        private double[] lats = new double[BATCH_SIZE];
+        private double[] lons = new double[BATCH_SIZE];
+        private final List<Node> named = new ArrayList<>();
+        /*
+         * Open addressing from id to index + 1, with 0 for an empty slot. Kept at most half
+         * full.
+         */
+        private long[] keys = new long[2 * BATCH_SIZE];
+        private int[] slots = new int[2 * BATCH_SIZE];
+
+        Builder(ExecutorService workers) {
+            this.workers = workers;
+        }
+
+        /** Adds the nodes of batch that aren't in the table yet. */
+        void addNodes(NodeBatch batch) throws IOException {
+            // The workers read the table, so let them finish before changing it.
+            for (; done < edges.size(); done++) {
+                get(edges.get(done));
+            }
+            if (2 * (n + batch.size) > keys.length) {
+                rehash(Integer.highestOneBit(4 * (n + batch.size) - 1));
+            }
+            for (int i = 0; i < batch.size; i++) {
+                long id = batch.ids[i];
+                int slot = slot(id);
+                if (slots[slot] != 0) {
+                    continue;
+                }
+                if (n == ids.length) {
+                    ids = Arrays.copyOf(ids, 2 * n);
+                    lats = Arrays.copyOf(lats, 2 * n);
+                    lons = Arrays.copyOf(lons, 2 * n);
+                }
+                ids[n] = id;
+                lats[n] = batch.lats[i];
+                lons[n] = batch.lons[i];
+                keys[slot] = id;
+                slots[slot] = ++n;
+                if (batch.names[i] != null) {
+                    named.add(new Node(id, batch.lats[i], batch.lons[i], batch.names[i],
+                            batch.importance[i]));
+                }
+            }
+        }
+
+        /** Has a worker compute the edges of batch. */
+        void addWays(WayBatch batch) {
+            edges.add(workers.submit(() -> edges(batch)));
+        }
+
+        /** Returns the edges along the roads in batch, both ways, with their weights. */
+        private EdgeBatch edges(WayBatch batch) {
+            EdgeBatch result = new EdgeBatch(batch, 2 * batch.numRefs());
+            for (int road = 0; road < batch.size; road++) {
+                for (int r = batch.starts[road] + 1; r < batch.starts[road + 1]; r++) {
+                    int from = index(batch.refs[r - 1]);
+                    int to = index(batch.refs[r]);
+                    if (from >= 0 && to >= 0) {
+                        result.add(from, to, CompactStreetMapGraph.roundUp(
+                                greatCircleDistance(lons[from], lons[to], lats[from], lats[to])),
+                                road);
+                        result.add(to, from, CompactStreetMapGraph.roundUp(
+                                greatCircleDistance(lons[to], lons[from], lats[to], lats[from])),
+                                road);
+                    }
+                }
+            }
+            return result;
+        }
+
+        /** Returns the graph of all the nodes and edges added. */
+        CompactStreetMapGraph build() throws IOException {
+            long[] sortedIds = Arrays.copyOf(ids, n);
+            Arrays.sort(sortedIds);
+            int[] rank = new int[n];
+            double[] sortedLats = new double[n];
+            double[] sortedLons = new double[n];
+            for (int i = 0; i < n; i++) {
+                rank[i] = Arrays.binarySearch(sortedIds, ids[i]);
+                sortedLats[rank[i]] = lats[i];
+                sortedLons[rank[i]] = lons[i];
+            }
+
+            List<EdgeBatch> batches = new ArrayList<>(edges.size());
+            int[] offsets = new int[n + 1];
+            for (Future<EdgeBatch> future : edges) {
+                EdgeBatch batch = get(future);
+                batches.add(batch);
+                for (int e = 0; e < batch.size; e++) {
+                    offsets[rank[batch.sources[e]] + 1]++;
+                }
+            }
+            for (int v = 0; v < n; v++) {
+                offsets[v + 1] += offsets[v];
+            }
+            int m = offsets[n];
+            int[] targets = new int[m];
+            float[] weights = new float[m];
+            int[] names = new int[m];
+            Map<String, Integer> interned = new HashMap<>();
+            List<String> streetNames = new ArrayList<>();
+            int[] next = Arrays.copyOf(offsets, n);
+            for (EdgeBatch batch : batches) {
+                int[] roadNames = new int[batch.ways.size];
+                for (int road = 0; road < roadNames.length; road++) {
+                    roadNames[road] = interned.computeIfAbsent(batch.ways.names[road], name -> {
+                        streetNames.add(name);
+                        return streetNames.size() - 1;
+                    });
+                }
+                for (int e = 0; e < batch.size; e++) {
+                    int i = next[rank[batch.sources[e]]]++;
+                    targets[i] = rank[batch.targets[e]];
+                    weights[i] = batch.weights[e];
+                    names[i] = roadNames[batch.roads[e]];
+                }
+            }
+            return CompactStreetMapGraph.of(sortedIds, sortedLats, sortedLons, offsets, targets,
+                    weights, names, streetNames, new LocationIndex(named));
+        }
+
+        /** Returns the index of the node with the given id, or -1 if there is none. */
+        private int index(long id) {
+            return slots[slot(id)] - 1;
+        }
+
+        /** Returns the slot holding id, or the empty slot where it belongs. */
+        private int slot(long id) {
+            int mask = keys.length - 1;
+            int slot = hash(id) & mask;
+            while (slots[slot] != 0 && keys[slot] != id) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void rehash(int capacity) {
+            keys = new long[capacity];
+            slots = new int[capacity];
+            for (int i = 0; i < n; i++) {
+                int slot = slot(ids[i]);
+                keys[slot] = ids[i];
+                slots[slot] = i + 1;
+            }
+        }
+
+        /* OSM ids are mostly sequential, so mix the bits before masking. */
+        private static int hash(long id) {
+            long h = id * 0x9e3779b97f4a7c15L;
+            return (int) (h ^ (h >>> 32));
+        }
+
+        private static EdgeBatch get(Future<EdgeBatch> future) throws IOException {
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while reading OSM file");
+            } catch (ExecutionException e) {
+                throw new IOException("Could not compute edge weights", e.getCause());
+            }
+        }
+    }
+}
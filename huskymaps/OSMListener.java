@@ -0,0 +1,28 @@
+package huskymaps;
+
+/**
+ * Receives the parts of an OSM file that make up the graph of roads, in file order. The
+ * parser has already done the filtering: every way is a road cars may use, and names are
+ * normalized.
+ */
+interface OSMListener {
+
+    /**
+     * Called for every node.
+     * @param id The OSM id of the node.
+     * @param lat The latitude of the node.
+     * @param lon The longitude of the node.
+     * @param name The name of the place at the node, or null if it has none.
+     * @param importance How important the named place is, 0 if it isn't a known place.
+     */
+    void node(long id, double lat, double lon, String name, int importance);
+
+    /**
+     * Called for every road, which runs both ways between consecutive nodes.
+     * @param nodes The ids of the nodes along the road, in nodes[0] through
+     *              nodes[length - 1]. The array is reused after this call returns.
+     * @param length How many nodes the road has.
+     * @param name The name of the road, or the empty string if it has none.
+     */
+    void way(long[] nodes, int length, String name);
+}
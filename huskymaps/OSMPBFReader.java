@@ -0,0 +1,633 @@
+package huskymaps;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import static huskymaps.OSMGraphHandler.ALLOWED_HIGHWAY_TYPES;
+
+/**
+ * Reads OSM PBF files, the binary format that regional extracts are distributed in, and
+ * reports to an OSMListener the same nodes and roads that OSMGraphHandler finds in OSM XML.
+ *
+ * A PBF file is a sequence of blobs, each a 4-byte big-endian length, a BlobHeader message
+ * and a Blob message holding one block, usually zlib compressed. The first block is an
+ * OSMHeader listing the features a reader needs; the rest are OSMData PrimitiveBlocks of
+ * nodes (usually delta coded as DenseNodes), ways and relations, which refer to strings by
+ * their index in the block's string table. See
+ * <a href="https://wiki.openstreetmap.org/wiki/PBF_Format">the PBF format</a>.
+ *
+ * Blocks don't depend on each other, so the calling thread only reads blobs from the file
+ * while a pool of threads inflates and decodes them, a few blocks ahead. The listener is
+ * still called on the calling thread in file order, with the nodes of each block before its
+ * ways. The protocol buffers are decoded by hand, so nothing but the file is needed.
+ */
+final class OSMPBFReader {
+    /* Limits set by the format, which keep garbage from being read as a huge length. */
+    private static final int MAX_HEADER_BYTES = 64 * 1024;
+    private static final int MAX_BLOB_BYTES = 32 * 1024 * 1024;
+    private static final Set<String> SUPPORTED_FEATURES = Set.of("OsmSchema-V0.6", "DenseNodes");
+    /* Protocol buffer wire types. */
+    private static final int VARINT = 0;
+    private static final int FIXED64 = 1;
+    private static final int LENGTH_DELIMITED = 2;
+    private static final int FIXED32 = 5;
+
+    private OSMPBFReader() {
+    }
+
+    /** Initialize the graph from a PBF file. */
+    public static void initializeFromPBF(StreetMapGraph g, String filename) {
+        try (InputStream in = OSMGraphHandler.open(filename)) {
+            read(in, new OSMGraphHandler.GraphListener(g),
+                    Runtime.getRuntime().availableProcessors());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Reads a PBF file, decoding blocks on the given number of threads, and reports its nodes
+     * and roads to listener.
+     * @throws IOException if the file can't be read, is malformed or needs features this
+     *                     reader doesn't support
+     */
+    static void read(InputStream in, OSMListener listener, int threads) throws IOException {
+        Map<String, Integer> places = OSMGraphHandler.loadPlaces();
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+        ExecutorService decoders = Executors.newFixedThreadPool(Math.max(1, threads));
+        Deque<Future<Block>> pending = new ArrayDeque<>();
+        try {
+            boolean sawHeader = false;
+            RawBlob blob = next(data);
+            while (blob != null) {
+                if (blob.type.equals("OSMHeader")) {
+                    checkHeader(new Protobuf(blob.inflate()));
+                    sawHeader = true;
+                } else if (blob.type.equals("OSMData")) {
+                    if (!sawHeader) {
+                        throw new IOException("OSMData block before the OSMHeader block");
+                    }
+                    RawBlob block = blob;
+                    pending.add(decoders.submit(() -> decode(block.inflate(), places)));
+                    if (pending.size() > 2 * threads) {
+                        get(pending.remove()).report(listener);
+                    }
+                }
+                // Readers are meant to skip blobs of other types.
+                blob = next(data);
+            }
+            while (!pending.isEmpty()) {
+                get(pending.remove()).report(listener);
+            }
+        } finally {
+            decoders.shutdownNow();
+        }
+    }
+
+    /** Returns the next blob in the file, or null at the end of the file. */
+    private static RawBlob next(DataInputStream data) throws IOException {
+        int first = data.read();
+        if (first < 0) {
+            return null;
+        }
+        int headerBytes = first << 24 | data.readUnsignedByte() << 16
+                | data.readUnsignedShort();
+        if (headerBytes < 0 || headerBytes > MAX_HEADER_BYTES) {
+            throw new IOException("Blob header of " + headerBytes + " bytes is too large");
+        }
+        byte[] header = new byte[headerBytes];
+        data.readFully(header);
+        String type = null;
+        int blobBytes = -1;
+        Protobuf message = new Protobuf(header);
+        while (message.hasNext()) {
+            int tag = message.tag();
+            if (tag == field(1, LENGTH_DELIMITED)) {
+                type = message.string();
+            } else if (tag == field(3, VARINT)) {
+                blobBytes = (int) message.varint();
+            } else {
+                message.skip(tag);
+            }
+        }
+        if (type == null || blobBytes < 0 || blobBytes > MAX_BLOB_BYTES) {
+            throw new IOException("Malformed blob header");
+        }
+        byte[] blob = new byte[blobBytes];
+        data.readFully(blob);
+        return new RawBlob(type, blob);
+    }
+
+    /** Checks that this reader supports every feature an OSMHeader block requires. */
+    private static void checkHeader(Protobuf header) throws IOException {
+        while (header.hasNext()) {
+            int tag = header.tag();
+            if (tag == field(4, LENGTH_DELIMITED)) {
+                String feature = header.string();
+                if (!SUPPORTED_FEATURES.contains(feature)) {
+                    throw new IOException("PBF file needs unsupported feature " + feature);
+                }
+            } else {
+                header.skip(tag);
+            }
+        }
+    }
+
+    /** Decodes the nodes and roads in the bytes of a PrimitiveBlock. */
+    private static Block decode(byte[] bytes, Map<String, Integer> places) throws IOException {
+        Protobuf message = new Protobuf(bytes);
+        StringTable strings = null;
+        List<Protobuf> groups = new ArrayList<>();
+        long granularity = 100;
+        long latOffset = 0;
+        long lonOffset = 0;
+        while (message.hasNext()) {
+            int tag = message.tag();
+            if (tag == field(1, LENGTH_DELIMITED)) {
+                strings = new StringTable(message.message());
+            } else if (tag == field(2, LENGTH_DELIMITED)) {
+                groups.add(message.message());
+            } else if (tag == field(17, VARINT)) {
+                granularity = message.varint();
+            } else if (tag == field(19, VARINT)) {
+                latOffset = message.varint();
+            } else if (tag == field(20, VARINT)) {
+                lonOffset = message.varint();
+            } else {
+                message.skip(tag);
+            }
+        }
+        if (strings == null) {
+            throw new IOException("Primitive block without a string table");
+        }
+        Block block = new Block(strings, places, granularity, latOffset, lonOffset);
+        for (Protobuf group : groups) {
+            while (group.hasNext()) {
+                int tag = group.tag();
+                if (tag == field(1, LENGTH_DELIMITED)) {
+                    block.decodeNode(group.message());
+                } else if (tag == field(2, LENGTH_DELIMITED)) {
+                    block.decodeDenseNodes(group.message());
+                } else if (tag == field(3, LENGTH_DELIMITED)) {
+                    block.decodeWay(group.message());
+                } else {
+                    // Relations and changesets aren't part of the graph.
+                    group.skip(tag);
+                }
+            }
+        }
+        return block;
+    }
+
+    private static Block get(Future<Block> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading PBF file");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Could not decode PBF block", e.getCause());
+        }
+    }
+
+    /** Returns the key of the given field and wire type. */
+    private static int field(int number, int wireType) {
+        return number << 3 | wireType;
+    }
+
+    /** A blob as read from the file, still compressed. */
+    private static class RawBlob {
+        private final String type;
+        private final byte[] bytes;
+
+        RawBlob(String type, byte[] bytes) {
+            this.type = type;
+            this.bytes = bytes;
+        }
+
+        /** Returns the bytes of the block inside. */
+        byte[] inflate() throws IOException {
+            Protobuf message = new Protobuf(bytes);
+            int rawSize = -1;
+            byte[] raw = null;
+            byte[] zlib = null;
+            while (message.hasNext()) {
+                int tag = message.tag();
+                if (tag == field(1, LENGTH_DELIMITED)) {
+                    raw = message.bytes();
+                } else if (tag == field(2, VARINT)) {
+                    rawSize = (int) message.varint();
+                } else if (tag == field(3, LENGTH_DELIMITED)) {
+                    zlib = message.bytes();
+                } else if ((tag & 7) == LENGTH_DELIMITED && tag >>> 3 <= 7) {
+                    throw new IOException("Unsupported compression in PBF blob field "
+                            + (tag >>> 3));
+                } else {
+                    message.skip(tag);
+                }
+            }
+            if (raw != null) {
+                return raw;
+            }
+            if (zlib == null || rawSize < 0 || rawSize > MAX_BLOB_BYTES) {
+                throw new IOException("Malformed blob");
+            }
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(zlib);
+                byte[] result = new byte[rawSize];
+                int length = inflater.inflate(result);
+                if (length != rawSize || !inflater.finished()) {
+                    throw new IOException("Blob doesn't inflate to " + rawSize + " bytes");
+                }
+                return result;
+            } catch (DataFormatException e) {
+                throw new IOException("Corrupt zlib data in blob", e);
+            } finally {
+                inflater.end();
+            }
+        }
+    }
+
+    /**
+     * The strings of a block, decoded only when asked for since most are tag values the
+     * graph doesn't use.
+     */
+    private static class StringTable {
+        private final byte[] bytes;
+        private final int[] offsets;
+        private final int[] lengths;
+        private final String[] decoded;
+
+        StringTable(Protobuf message) throws IOException {
+            bytes = message.buffer();
+            List<int[]> ranges = new ArrayList<>();
+            while (message.hasNext()) {
+                int tag = message.tag();
+                if (tag == field(1, LENGTH_DELIMITED)) {
+                    int length = message.length();
+                    ranges.add(new int[] {message.position(), length});
+                    message.advance(length);
+                } else {
+                    message.skip(tag);
+                }
+            }
+            offsets = new int[ranges.size()];
+            lengths = new int[ranges.size()];
+            for (int i = 0; i < offsets.length; i++) {
+                offsets[i] = ranges.get(i)[0];
+                lengths[i] = ranges.get(i)[1];
+            }
+            decoded = new String[offsets.length];
+        }
+
+        String get(int i) throws IOException {
+            if (i < 0 || i >= decoded.length) {
+                throw new IOException("String " + i + " is not in the string table");
+            }
+            if (decoded[i] == null) {
+                decoded[i] = new String(bytes, offsets[i], lengths[i], StandardCharsets.UTF_8);
+            }
+            return decoded[i];
+        }
+
+        /** Returns the index of s, or -1 if it isn't in the table. */
+        int indexOf(String s) {
+            byte[] target = s.getBytes(StandardCharsets.UTF_8);
+            for (int i = 0; i < offsets.length; i++) {
+                if (Arrays.equals(bytes, offsets[i], offsets[i] + lengths[i],
+                        target, 0, target.length)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /** The nodes and roads of one block, in the order they are reported. */
+    private static class Block {
+        private final StringTable strings;
+        private final Map<String, Integer> places;
+        private final long granularity;
+        private final long latOffset;
+        private final long lonOffset;
+        /* The string table indices of the keys the graph uses. */
+        private final int nameKey;
+        private final int highwayKey;
+
+        private int numNodes = 0;
+        private long[] ids = new long[64];
+        private double[] lats = new double[64];
+        private double[] lons = new double[64];
+        private String[] names = new String[64];
+        /* Road i runs through refs[starts[i]] until refs[starts[i + 1]]. */
+        private int numWays = 0;
+        private long[] refs = new long[64];
+        private int[] starts = new int[65];
+        private String[] wayNames = new String[64];
+
+        Block(StringTable strings, Map<String, Integer> places, long granularity,
+              long latOffset, long lonOffset) {
+            this.strings = strings;
+            this.places = places;
+            this.granularity = granularity;
+            this.latOffset = latOffset;
+            this.lonOffset = lonOffset;
+            nameKey = strings.indexOf("name");
+            highwayKey = strings.indexOf("highway");
+        }
+
+        /** Decodes a Node message. */
+        void decodeNode(Protobuf message) throws IOException {
+            long id = 0;
+            long lat = 0;
+            long lon = 0;
+            Protobuf keys = Protobuf.EMPTY;
+            Protobuf values = Protobuf.EMPTY;
+            while (message.hasNext()) {
+                int tag = message.tag();
+                if (tag == field(1, VARINT)) {
+                    id = message.sint64();
+                } else if (tag == field(2, LENGTH_DELIMITED)) {
+                    keys = message.message();
+                } else if (tag == field(3, LENGTH_DELIMITED)) {
+                    values = message.message();
+                } else if (tag == field(8, VARINT)) {
+                    lat = message.sint64();
+                } else if (tag == field(9, VARINT)) {
+                    lon = message.sint64();
+                } else {
+                    message.skip(tag);
+                }
+            }
+            String name = null;
+            while (keys.hasNext() && values.hasNext()) {
+                int key = (int) keys.varint();
+                int value = (int) values.varint();
+                if (key == nameKey) {
+                    name = strings.get(value);
+                }
+            }
+            addNode(id, lat, lon, name);
+        }
+
+        /** Decodes a DenseNodes message, whose ids and coordinates are delta coded. */
+        void decodeDenseNodes(Protobuf message) throws IOException {
+            Protobuf idDeltas = Protobuf.EMPTY;
+            Protobuf latDeltas = Protobuf.EMPTY;
+            Protobuf lonDeltas = Protobuf.EMPTY;
+            Protobuf keysValues = Protobuf.EMPTY;
+            while (message.hasNext()) {
+                int tag = message.tag();
+                if (tag == field(1, LENGTH_DELIMITED)) {
+                    idDeltas = message.message();
+                } else if (tag == field(8, LENGTH_DELIMITED)) {
+                    latDeltas = message.message();
+                } else if (tag == field(9, LENGTH_DELIMITED)) {
+                    lonDeltas = message.message();
+                } else if (tag == field(10, LENGTH_DELIMITED)) {
+                    keysValues = message.message();
+                } else {
+                    message.skip(tag);
+                }
+            }
+            long id = 0;
+            long lat = 0;
+            long lon = 0;
+            while (idDeltas.hasNext()) {
+                id += idDeltas.sint64();
+                lat += latDeltas.sint64();
+                lon += lonDeltas.sint64();
+                // The tags of each node are pairs of string indices ending with a 0.
+                String name = null;
+                int key = keysValues.hasNext() ? (int) keysValues.varint() : 0;
+                while (key != 0) {
+                    int value = (int) keysValues.varint();
+                    if (key == nameKey) {
+                        name = strings.get(value);
+                    }
+                    key = (int) keysValues.varint();
+                }
+                addNode(id, lat, lon, name);
+            }
+        }
+
+        /** Decodes a Way message, keeping it if it's a road cars may use. */
+        void decodeWay(Protobuf message) throws IOException {
+            Protobuf keys = Protobuf.EMPTY;
+            Protobuf values = Protobuf.EMPTY;
+            Protobuf refDeltas = Protobuf.EMPTY;
+            while (message.hasNext()) {
+                int tag = message.tag();
+                if (tag == field(2, LENGTH_DELIMITED)) {
+                    keys = message.message();
+                } else if (tag == field(3, LENGTH_DELIMITED)) {
+                    values = message.message();
+                } else if (tag == field(8, LENGTH_DELIMITED)) {
+                    refDeltas = message.message();
+                } else {
+                    message.skip(tag);
+                }
+            }
+            // Same rules as OSMGraphHandler: the last highway and name tags count.
+            boolean validWay = false;
+            String wayName = "";
+            while (keys.hasNext() && values.hasNext()) {
+                int key = (int) keys.varint();
+                int value = (int) values.varint();
+                if (key == highwayKey) {
+                    validWay = ALLOWED_HIGHWAY_TYPES.contains(strings.get(value));
+                } else if (key == nameKey) {
+                    wayName = strings.get(value);
+                }
+            }
+            if (!validWay || !refDeltas.hasNext()) {
+                return;
+            }
+            if (numWays == wayNames.length) {
+                wayNames = Arrays.copyOf(wayNames, 2 * numWays);
+                starts = Arrays.copyOf(starts, 2 * numWays + 1);
+            }
+            int end = starts[numWays];
+            long ref = 0;
+            while (refDeltas.hasNext()) {
+                ref += refDeltas.sint64();
+                if (end == refs.length) {
+                    refs = Arrays.copyOf(refs, 2 * end);
+                }
+                refs[end++] = ref;
+            }
+            wayNames[numWays] = wayName;
+            numWays++;
+            starts[numWays] = end;
+        }
+
+        private void addNode(long id, long lat, long lon, String name) {
+            if (numNodes == ids.length) {
+                ids = Arrays.copyOf(ids, 2 * numNodes);
+                lats = Arrays.copyOf(lats, 2 * numNodes);
+                lons = Arrays.copyOf(lons, 2 * numNodes);
+                names = Arrays.copyOf(names, 2 * numNodes);
+            }
+            ids[numNodes] = id;
+            // Coordinates are in nanodegrees. Dividing the exact integer rounds once, to the
+            // same double that parsing the decimal degrees in an XML file gives.
+            lats[numNodes] = (latOffset + granularity * lat) / 1e9;
+            lons[numNodes] = (lonOffset + granularity * lon) / 1e9;
+            names[numNodes] = name == null ? null : OSMGraphHandler.normalize(name);
+            numNodes++;
+        }
+
+        /** Reports the nodes, then the roads, to listener. */
+        void report(OSMListener listener) {
+            for (int i = 0; i < numNodes; i++) {
+                int importance = names[i] == null ? 0 : places.getOrDefault(names[i], 0);
+                listener.node(ids[i], lats[i], lons[i], names[i], importance);
+            }
+            long[] nodes = new long[16];
+            for (int i = 0; i < numWays; i++) {
+                int length = starts[i + 1] - starts[i];
+                if (length > nodes.length) {
+                    nodes = new long[length];
+                }
+                System.arraycopy(refs, starts[i], nodes, 0, length);
+                listener.way(nodes, length, wayNames[i]);
+            }
+        }
+    }
+
+    /** Reads the fields of a protocol buffer message, or the values of a packed field. */
+    private static class Protobuf {
+        static final Protobuf EMPTY = new Protobuf(new byte[0]);
+
+        private final byte[] buffer;
+        private int position;
+        private final int limit;
+
+        Protobuf(byte[] buffer) {
+            this(buffer, 0, buffer.length);
+        }
+
+        private Protobuf(byte[] buffer, int position, int limit) {
+            this.buffer = buffer;
+            this.position = position;
+            this.limit = limit;
+        }
+
+        boolean hasNext() {
+            return position < limit;
+        }
+
+        /** Reads the key of the next field, its number and wire type. */
+        int tag() throws IOException {
+            return (int) varint();
+        }
+
+        long varint() throws IOException {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (position >= limit) {
+                    throw new IOException("Truncated protocol buffer");
+                }
+                byte b = buffer[position++];
+                result |= (long) (b & 0x7f) << shift;
+                if (b >= 0) {
+                    return result;
+                }
+            }
+            throw new IOException("Malformed varint");
+        }
+
+        /** Reads a zigzag-encoded signed varint. */
+        long sint64() throws IOException {
+            long n = varint();
+            return (n >>> 1) ^ -(n & 1);
+        }
+
+        /** Reads the length of a length-delimited field, checking that it fits. */
+        int length() throws IOException {
+            long length = varint();
+            if (length < 0 || length > limit - position) {
+                throw new IOException("Truncated protocol buffer");
+            }
+            return (int) length;
+        }
+
+        /** Returns a reader of the next length-delimited field, and skips past it. */
+        Protobuf message() throws IOException {
+            int length = length();
+            Protobuf result = new Protobuf(buffer, position, position + length);
+            position += length;
+            return result;
+        }
+
+        byte[] bytes() throws IOException {
+            int length = length();
+            byte[] result = Arrays.copyOfRange(buffer, position, position + length);
+            position += length;
+            return result;
+        }
+
+        String string() throws IOException {
+            int length = length();
+            String result = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return result;
+        }
+
+        /** Skips the value of a field with the given key. */
+        void skip(int tag) throws IOException {
+            switch (tag & 7) {
+                case VARINT:
+                    varint();
+                    break;
+                case FIXED64:
+                    advance(8);
+                    break;
+                case LENGTH_DELIMITED:
+                    advance(length());
+                    break;
+                case FIXED32:
+                    advance(4);
+                    break;
+                default:
+                    throw new IOException("Unsupported wire type " + (tag & 7));
+            }
+        }
+
+        void advance(int bytes) throws IOException {
+            if (bytes > limit - position) {
+                throw new IOException("Truncated protocol buffer");
+            }
+            position += bytes;
+        }
+
+        byte[] buffer() {
+            return buffer;
+        }
+
+        int position() {
+            return position;
+        }
+    }
+}
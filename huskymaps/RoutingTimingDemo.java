@@ -0,0 +1,107 @@
+package huskymaps;
+
+import astar.AStarEngine;
+import astar.AStarSolver;
+import astar.BidirectionalAStarSolver;
+import astar.ShortestPathsSolver;
+import astar.TreeMapMinPQ;
+import edu.princeton.cs.algs4.Stopwatch;
+import heap.ArrayHeapMinPQ;
+import heap.BlockHeapMinPQ;
+import heap.ExtrinsicMinPQ;
+import heap.PairingHeapMinPQ;
+import heap.PrimitiveHeapMinPQ;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+import static huskymaps.utils.Constants.OSM_DB_PATH;
+
+/**
+ * Times AStarSolver on random routes through the Seattle street graph once for each
+ * ExtrinsicMinPQ implementation (and once each in lazy deletion mode, with a reused
+ * AStarEngine, on the compact graph, bidirectionally, and with the ALT heuristic of a
+ * LandmarkGraph), so the queues can be compared on a real road network.
+ * Every solver answers the same queries in the same order. Without the data submodule,
+ * GridOSMGenerator 300 data/seattle-small.osm.gz writes a 300 by 300 street grid to run on
+ * instead.
+ */
+public class RoutingTimingDemo {
+    private static final int QUERIES = 200;
+    private static final int LANDMARKS = 16;
+
+    public static void main(String[] args) {
+        StreetMapGraph graph = new StreetMapGraph(OSM_DB_PATH);
+        long[][] queries = randomQueries(graph, QUERIES, new Random(373));
+
+        Map<String, BiFunction<Long, Long, ShortestPathsSolver<Long>>> solvers =
+                new LinkedHashMap<>();
+        solvers.put("TreeMapMinPQ", withQueue(graph, TreeMapMinPQ::new));
+        solvers.put("ArrayHeapMinPQ", withQueue(graph, ArrayHeapMinPQ::new));
+        solvers.put("ArrayHeapMinPQ(4)", withQueue(graph, () -> new ArrayHeapMinPQ<>(4)));
+        solvers.put("PrimitiveHeapMinPQ", withQueue(graph, PrimitiveHeapMinPQ::new));
+        solvers.put("BlockHeapMinPQ", withQueue(graph, BlockHeapMinPQ::new));
+        solvers.put("PairingHeapMinPQ", withQueue(graph, PairingHeapMinPQ::new));
+        solvers.put("lazy deletion", (s, t) -> new AStarSolver<>(graph, s, t, 60, true));
+        AStarEngine<Long> engine = new AStarEngine<>();
+        solvers.put("AStarEngine", (s, t) -> engine.solve(graph, s, t, 60));
+        CompactStreetMapGraph compact = graph.compact();
+        solvers.put("compact graph", (s, t) -> engine.solve(compact, s, t, 60));
+        solvers.put("bidirectional", (s, t) -> new BidirectionalAStarSolver<>(graph, s, t, 60));
+        LandmarkGraph landmarks = new LandmarkGraph(graph, LANDMARKS,
+                LandmarkGraph.Selection.AVOID, 373);
+        solvers.put("ALT", (s, t) -> engine.solve(landmarks, s, t, 60));
+        solvers.put("bidirectional ALT",
+                (s, t) -> new BidirectionalAStarSolver<>(landmarks, s, t, 60));
+
+        // Warm up the JIT so the first solver isn't penalized.
+        run(queries, solvers.get("ArrayHeapMinPQ"));
+        for (Map.Entry<String, BiFunction<Long, Long, ShortestPathsSolver<Long>>> solver
+                : solvers.entrySet()) {
+            Stopwatch sw = new Stopwatch();
+            long explored = run(queries, solver.getValue());
+            System.out.printf("%-20s %.3fs for %d queries, %d states explored%n",
+                    solver.getKey(), sw.elapsedTime(), QUERIES, explored);
+        }
+    }
+
+    /** Returns a function that solves a query using a fresh PQ from the supplier. */
+    private static BiFunction<Long, Long, ShortestPathsSolver<Long>> withQueue(
+            StreetMapGraph graph, Supplier<ExtrinsicMinPQ<Long>> queue) {
+        return (s, t) -> new AStarSolver<>(graph, s, t, 60, queue.get());
+    }
+
+    /** Solves every query, returning the total number of states explored. */
+    private static long run(long[][] queries,
+                            BiFunction<Long, Long, ShortestPathsSolver<Long>> solver) {
+        long explored = 0;
+        for (long[] query : queries) {
+            explored += solver.apply(query[0], query[1]).numStatesExplored();
+        }
+        return explored;
+    }
+
+    /** Returns pairs of vertices that each have at least one outgoing edge. */
+    static long[][] randomQueries(StreetMapGraph graph, int n, Random r) {
+        List<Long> navigable = new ArrayList<>();
+        for (long v : graph.vertices()) {
+            if (!graph.neighbors(v).isEmpty()) {
+                navigable.add(v);
+            }
+        }
+        navigable.sort(null);
+        long[][] queries = new long[n][];
+        for (int i = 0; i < n; i++) {
+            queries[i] = new long[]{
+                navigable.get(r.nextInt(navigable.size())),
+                navigable.get(r.nextInt(navigable.size()))
+            };
+        }
+        return queries;
+    }
+}
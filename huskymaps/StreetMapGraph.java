@@ -1,6 +1,7 @@
 package huskymaps;
 
-import astar.AStarGraph;
+import astar.EdgeVisitor;
+import astar.ReversibleAStarGraph;
 import astar.WeightedEdge;
 
 import java.util.Map;
@@ -9,24 +10,29 @@ import java.util.Set;
 import java.util.HashSet;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.Arrays;
 
 import static huskymaps.utils.Spatial.greatCircleDistance;
 import static huskymaps.utils.Spatial.projectToX;
 import static huskymaps.utils.Spatial.projectToY;
 
-public class StreetMapGraph implements AStarGraph<Long> {
+public class StreetMapGraph implements ReversibleAStarGraph<Long> {
     private Map<Long, Node> nodes = new HashMap<>();
     private Map<Long, Set<WeightedEdge<Long>>> neighbors = new HashMap<>();
+    /* Reversed copies of the edges into each vertex. */
+    private Map<Long, Set<WeightedEdge<Long>>> reverseNeighbors = new HashMap<>();
     private KDTree tree = new KDTree();
-    private Node[] nodeList;
+    private LocationIndex locations;
+    /** Reads a gzipped OSM XML file, or an OSM PBF file if its name ends in .pbf. */
     public StreetMapGraph(String filename) {
-        OSMGraphHandler.initializeFromXML(this, filename);
+        if (filename.endsWith(".pbf")) {
+            OSMPBFReader.initializeFromPBF(this, filename);
+        } else {
+            OSMGraphHandler.initializeFromXML(this, filename);
+        }
         for (Long id: nodes.keySet()) {
             tree.add(nodes.get(id));
         }
-        nodeList = nodeSortedByName();
+        locations = new LocationIndex(nodes.values());
     }
 
     /**
@@ -47,18 +53,7 @@ public class StreetMapGraph implements AStarGraph<Long> {
      * @return A <code>List</code> of full names of locations matching the <code>prefix</code>.
      */
     public List<String> getLocationsByPrefix(String prefix) {
-        List<String> result = new LinkedList<>();
-
-        int leftMostIndex = leftMostIndex(prefix, 0, nodeList.length, false);
-        int rightMostIndex = rightMostIndex(prefix, 0, nodeList.length, false);
-
-        if (leftMostIndex != -1) {
-            for (int i = leftMostIndex; i <= rightMostIndex; i++) {
-                result.add(nodeList[i].name());
-            }
-        }
-
-        return result;
+        return locations.getLocationsByPrefix(prefix);
     }
 
     /**
@@ -68,145 +63,44 @@ public class StreetMapGraph implements AStarGraph<Long> {
      * @return A list of locations whose name matches the <code>locationName</code>.
      */
     public List<Node> getLocations(String locationName) {
-        List<Node> result = new LinkedList<>();
-
-        int leftMostIndex = leftMostIndex(locationName, 0, nodeList.length, true);
-        int rightMostIndex = rightMostIndex(locationName, 0, nodeList.length, true);
-
-        if (leftMostIndex != -1) {
-            for (int i = leftMostIndex; i <= rightMostIndex; i++) {
-                result.add(nodeList[i]);
-            }
-        }
-
-        return result;
-
-    }
-
-    private int leftMostIndex(String prefix, int left, int right, boolean findExactMatch) {
-
-        while (left <= right) {
-            int mid = (left + right) / 2;
-            String currentPrefix = nodeList[mid].name().toLowerCase();
-            if (currentPrefix.length() > prefix.length()){
-                currentPrefix = currentPrefix.substring(0, prefix.length());
-            }
-            if (isLeftMost(prefix, currentPrefix, mid, findExactMatch)) {
-                return mid;
-            } else if (currentPrefix.compareTo(prefix.toLowerCase()) < 0) {
-                left = mid + 1;
-            } else {
-                right = mid - 1;
-            }
-        }
-
-        return -1;
-    }
-
-    private boolean isLeftMost(String prefix, String currentPrefix, int mid, boolean findExactMatch) {
-        if (mid == 0) {
-            return true;
-        }
-        String previousPrefix = nodeList[mid - 1].name().toLowerCase();
-        if (previousPrefix.length() > prefix.length()){
-            previousPrefix = previousPrefix.substring(0, prefix.length());
-        }
-        if (findExactMatch) {
-            return prefix.toLowerCase().compareTo(previousPrefix) > 0 && prefix.equalsIgnoreCase(nodeList[mid].name());
-        } else {
-            return prefix.toLowerCase().compareTo(previousPrefix) > 0
-                    && prefix.equalsIgnoreCase(currentPrefix);
-        }
-    }
-
-    private int rightMostIndex(String prefix, int left, int right, boolean findExactMatch) {
-
-        while (left <= right) {
-            int mid = (left + right) / 2;
-            String currentPrefix = nodeList[mid].name().toLowerCase();
-            if (currentPrefix.length() > prefix.length()){
-                currentPrefix = currentPrefix.substring(0, prefix.length());
-            }
-            if (isRightMost(prefix, currentPrefix, mid, findExactMatch)) {
-                return mid;
-            } else if (currentPrefix.compareTo(prefix.toLowerCase()) > 0) {
-                right = mid - 1;
-            } else {
-                left = mid + 1;
-            }
-        }
-
-        return -1;
+        return locations.getLocations(locationName);
     }
 
-    private boolean isRightMost(String prefix, String currentPrefix, int mid, boolean findExactMatch) {
-        if (mid == nodeList.length - 1) {
-            return true;
-        }
-        String nextPrefix = nodeList[mid + 1].name().toLowerCase();
-        if (nextPrefix.length() > prefix.length()){
-            nextPrefix = nextPrefix.substring(0, prefix.length());
-        }
-        if (findExactMatch) {
-            return prefix.toLowerCase().compareTo(nextPrefix) < 0 && prefix.equalsIgnoreCase(nodeList[mid].name());
-        } else {
-            return prefix.toLowerCase().compareTo(nextPrefix) < 0
-                    && prefix.equalsIgnoreCase(currentPrefix);
-        }
+    /**
+     * Returns a frozen copy of this graph in compressed sparse row form, which supports
+     * routing, closest and location search in a fraction of the memory. Later changes to
+     * this graph don't affect the copy.
+     */
+    public CompactStreetMapGraph compact() {
+        return CompactStreetMapGraph.of(this, locations);
     }
 
-    private Node[] nodeSortedByName() {
-
-        int haveName = 0;
-        for (Long id: nodes.keySet()) {
-            if (nodes.get(id).name() != null) {
-                haveName++;
-            }
-        }
-        int i = 0;
-        Node[] result = new Node[haveName];
-        for (Long id: nodes.keySet()) {
-            if (nodes.get(id).name() != null) {
-                result[i] = nodes.get(id);
-                i++;
-            }
-        }
-        mergeSort(result);
-
-        return result;
+    /** Returns a list of outgoing edges for V. Assumes V exists in this graph. */
+    @Override
+    public List<WeightedEdge<Long>> neighbors(Long v) {
+        return new ArrayList<>(neighbors.get(v));
     }
 
-    private void mergeSort(Node[] list) {
-        if (list.length > 1) {
-
-            Node[] left = Arrays.copyOfRange(list, 0, list.length / 2);
-            Node[] right = Arrays.copyOfRange(list, list.length / 2, list.length);
-
-            mergeSort(left);
-            mergeSort(right);
-            merge(list, left, right);
+    /** Visits the outgoing edges of V without copying them. Assumes V exists in this graph. */
+    @Override
+    public void forEachNeighbor(Long v, EdgeVisitor<Long> visitor) {
+        for (WeightedEdge<Long> e : neighbors.get(v)) {
+            visitor.visit(e.to(), e.weight());
         }
     }
 
-    private void merge(Node[] list, Node[] left, Node[] right) {
-        int i1 = 0;
-        int i2 = 0;
-        for (int i = 0; i < list.length; i++) {
-
-            if (i2 >= right.length || (i1 < left.length && left[i1].name().compareTo(right[i2].name()) < 0)) {
-                list[i] = left[i1];
-                i1++;
-            } else {
-                list[i] = right[i2];
-                i2++;
-            }
-        }
+    /** Returns a list of reversed incoming edges for V. Assumes V exists in this graph. */
+    @Override
+    public List<WeightedEdge<Long>> reverseNeighbors(Long v) {
+        return new ArrayList<>(reverseNeighbors.get(v));
     }
 
-    /** Returns a list of outgoing edges for V. Assumes V exists in this graph. */
+    /** Visits the reversed incoming edges of V without copying them. */
     @Override
-    public List<WeightedEdge<Long>> neighbors(Long v) {
-        return new ArrayList<>(neighbors.get(v));
+    public void forEachReverseNeighbor(Long v, EdgeVisitor<Long> visitor) {
+        for (WeightedEdge<Long> e : reverseNeighbors.get(v)) {
+            visitor.visit(e.to(), e.weight());
+        }
     }
 
     /**
@@ -231,24 +125,30 @@ public class StreetMapGraph implements AStarGraph<Long> {
             Node fromNode = nodes.get(from);
             Node toNode = nodes.get(to);
             double weight = greatCircleDistance(fromNode.lon(), toNode.lon(), fromNode.lat(), toNode.lat());
-            neighbors.get(from).add(new WeightedEdge<>(from, to, weight, name));
+            addEdge(new WeightedEdge<>(from, to, weight, name));
         }
     }
 
     /** Adds an edge to this graph if it doesn't already exist. */
     public void addWeightedEdge(long from, long to, double weight, String name) {
         if (nodes.containsKey(from) && nodes.containsKey(to)) {
-            neighbors.get(from).add(new WeightedEdge<>(from, to, weight, name));
+            addEdge(new WeightedEdge<>(from, to, weight, name));
         }
     }
 
     /** Adds an edge to this graph if it doesn't already exist. */
     public void addWeightedEdge(WeightedEdge<Long> edge) {
         if (nodes.containsKey(edge.from()) && nodes.containsKey(edge.to())) {
-            neighbors.get(edge.from()).add(edge);
+            addEdge(edge);
         }
     }
 
+    private void addEdge(WeightedEdge<Long> edge) {
+        neighbors.get(edge.from()).add(edge);
+        reverseNeighbors.get(edge.to()).add(
+                new WeightedEdge<>(edge.to(), edge.from(), edge.weight(), edge.name()));
+    }
+
     /** Checks if a vertex has 0 out-degree from graph. */
     private boolean isNavigable(Node node) {
         return !neighbors.get(node.id()).isEmpty();
@@ -283,6 +183,7 @@ public class StreetMapGraph implements AStarGraph<Long> {
         if (!nodes.containsKey(node.id())) {
             nodes.put(node.id(), node);
             neighbors.put(node.id(), new HashSet<>());
+            reverseNeighbors.put(node.id(), new HashSet<>());
         }
     }
 
@@ -290,10 +191,6 @@ public class StreetMapGraph implements AStarGraph<Long> {
         return nodes.get(id);
     }
 
-    Node.Builder nodeBuilder() {
-        return new Node.Builder();
-    }
-
     private class KDTree {
 
         public KDTreeNode root;
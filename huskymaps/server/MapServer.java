@@ -1,19 +1,27 @@
 package huskymaps.server;
 
-import huskymaps.StreetMapGraph;
+import huskymaps.CompactStreetMapGraph;
+import huskymaps.ContractionHierarchy;
 import huskymaps.server.handler.APIRouteHandler;
 import huskymaps.server.handler.impl.ClearRouteAPIHandler;
+import huskymaps.server.handler.impl.PQStatsAPIHandler;
 import huskymaps.server.handler.impl.RasterAPIHandler;
 import huskymaps.server.handler.impl.RedirectAPIHandler;
 import huskymaps.server.handler.impl.RoutingAPIHandler;
 import huskymaps.server.handler.impl.SearchAPIHandler;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Map;
 
+import static huskymaps.utils.Constants.CH_PATH;
+import static huskymaps.utils.Constants.CONTRACTION_HIERARCHY;
 import static huskymaps.utils.Constants.HEROKU_DEPLOYMENT;
 import static huskymaps.utils.Constants.OSM_DB_PATH;
 import static huskymaps.utils.Constants.PORT;
 import static huskymaps.utils.Constants.SEMANTIC_STREET_GRAPH;
+import static huskymaps.utils.Constants.SNAPSHOT_PATH;
 import static spark.Spark.before;
 import static spark.Spark.get;
 import static spark.Spark.port;
@@ -26,6 +34,7 @@ public class MapServer {
             "/route", new RoutingAPIHandler(),
             "/clear_route", new ClearRouteAPIHandler(),
             "/search", new SearchAPIHandler(),
+            "/pq_stats", new PQStatsAPIHandler(),
             "/", new RedirectAPIHandler()
             );
 
@@ -33,7 +42,8 @@ public class MapServer {
     public static void main(String[] args) {
         port(getPort());
 
-        SEMANTIC_STREET_GRAPH = new StreetMapGraph(OSM_DB_PATH);
+        SEMANTIC_STREET_GRAPH = loadStreetMapGraph();
+        CONTRACTION_HIERARCHY = loadContractionHierarchy();
         staticFileLocation("/static/page");
         /* Allow for all origin requests (since this is not an authenticated server, we do not
          * care about CSRF).  */
@@ -48,6 +58,55 @@ public class MapServer {
         }
     }
 
+    /**
+     * Returns the graph snapshot saved at SNAPSHOT_PATH. If there is none, it is older than
+     * OSM_DB_PATH or it can't be read, parses OSM_DB_PATH instead and saves a snapshot for
+     * the next start.
+     */
+    private static CompactStreetMapGraph loadStreetMapGraph() {
+        File snapshot = new File(SNAPSHOT_PATH);
+        if (snapshot.exists() && snapshot.lastModified() >= new File(OSM_DB_PATH).lastModified()) {
+            try {
+                return CompactStreetMapGraph.read(SNAPSHOT_PATH);
+            } catch (IOException e) {
+                System.out.println("Could not read " + SNAPSHOT_PATH + ": " + e.getMessage());
+            }
+        }
+        CompactStreetMapGraph graph;
+        try {
+            graph = CompactStreetMapGraph.fromOSM(OSM_DB_PATH);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load " + OSM_DB_PATH, e);
+        }
+        try {
+            graph.write(SNAPSHOT_PATH);
+        } catch (IOException e) {
+            System.out.println("Could not write " + SNAPSHOT_PATH + ": " + e.getMessage());
+        }
+        return graph;
+    }
+
+    /**
+     * Returns the contraction hierarchy saved at CH_PATH, or null (so that routes are found
+     * with A*) if there is none or it was built from a different version of the graph.
+     */
+    private static ContractionHierarchy loadContractionHierarchy() {
+        if (!new File(CH_PATH).exists()) {
+            return null;
+        }
+        try {
+            ContractionHierarchy ch = ContractionHierarchy.read(CH_PATH);
+            if (!ch.builtFrom(SEMANTIC_STREET_GRAPH)) {
+                System.out.println(CH_PATH + " is out of date; routing with A*");
+                return null;
+            }
+            return ch;
+        } catch (IOException e) {
+            System.out.println("Could not read " + CH_PATH + ": " + e.getMessage());
+            return null;
+        }
+    }
+
     private static int getPort() {
         if (HEROKU_DEPLOYMENT) {
             ProcessBuilder processBuilder = new ProcessBuilder();
@@ -0,0 +1,25 @@
+package huskymaps.server.handler.impl;
+
+import astar.AStarSolver;
+import heap.MinPQStatistics;
+import huskymaps.server.handler.APIRouteHandler;
+import spark.Request;
+import spark.Response;
+
+/**
+ * Reports the routing fringe statistics recorded by AStarSolver, or null if the server was
+ * not started with -Dastar.instrumentPQ=true.
+ */
+public class PQStatsAPIHandler extends APIRouteHandler<Object, MinPQStatistics.Snapshot> {
+
+    @Override
+    protected Object parseRequest(Request request) {
+        return null;
+    }
+
+    @Override
+    protected MinPQStatistics.Snapshot processRequest(Object request, Response response) {
+        MinPQStatistics stats = AStarSolver.pqStatistics();
+        return stats == null ? null : stats.snapshot();
+    }
+}
@@ -10,6 +10,7 @@ import spark.Response;
 
 import java.util.List;
 
+import static huskymaps.utils.Constants.CONTRACTION_HIERARCHY;
 import static huskymaps.utils.Constants.ROUTE_LIST;
 import static huskymaps.utils.Constants.SEMANTIC_STREET_GRAPH;
 
@@ -33,7 +34,11 @@ public class RoutingAPIHandler extends APIRouteHandler<RouteRequest, RouteResult
      */
     @Override
     protected RouteResult processRequest(RouteRequest request, Response response) {
-        ROUTE_LIST = Router.shortestPath(SEMANTIC_STREET_GRAPH, request);
+        if (CONTRACTION_HIERARCHY != null) {
+            ROUTE_LIST = Router.shortestPath(SEMANTIC_STREET_GRAPH, CONTRACTION_HIERARCHY, request);
+        } else {
+            ROUTE_LIST = Router.shortestPath(SEMANTIC_STREET_GRAPH, request);
+        }
         return new RouteResult(!ROUTE_LIST.isEmpty(), getDirectionsText());
     }
 
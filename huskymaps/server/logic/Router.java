@@ -1,6 +1,9 @@
 package huskymaps.server.logic;
 
-import astar.AStarSolver;
+import astar.AStarEngine;
+import astar.AStarGraph;
+import huskymaps.CompactStreetMapGraph;
+import huskymaps.ContractionHierarchy;
 import huskymaps.StreetMapGraph;
 import huskymaps.params.RouteRequest;
 
@@ -8,6 +11,9 @@ import java.util.List;
 
 /** Application logic for the RoutingAPIHandler. */
 public class Router {
+    /* Each server thread reuses one engine, so its arrays stay warm across requests. */
+    private static final ThreadLocal<AStarEngine<Long>> ENGINE =
+            ThreadLocal.withInitial(AStarEngine::new);
 
     /**
      * Overloaded method for shortestPath that has flexibility to specify a solver
@@ -22,19 +28,44 @@ public class Router {
          System.out.println();
          System.out.println();
          long dest = g.closest(request.endLat, request.endLon);
-         AStarSolver<Long> solver = new AStarSolver<>(g, src, dest, 20);
-         return solver.solution();
+         return ENGINE.get().solve(g, src, dest, 20).solution();
     }
 
+    /**
+     * Same as the first overload, but runs on the compact form of the graph.
+     * @param g The graph to use.
+     * @param request The requested route.
+     * @return A list of node id's in the order visited on the shortest path.
+     */
+    public static List<Long> shortestPath(CompactStreetMapGraph g, RouteRequest request) {
+        long src = g.closest(request.startLat, request.startLon);
+        long dest = g.closest(request.endLat, request.endLon);
+        return ENGINE.get().solve(g, src, dest, 20).solution();
+    }
+
+    /**
+     * Same as above, but answers the query with a contraction hierarchy of the graph
+     * instead of running A* over the whole graph.
+     * @param g The graph to use for finding the closest nodes.
+     * @param ch The contraction hierarchy of g.
+     * @param request The requested route.
+     * @return A list of node id's in the order visited on the shortest path.
+     */
+    public static List<Long> shortestPath(CompactStreetMapGraph g, ContractionHierarchy ch,
+                                          RouteRequest request) {
+        long src = g.closest(request.startLat, request.startLon);
+        long dest = g.closest(request.endLat, request.endLon);
+        return ch.shortestPath(src, dest);
+    }
 
     /**
      * Create the list of directions corresponding to a route on the graph.
-     * @param g The graph to use.
+     * @param g The graph to use, either form of the street map.
      * @param route The route to translate into directions. Each element
      *              corresponds to a node from the graph in the route.
      * @return A list of NavigationDirections for the route.
      */
-    public static List<NavigationDirection> routeDirections(StreetMapGraph g, List<Long> route) {
+    public static List<NavigationDirection> routeDirections(AStarGraph<Long> g, List<Long> route) {
         // Optional
         return null;
     }
@@ -0,0 +1,318 @@
+package huskymaps.tests;
+
+import astar.AStarEngine;
+import astar.AStarSolver;
+import astar.ReversibleAStarGraph;
+import astar.ShortestPathsSolver;
+import astar.WeightedEdge;
+import huskymaps.CompactStreetMapGraph;
+import huskymaps.StreetMapGraph;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static huskymaps.utils.Constants.BASE_DIR_PATH;
+import static huskymaps.utils.Spatial.projectToX;
+import static huskymaps.utils.Spatial.projectToY;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TestCompactStreetMapGraph {
+    private static final String OSM_DB_PATH_TINY = BASE_DIR_PATH + "tiny.osm.gz";
+    /* Float weights are within this relative error of the originals. */
+    private static final double WEIGHT_ERROR = 1e-6;
+    private static StreetMapGraph tinyGraph;
+    private static CompactStreetMapGraph compactGraph;
+    private static boolean initialized = false;
+
+    @Before
+    public void setUp() throws Exception {
+        if (initialized) {
+            return;
+        }
+        tinyGraph = new StreetMapGraph(OSM_DB_PATH_TINY);
+        compactGraph = tinyGraph.compact();
+        initialized = true;
+    }
+
+    /**
+     * Checks that the edges are the same, allowing the compact weights to be rounded up.
+     * Each expected edge is matched with a different actual edge.
+     */
+    private static void assertSameEdges(String vertex, List<WeightedEdge<Long>> expected,
+                                        List<WeightedEdge<Long>> actual) {
+        assertEquals(vertex, expected.size(), actual.size());
+        List<WeightedEdge<Long>> unmatched = new ArrayList<>(actual);
+        for (WeightedEdge<Long> e : expected) {
+            WeightedEdge<Long> match = null;
+            for (WeightedEdge<Long> a : unmatched) {
+                if (a.from().equals(e.from()) && a.to().equals(e.to())
+                        && (a.name() == null ? e.name() == null : a.name().equals(e.name()))
+                        && a.weight() >= e.weight()
+                        && a.weight() <= e.weight() * (1 + WEIGHT_ERROR)) {
+                    match = a;
+                    break;
+                }
+            }
+            assertTrue(vertex + ": no match for " + e, match != null);
+            unmatched.remove(match);
+        }
+    }
+
+    @Test
+    public void testEdges() {
+        assertEquals(tinyGraph.vertices(), compactGraph.vertices());
+        assertEquals(tinyGraph.vertices().size(), compactGraph.numVertices());
+        for (long v : tinyGraph.vertices()) {
+            String vertex = Long.toString(v);
+            assertEquals(vertex, v, (long) compactGraph.vertex(compactGraph.id(v)));
+            assertEquals(vertex, tinyGraph.lat(v), compactGraph.lat(v), 0);
+            assertEquals(vertex, tinyGraph.lon(v), compactGraph.lon(v), 0);
+            assertSameEdges(vertex, tinyGraph.neighbors(v), compactGraph.neighbors(v));
+            assertSameEdges(vertex, tinyGraph.reverseNeighbors(v),
+                    compactGraph.reverseNeighbors(v));
+        }
+    }
+
+    @Test
+    public void testClosest() {
+        double minLat = Double.POSITIVE_INFINITY;
+        double maxLat = Double.NEGATIVE_INFINITY;
+        double minLon = Double.POSITIVE_INFINITY;
+        double maxLon = Double.NEGATIVE_INFINITY;
+        for (long v : tinyGraph.vertices()) {
+            minLat = Math.min(minLat, tinyGraph.lat(v));
+            maxLat = Math.max(maxLat, tinyGraph.lat(v));
+            minLon = Math.min(minLon, tinyGraph.lon(v));
+            maxLon = Math.max(maxLon, tinyGraph.lon(v));
+        }
+        // Sample a grid reaching a little past the graph on every side.
+        int steps = 20;
+        double latStep = (maxLat - minLat) / steps;
+        double lonStep = (maxLon - minLon) / steps;
+        for (int i = -2; i <= steps + 2; i++) {
+            for (int j = -2; j <= steps + 2; j++) {
+                double lat = minLat + i * latStep;
+                double lon = minLon + j * lonStep;
+                long expected = tinyGraph.closest(lat, lon);
+                long actual = compactGraph.closest(lat, lon);
+                // Ties may be broken differently, so compare the distances.
+                String query = lat + ", " + lon;
+                assertEquals(query, distance(expected, lat, lon), distance(actual, lat, lon),
+                        1e-12);
+            }
+        }
+    }
+
+    private static double distance(long v, double lat, double lon) {
+        double dx = projectToX(tinyGraph.lon(v), tinyGraph.lat(v)) - projectToX(lon, lat);
+        double dy = projectToY(tinyGraph.lon(v), tinyGraph.lat(v)) - projectToY(lon, lat);
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    @Test
+    public void testAllPairs() {
+        AStarEngine<Long> engine = new AStarEngine<>();
+        for (long s : tinyGraph.vertices()) {
+            for (long t : tinyGraph.vertices()) {
+                ShortestPathsSolver<Long> expected = new AStarSolver<>(tinyGraph, s, t, 10);
+                ShortestPathsSolver<Long> actual = engine.solve(compactGraph, s, t, 10);
+                String query = s + " -> " + t;
+                assertEquals(query, expected.outcome(), actual.outcome());
+                if (expected.outcome() == ShortestPathsSolver.SolverOutcome.SOLVED) {
+                    double distance = expected.solutionWeight();
+                    assertEquals(query, distance, actual.solutionWeight(),
+                            distance * WEIGHT_ERROR);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testReverseVisitor() {
+        for (long v : tinyGraph.vertices()) {
+            String vertex = Long.toString(v);
+            assertEquals(vertex, sorted(visitedStrings(tinyGraph.reverseNeighbors(v))),
+                    sorted(visitedStrings(tinyGraph, v)));
+            assertEquals(vertex, sorted(visitedStrings(compactGraph.reverseNeighbors(v))),
+                    sorted(visitedStrings(compactGraph, v)));
+        }
+    }
+
+    /** Returns the edges as the "to weight" strings a visitor sees. */
+    private static List<String> visitedStrings(List<WeightedEdge<Long>> edges) {
+        List<String> result = new ArrayList<>();
+        for (WeightedEdge<Long> e : edges) {
+            result.add(e.to() + " " + e.weight());
+        }
+        return result;
+    }
+
+    /** Returns what forEachReverseNeighbor visits as "to weight" strings. */
+    private static List<String> visitedStrings(ReversibleAStarGraph<Long> graph, long v) {
+        List<String> result = new ArrayList<>();
+        graph.forEachReverseNeighbor(v, (to, weight) -> result.add(to + " " + weight));
+        return result;
+    }
+
+    @Test
+    public void testFromOSM() throws Exception {
+        CompactStreetMapGraph parsed = CompactStreetMapGraph.fromOSM(OSM_DB_PATH_TINY);
+        assertEquals(compactGraph.vertices(), parsed.vertices());
+        for (long v : compactGraph.vertices()) {
+            String vertex = Long.toString(v);
+            assertEquals(vertex, compactGraph.id(v), parsed.id(v));
+            assertEquals(vertex, compactGraph.lat(v), parsed.lat(v), 0);
+            assertEquals(vertex, compactGraph.lon(v), parsed.lon(v), 0);
+            // Edges come out in file order rather than hash set order.
+            assertEquals(vertex, sorted(edgeStrings(compactGraph.neighbors(v))),
+                    sorted(edgeStrings(parsed.neighbors(v))));
+            assertEquals(vertex, sorted(edgeStrings(compactGraph.reverseNeighbors(v))),
+                    sorted(edgeStrings(parsed.reverseNeighbors(v))));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testFromOSMMissing() throws Exception {
+        CompactStreetMapGraph.fromOSM(BASE_DIR_PATH + "missing.osm.gz");
+    }
+
+    @Test
+    public void testWriteRead() throws Exception {
+        File file = File.createTempFile("tiny", ".graph");
+        file.deleteOnExit();
+        compactGraph.write(file.getPath());
+        CompactStreetMapGraph read = CompactStreetMapGraph.read(file.getPath());
+        assertEquals(compactGraph.vertices(), read.vertices());
+        for (long v : compactGraph.vertices()) {
+            String vertex = Long.toString(v);
+            assertEquals(vertex, compactGraph.id(v), read.id(v));
+            assertEquals(vertex, compactGraph.lat(v), read.lat(v), 0);
+            assertEquals(vertex, compactGraph.lon(v), read.lon(v), 0);
+            assertEquals(vertex, edgeStrings(compactGraph.neighbors(v)),
+                    edgeStrings(read.neighbors(v)));
+            assertEquals(vertex, edgeStrings(compactGraph.reverseNeighbors(v)),
+                    edgeStrings(read.reverseNeighbors(v)));
+            double lat = compactGraph.lat(v) + 1e-4;
+            double lon = compactGraph.lon(v) - 1e-4;
+            assertEquals(vertex, compactGraph.closest(lat, lon), read.closest(lat, lon));
+        }
+
+        // The tiny graph has no named places, so round-trip a graph that does. Searches stay
+        // short of the last name, which LocationIndex's binary search doesn't handle.
+        File osm = File.createTempFile("named", ".osm.gz");
+        osm.deleteOnExit();
+        try (Writer out = new OutputStreamWriter(new GZIPOutputStream(
+                new FileOutputStream(osm)), StandardCharsets.UTF_8)) {
+            out.write("<osm>\n"
+                    + "<node id=\"1\" lat=\"47.6205\" lon=\"-122.3493\">"
+                    + "<tag k=\"name\" v=\"Space Needle\"/></node>\n"
+                    + "<node id=\"2\" lat=\"47.6097\" lon=\"-122.3422\">"
+                    + "<tag k=\"name\" v=\"Pike Place Market\"/></node>\n"
+                    + "<node id=\"3\" lat=\"47.6101\" lon=\"-122.3420\">"
+                    + "<tag k=\"name\" v=\"Pike Place Market\"/></node>\n"
+                    + "<node id=\"4\" lat=\"47.6142\" lon=\"-122.3386\">"
+                    + "<tag k=\"name\" v=\"Pike Street Café\"/></node>\n"
+                    + "<node id=\"5\" lat=\"47.6685\" lon=\"-122.3503\">"
+                    + "<tag k=\"name\" v=\"Woodland Park Zoo\"/></node>\n"
+                    + "<way id=\"6\"><nd ref=\"1\"/><nd ref=\"2\"/><nd ref=\"3\"/>"
+                    + "<nd ref=\"4\"/><nd ref=\"5\"/><tag k=\"highway\" v=\"residential\"/></way>\n"
+                    + "</osm>\n");
+        }
+        CompactStreetMapGraph named = new StreetMapGraph(osm.getPath()).compact();
+        named.write(file.getPath());
+        read = CompactStreetMapGraph.read(file.getPath());
+        for (String prefix : List.of("pike", "pike p", "space")) {
+            assertEquals(prefix, sorted(named.getLocationsByPrefix(prefix)),
+                    sorted(read.getLocationsByPrefix(prefix)));
+        }
+        for (String name : List.of("space needle", "pike place market", "pike street café")) {
+            List<String> expected = nodeStrings(named.getLocations(name));
+            assertTrue(name, !expected.isEmpty());
+            assertEquals(name, expected, nodeStrings(read.getLocations(name)));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadTruncated() throws Exception {
+        File file = File.createTempFile("tiny", ".graph");
+        file.deleteOnExit();
+        compactGraph.write(file.getPath());
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 1);
+        }
+        CompactStreetMapGraph.read(file.getPath());
+    }
+
+    @Test
+    public void testWriteOverMapped() throws Exception {
+        File file = File.createTempFile("tiny", ".graph");
+        file.deleteOnExit();
+        compactGraph.write(file.getPath());
+        CompactStreetMapGraph mapped = CompactStreetMapGraph.read(file.getPath());
+        compactGraph.write(file.getPath());
+        // The old mapping still sees the whole snapshot it was read from.
+        for (long v : compactGraph.vertices()) {
+            assertEquals(Long.toString(v), compactGraph.lat(v), mapped.lat(v), 0);
+        }
+        assertEquals(compactGraph.vertices(),
+                CompactStreetMapGraph.read(file.getPath()).vertices());
+        File[] temps = file.getParentFile().listFiles(
+                (dir, name) -> name.startsWith(file.getName()) && name.endsWith(".tmp"));
+        assertEquals(0, temps.length);
+    }
+
+    @Test
+    public void testReadCorruptStrings() throws Exception {
+        File file = File.createTempFile("tiny", ".graph");
+        file.deleteOnExit();
+        compactGraph.write(file.getPath());
+        // The snapshot ends with the number of named locations, which the tiny graph has none of.
+        for (int count : new int[] {-1, 1, Integer.MAX_VALUE}) {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.seek(raf.length() - Integer.BYTES);
+                raf.writeInt(Integer.reverseBytes(count));
+            }
+            try {
+                CompactStreetMapGraph.read(file.getPath());
+                fail("Read a snapshot claiming " + count + " named locations");
+            } catch (IOException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains("corrupt"));
+            }
+        }
+    }
+
+    /** Returns the nodes as strings, which include their names and importance, sorted. */
+    private static List<String> nodeStrings(List<?> nodes) {
+        List<String> result = new ArrayList<>();
+        for (Object node : nodes) {
+            result.add(node.toString());
+        }
+        return sorted(result);
+    }
+
+    private static List<String> sorted(List<String> strings) {
+        Collections.sort(strings);
+        return strings;
+    }
+
+    private static List<String> edgeStrings(List<WeightedEdge<Long>> edges) {
+        List<String> result = new ArrayList<>();
+        for (WeightedEdge<Long> e : edges) {
+            result.add(e.from() + " " + e.to() + " " + e.weight() + " " + e.name());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,105 @@
+package huskymaps.tests;
+
+import astar.AStarSolver;
+import astar.ShortestPathsSolver;
+import huskymaps.ContractionHierarchy;
+import huskymaps.StreetMapGraph;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static huskymaps.utils.Constants.BASE_DIR_PATH;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestContractionHierarchy {
+    private static final String OSM_DB_PATH_TINY = BASE_DIR_PATH + "tiny.osm.gz";
+    private static StreetMapGraph tinyGraph;
+    private static ContractionHierarchy tinyHierarchy;
+    private static boolean initialized = false;
+
+    @Before
+    public void setUp() throws Exception {
+        if (initialized) {
+            return;
+        }
+        tinyGraph = new StreetMapGraph(OSM_DB_PATH_TINY);
+        tinyHierarchy = ContractionHierarchy.build(tinyGraph);
+        initialized = true;
+    }
+
+    /** Checks every pair of vertices against A*, which has been tested separately. */
+    private static void assertAllPairsMatch(ContractionHierarchy ch) {
+        List<Long> vertices = new ArrayList<>(tinyGraph.vertices());
+        for (long s : vertices) {
+            for (long t : vertices) {
+                ShortestPathsSolver<Long> expected = new AStarSolver<>(tinyGraph, s, t, 10);
+                String query = s + " -> " + t;
+                assertEquals(query, expected.solution(), ch.shortestPath(s, t));
+                if (expected.outcome() == ShortestPathsSolver.SolverOutcome.SOLVED) {
+                    assertEquals(query, expected.solutionWeight(), ch.distance(s, t), 1e-9);
+                } else {
+                    assertEquals(query, Double.POSITIVE_INFINITY, ch.distance(s, t), 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testAllPairs() {
+        assertAllPairsMatch(tinyHierarchy);
+    }
+
+    @Test
+    public void testWriteRead() throws Exception {
+        File file = File.createTempFile("tiny", ".ch");
+        file.deleteOnExit();
+        tinyHierarchy.write(file.getPath());
+        ContractionHierarchy read = ContractionHierarchy.read(file.getPath());
+        assertEquals(tinyHierarchy.numVertices(), read.numVertices());
+        assertEquals(tinyHierarchy.numEdges(), read.numEdges());
+        assertAllPairsMatch(read);
+        assertTrue(read.builtFrom(tinyGraph.compact()));
+    }
+
+    @Test
+    public void testBuiltFrom() throws Exception {
+        String nodes = "<node id=\"1\" lat=\"47.60\" lon=\"-122.30\"/>"
+                + "<node id=\"2\" lat=\"47.61\" lon=\"-122.30\"/>";
+        String road = "<way id=\"4\"><nd ref=\"1\"/><nd ref=\"2\"/><nd ref=\"3\"/>"
+                + "<tag k=\"highway\" v=\"residential\"/></way>";
+        StreetMapGraph graph = graph(nodes + "<node id=\"3\" lat=\"47.62\" lon=\"-122.30\"/>"
+                + road);
+        ContractionHierarchy ch = ContractionHierarchy.build(graph);
+        assertTrue(ch.builtFrom(graph.compact()));
+        assertFalse(tinyHierarchy.builtFrom(graph.compact()));
+        // The same number of vertices, but one has another id, location or set of roads.
+        assertFalse(ch.builtFrom(graph(nodes + "<node id=\"5\" lat=\"47.62\" lon=\"-122.30\"/>"
+                + road.replace("\"3\"", "\"5\"")).compact()));
+        assertFalse(ch.builtFrom(graph(nodes + "<node id=\"3\" lat=\"47.63\" lon=\"-122.30\"/>"
+                + road).compact()));
+        assertFalse(ch.builtFrom(graph(nodes + "<node id=\"3\" lat=\"47.62\" lon=\"-122.30\"/>"
+                + road.replace("<nd ref=\"2\"/>", "")).compact()));
+    }
+
+    /** Returns the graph of an OSM file holding the given elements. */
+    private static StreetMapGraph graph(String elements) throws IOException {
+        File file = File.createTempFile("graph", ".osm.gz");
+        file.deleteOnExit();
+        try (Writer out = new OutputStreamWriter(new GZIPOutputStream(
+                new FileOutputStream(file)), StandardCharsets.UTF_8)) {
+            out.write("<osm>" + elements + "</osm>");
+        }
+        return new StreetMapGraph(file.getPath());
+    }
+}
@@ -0,0 +1,102 @@
+package huskymaps.tests;
+
+import astar.AStarSolver;
+import astar.BidirectionalAStarSolver;
+import astar.ShortestPathsSolver;
+import huskymaps.LandmarkGraph;
+import huskymaps.StreetMapGraph;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static huskymaps.utils.Constants.BASE_DIR_PATH;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TestLandmarkGraph {
+    private static final String OSM_DB_PATH_TINY = BASE_DIR_PATH + "tiny.osm.gz";
+    private static StreetMapGraph tinyGraph;
+    private static boolean initialized = false;
+
+    @Before
+    public void setUp() throws Exception {
+        if (initialized) {
+            return;
+        }
+        tinyGraph = new StreetMapGraph(OSM_DB_PATH_TINY);
+        initialized = true;
+    }
+
+    /**
+     * Checks over every pair of vertices that the heuristic never overestimates and that
+     * A* finds equally short paths while exploring no more states than with the
+     * great-circle heuristic.
+     */
+    private static void assertBetterHeuristic(LandmarkGraph landmarks) {
+        List<Long> vertices = new ArrayList<>(tinyGraph.vertices());
+        long plainExplored = 0;
+        long landmarkExplored = 0;
+        for (long s : vertices) {
+            for (long t : vertices) {
+                ShortestPathsSolver<Long> plain = new AStarSolver<>(tinyGraph, s, t, 10);
+                ShortestPathsSolver<Long> alt = new AStarSolver<>(landmarks, s, t, 10);
+                ShortestPathsSolver<Long> bidirectional =
+                        new BidirectionalAStarSolver<>(landmarks, s, t, 10);
+                String query = s + " -> " + t;
+                assertEquals(query, plain.outcome(), alt.outcome());
+                assertEquals(query, plain.outcome(), bidirectional.outcome());
+                if (plain.outcome() == ShortestPathsSolver.SolverOutcome.SOLVED) {
+                    double distance = plain.solutionWeight();
+                    assertEquals(query, distance, alt.solutionWeight(), 1e-9);
+                    assertEquals(query, distance, bidirectional.solutionWeight(), 1e-9);
+                    assertTrue(query, landmarks.estimatedDistanceToGoal(s, t) <= distance);
+                    assertTrue(query, landmarks.estimatedDistanceFromStart(s, t) <= distance);
+                }
+                plainExplored += plain.numStatesExplored();
+                landmarkExplored += alt.numStatesExplored();
+            }
+        }
+        assertTrue(landmarkExplored + " vs " + plainExplored, landmarkExplored <= plainExplored);
+    }
+
+    @Test
+    public void testFarthest() {
+        LandmarkGraph landmarks =
+                new LandmarkGraph(tinyGraph, 4, LandmarkGraph.Selection.FARTHEST, 373);
+        assertEquals(4, landmarks.landmarks().length);
+        assertBetterHeuristic(landmarks);
+    }
+
+    @Test
+    public void testAvoid() {
+        assertBetterHeuristic(
+                new LandmarkGraph(tinyGraph, 4, LandmarkGraph.Selection.AVOID, 373));
+    }
+
+    @Test
+    public void testEmptyGraph() throws Exception {
+        File file = File.createTempFile("empty", ".osm.gz");
+        file.deleteOnExit();
+        try (Writer out = new OutputStreamWriter(new GZIPOutputStream(
+                new FileOutputStream(file)), StandardCharsets.UTF_8)) {
+            out.write("<osm></osm>");
+        }
+        StreetMapGraph empty = new StreetMapGraph(file.getPath());
+        try {
+            new LandmarkGraph(empty, 4, LandmarkGraph.Selection.AVOID, 373);
+            fail("Chose landmarks in an empty graph");
+        } catch (IllegalArgumentException e) {
+            // Not the one Random throws when asked for an index below 0.
+            assertTrue(e.getMessage(), e.getMessage().contains("empty graph"));
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package huskymaps.tests;
+
+import astar.WeightedEdge;
+import huskymaps.CompactStreetMapGraph;
+import huskymaps.StreetMapGraph;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.Deflater;
+
+import static org.junit.Assert.assertEquals;
+
+public class TestOSMPBFReader {
+    private static String pbfPath;
+    private static StreetMapGraph graph;
+    private static boolean initialized = false;
+
+    /*
+     * Nodes 1 through 4 are dense, node 5 isn't. Road 1, 2, 3 is residential, 3, 4 is a
+     * footway and 4, 5, 6 is a trunk road through a node that doesn't exist.
+     */
+    @Before
+    public void setUp() throws Exception {
+        if (initialized) {
+            return;
+        }
+        File file = File.createTempFile("test", ".osm.pbf");
+        file.deleteOnExit();
+        pbfPath = file.getPath();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(blob("OSMHeader", bytes(4, "OsmSchema-V0.6") + bytes(4, "DenseNodes"),
+                    true));
+            // The string table is "", "name", "Cafe", "highway", "residential", "footway",
+            // "trunk" and "Main St".
+            String strings = bytes(1, "") + bytes(1, "name") + bytes(1, "Cafe")
+                    + bytes(1, "highway") + bytes(1, "residential") + bytes(1, "footway")
+                    + bytes(1, "trunk") + bytes(1, "Main St");
+            String dense = packed(1, zigzag(1), zigzag(1), zigzag(1), zigzag(1))
+                    + packed(8, zigzag(476000000), zigzag(10000), zigzag(10000), zigzag(-5))
+                    + packed(9, zigzag(-1223000000), zigzag(20000), zigzag(0), zigzag(3))
+                    + packed(10, 0, 1, 2, 0, 0, 0);
+            out.write(blob("OSMData", message(1, strings) + message(2, message(2, dense))
+                    + varint(17, 100), true));
+            String node = varint(1, zigzag(5)) + packed(2, 1) + packed(3, 2)
+                    + varint(8, zigzag(476030000)) + varint(9, zigzag(-1222980000));
+            out.write(blob("OSMData", message(1, strings) + message(2, message(1, node)),
+                    false));
+            String ways = message(3, varint(1, 1) + packed(2, 3, 1) + packed(3, 4, 7)
+                    + packed(8, zigzag(1), zigzag(1), zigzag(1)))
+                    + message(3, varint(1, 2) + packed(2, 3) + packed(3, 5)
+                    + packed(8, zigzag(3), zigzag(1)))
+                    + message(3, varint(1, 3) + packed(2, 3) + packed(3, 6)
+                    + packed(8, zigzag(4), zigzag(1), zigzag(1)));
+            out.write(blob("OSMData", message(1, strings) + message(2, ways), true));
+        }
+        graph = new StreetMapGraph(pbfPath);
+        initialized = true;
+    }
+
+    @Test
+    public void testNodes() {
+        assertEquals(Set.of(1L, 2L, 3L, 4L, 5L), graph.vertices());
+        assertEquals(47.6, graph.lat(1), 0);
+        assertEquals(-122.3, graph.lon(1), 0);
+        assertEquals(47.602, graph.lat(3), 0);
+        assertEquals(-122.298, graph.lon(3), 0);
+        assertEquals(47.6019995, graph.lat(4), 0);
+        assertEquals(-122.2979997, graph.lon(4), 0);
+        assertEquals(47.603, graph.lat(5), 0);
+        assertEquals(List.of("Cafe", "Cafe"), graph.getLocationsByPrefix("caf"));
+    }
+
+    @Test
+    public void testEdges() {
+        assertEquals(List.of("1 2 Main St"), edgeStrings(graph.neighbors(1L)));
+        assertEquals(List.of("2 1 Main St", "2 3 Main St"), edgeStrings(graph.neighbors(2L)));
+        assertEquals(List.of("3 2 Main St"), edgeStrings(graph.neighbors(3L)));
+        assertEquals(List.of("4 5 "), edgeStrings(graph.neighbors(4L)));
+        assertEquals(List.of("5 4 "), edgeStrings(graph.neighbors(5L)));
+    }
+
+    @Test
+    public void testFromOSM() throws Exception {
+        CompactStreetMapGraph compact = CompactStreetMapGraph.fromOSM(pbfPath);
+        assertEquals(graph.vertices(), compact.vertices());
+        for (long v : graph.vertices()) {
+            String vertex = Long.toString(v);
+            assertEquals(vertex, graph.lat(v), compact.lat(v), 0);
+            assertEquals(vertex, graph.lon(v), compact.lon(v), 0);
+            assertEquals(vertex, edgeStrings(graph.neighbors(v)),
+                    edgeStrings(compact.neighbors(v)));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncated() throws Exception {
+        File file = File.createTempFile("truncated", ".osm.pbf");
+        file.deleteOnExit();
+        Files.copy(new File(pbfPath).toPath(), file.toPath(),
+                StandardCopyOption.REPLACE_EXISTING);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 3);
+        }
+        CompactStreetMapGraph.fromOSM(file.getPath());
+    }
+
+    /** Returns the edges as "from to name" strings, sorted. */
+    private static List<String> edgeStrings(List<WeightedEdge<Long>> edges) {
+        List<String> result = new ArrayList<>();
+        for (WeightedEdge<Long> e : edges) {
+            result.add(e.from() + " " + e.to() + " " + e.name());
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    /*
+     * A tiny protocol buffer writer. Messages are built as strings of chars 0 through 255,
+     * one per byte, so that they can be concatenated.
+     */
+
+    private static long zigzag(long n) {
+        return (n << 1) ^ (n >> 63);
+    }
+
+    private static String varint(long n) {
+        StringBuilder result = new StringBuilder();
+        while ((n & ~0x7fL) != 0) {
+            result.append((char) ((n & 0x7f) | 0x80));
+            n >>>= 7;
+        }
+        return result.append((char) n).toString();
+    }
+
+    private static String varint(int field, long n) {
+        return varint(field << 3) + varint(n);
+    }
+
+    private static String message(int field, String message) {
+        return varint(field << 3 | 2) + varint(message.length()) + message;
+    }
+
+    private static String bytes(int field, String s) {
+        return message(field, new String(s.getBytes(StandardCharsets.UTF_8),
+                StandardCharsets.ISO_8859_1));
+    }
+
+    private static String packed(int field, long... values) {
+        StringBuilder result = new StringBuilder();
+        for (long value : values) {
+            result.append(varint(value));
+        }
+        return message(field, result.toString());
+    }
+
+    /** Returns a blob of the given type, its length and header included. */
+    private static byte[] blob(String type, String block, boolean compress) {
+        byte[] data = block.getBytes(StandardCharsets.ISO_8859_1);
+        String blob;
+        if (compress) {
+            Deflater deflater = new Deflater();
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream zlib = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            while (!deflater.finished()) {
+                zlib.write(buffer, 0, deflater.deflate(buffer));
+            }
+            deflater.end();
+            blob = varint(2, data.length) + message(3,
+                    new String(zlib.toByteArray(), StandardCharsets.ISO_8859_1));
+        } else {
+            blob = message(1, block);
+        }
+        String header = bytes(1, type) + varint(3, blob.length());
+        String length = new String(new byte[] {0, 0, (byte) (header.length() >> 8),
+                (byte) header.length()}, StandardCharsets.ISO_8859_1);
+        return (length + header + blob).getBytes(StandardCharsets.ISO_8859_1);
+    }
+}
@@ -1,6 +1,7 @@
 package huskymaps.utils;
 
-import huskymaps.StreetMapGraph;
+import huskymaps.CompactStreetMapGraph;
+import huskymaps.ContractionHierarchy;
 
 import java.awt.*;
 import java.util.LinkedList;
@@ -78,6 +79,10 @@ public class Constants {
      */
     public static final String OSM_DB_PATH = BASE_DIR_PATH + "seattle-small.osm.gz";
     public static final String PLACES_PATH = BASE_DIR_PATH + "places.json";
+    /** Preprocessed contraction hierarchy of OSM_DB_PATH, written by ContractionHierarchyDemo. */
+    public static final String CH_PATH = BASE_DIR_PATH + "seattle-small.ch";
+    /** Snapshot of the compacted OSM_DB_PATH graph, written by MapServer on its first start. */
+    public static final String SNAPSHOT_PATH = BASE_DIR_PATH + "seattle-small.graph";
 
     /** The tile images are in the IMG_ROOT folder. */
     public static final String IMG_ROOT = BASE_DIR_PATH + "tiles/";
@@ -89,8 +94,11 @@ public class Constants {
     public static final Color ROUTE_STROKE_COLOR = new Color(108, 181, 230);
     public static final float ROUTE_STROKE_WIDTH_PX = 5.0f;
 
-    /** Graph singleton instance. */
-    public static StreetMapGraph SEMANTIC_STREET_GRAPH;
+    /** Graph singleton instance, compacted once the OSM data is parsed. */
+    public static CompactStreetMapGraph SEMANTIC_STREET_GRAPH;
+
+    /** Contraction hierarchy of SEMANTIC_STREET_GRAPH, or null to route with A* instead. */
+    public static ContractionHierarchy CONTRACTION_HIERARCHY;
 
     /**
      * This is used to maintain a single List of route so that the same instance(object) is accessed
@@ -1,5 +1,7 @@
 package kdtree;
 
+import heap.TopKSelector;
+
 import java.util.List;
 
 public class KDTreePointSet implements PointSet {
@@ -26,6 +28,17 @@ public class KDTreePointSet implements PointSet {
         return tree.closest(x, y).point;
     }
 
+    /**
+     * Returns the k points in this set closest to (x, y), nearest first, in (usually)
+     * O(k log N) time, where N is the number of points in this set.
+     */
+    @Override
+    public List<Point> nearest(double x, double y, int k) {
+        TopKSelector<Point> closest = TopKSelector.smallest(k);
+        tree.closest(new Point(x, y), tree.root, closest, true);
+        return closest.results();
+    }
+
     private Point nearest(Point target, KDTree.KDTreeNode node, Point best,
                             int level) {
         if (node == null) {
@@ -192,6 +205,26 @@ public class KDTreePointSet implements PointSet {
             return best;
         }
 
+        /**
+         * Offers every point under node that could be among the closest to target. The far
+         * side of a split is skipped once k points are kept that are all nearer than it.
+         */
+        private void closest(Point target, KDTreeNode node, TopKSelector<Point> closest,
+                             boolean evenLevel) {
+            if (node == null) {
+                return;
+            }
+            closest.offer(node.point, node.point.distanceSquaredTo(target));
+
+            double toSeparation = comparePoints(target, node, evenLevel);
+            KDTreeNode near = toSeparation < 0 ? node.left : node.right;
+            KDTreeNode far = toSeparation < 0 ? node.right : node.left;
+            closest(target, near, closest, !evenLevel);
+            if (!closest.isFull() || toSeparation * toSeparation < closest.worstDouble()) {
+                closest(target, far, closest, !evenLevel);
+            }
+        }
+
         private double distance(KDTreeNode node, Point target) {
             double x = node.point.x();
             double y = node.point.y();
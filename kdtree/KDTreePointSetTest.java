@@ -4,7 +4,7 @@ import org.junit.Test;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
-//import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertEquals;
 
 public class KDTreePointSetTest {
 
@@ -93,4 +93,21 @@ public class KDTreePointSetTest {
         //System.out.printf("Actual = %s\n", actual.nearest(x, y));
         System.out.println("Nearest = " + actual.nearest(x, y));
     }
+
+    @Test
+    public void testNearestK() {
+        Random r = new Random(373);
+        List<Point> p = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            p.add(new Point(r.nextDouble() * 100, r.nextDouble() * 100));
+        }
+        KDTreePointSet actual = new KDTreePointSet(p);
+        NaivePointSet expect = new NaivePointSet(p);
+        for (int i = 0; i < 200; i++) {
+            double x = r.nextDouble() * 120 - 10;
+            double y = r.nextDouble() * 120 - 10;
+            int k = 1 + r.nextInt(20);
+            assertEquals(expect.nearest(x, y, k), actual.nearest(x, y, k));
+        }
+    }
 }
@@ -1,5 +1,7 @@
 package kdtree;
 
+import heap.TopKSelector;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -45,4 +47,17 @@ public class NaivePointSet implements PointSet {
         return null;
 
     }
+
+    /**
+     * Returns the k points in this set closest to (x, y) in O(N log k) time,
+     * where N is the number of points in this set.
+     */
+    @Override
+    public List<Point> nearest(double x, double y, int k) {
+        TopKSelector<Point> closest = TopKSelector.smallest(k);
+        for (Point p : pointSet) {
+            closest.offer(p, p.distanceSquaredTo(x, y));
+        }
+        return closest.results();
+    }
 }
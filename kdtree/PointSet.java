@@ -1,6 +1,15 @@
 package kdtree;
 
+import java.util.List;
+
 public interface PointSet {
     /** Returns the point in this set closest to (x, y). */
     Point nearest(double x, double y);
+
+    /**
+     * Returns the k points in this set closest to (x, y), nearest first, or every point if
+     * there are fewer than k.
+     * @throws IllegalArgumentException if k is less than 1
+     */
+    List<Point> nearest(double x, double y, int k);
 }
@@ -2,6 +2,7 @@ package seamcarving;
 
 import astar.AStarGraph;
 import astar.AStarSolver;
+import astar.EdgeVisitor;
 import astar.ShortestPathsSolver;
 import astar.WeightedEdge;
 import edu.princeton.cs.algs4.Picture;
@@ -228,6 +229,16 @@ public class AStarSeamCarver implements SeamCarver {
             return neighborEdges;
         }
 
+        /** Visits the same edges as neighbors, without creating them. */
+        @Override
+        public void forEachNeighbor(Pixel v, EdgeVisitor<Pixel> visitor) {
+            List<Pixel> neighbors = v.neighbors;
+            for (int i = 0; i < neighbors.size(); i++) {
+                Pixel neighbor = neighbors.get(i);
+                visitor.visit(neighbor, neighbor.energy);
+            }
+        }
+
         @Override
         public double estimatedDistanceToGoal(Pixel s, Pixel goal) {
             return 0;